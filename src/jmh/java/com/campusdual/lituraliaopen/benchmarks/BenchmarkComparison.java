@@ -0,0 +1,117 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result with the committed baseline and writes a Markdown table for the review:
+ * <pre>
+ * BenchmarkComparison &lt;baseline.json&gt; &lt;result.json&gt; &lt;threshold %&gt; [report.md]
+ * </pre>
+ * A change counts as a regression or an improvement only when it is larger than the threshold and than the two error
+ * margins combined. The comparison is a report, it does not fail the build: the committed baseline comes from a
+ * single vCPU with wide error margins, so only large changes stand out. To move the baseline, run the benchmarks on a
+ * quiet multi-core machine with more forks and iterations ({@code -Djmh.args="-f 3 -i 10"}) and copy
+ * {@code target/jmh-result.json} over {@code src/jmh/baseline.json}.
+ */
+public class BenchmarkComparison {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <result.json> <threshold %> [report.md]");
+            System.exit(2);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = read(objectMapper, Paths.get(args[0]));
+        Map<String, JsonNode> result = read(objectMapper, Paths.get(args[1]));
+        double threshold = Double.parseDouble(args[2]);
+
+        StringBuilder report = new StringBuilder();
+        report.append("| Benchmark | Mode | Baseline | Current | Change | |\n")
+              .append("|---|---|---:|---:|---:|---|\n");
+        int regressions = 0;
+        for (Entry<String, JsonNode> entry : result.entrySet()) {
+            JsonNode current = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            String mode = current.path("mode").asText();
+            String unit = current.path("primaryMetric").path("scoreUnit").asText();
+            double score = current.path("primaryMetric").path("score").asDouble();
+            double error = error(current);
+            report.append("| ").append(entry.getKey())
+                  .append(" | ").append(mode)
+                  .append(" | ");
+            if (before == null) {
+                report.append("- | ").append(format(score, error, unit)).append(" | | new |\n");
+                continue;
+            }
+            double baseScore = before.path("primaryMetric").path("score").asDouble();
+            double change = baseScore == 0 ? 0 : (score - baseScore) * 100 / baseScore;
+            // throughput is better when higher, every time based mode when lower
+            double gain = "thrpt".equals(mode) ? change : -change;
+            boolean significant = Math.abs(score - baseScore) > error + error(before) && Math.abs(change) > threshold;
+            String verdict = !significant ? "" : gain < 0 ? "**regression**" : "improvement";
+            if (significant && gain < 0) {
+                regressions++;
+            }
+            report.append(format(baseScore, error(before), unit))
+                  .append(" | ").append(format(score, error, unit))
+                  .append(" | ").append(String.format(Locale.ROOT, "%+.1f%%", change))
+                  .append(" | ").append(verdict).append(" |\n");
+        }
+        if (baseline.isEmpty()) {
+            report.append("\nThe baseline is empty: nothing to compare against yet.\n");
+        }
+        report.append(String.format(Locale.ROOT, "\n%d regression(s) beyond %.0f%%.%n", regressions, threshold));
+
+        System.out.println(report);
+        if (args.length > 3) {
+            Files.write(Paths.get(args[3]), report.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Results keyed by benchmark name and parameters, e.g. {@code BookSerializationBenchmark.page(pageSize=10)}.
+     */
+    static Map<String, JsonNode> read(ObjectMapper objectMapper, Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return results;
+        }
+        for (JsonNode run : objectMapper.readTree(file.toFile())) {
+            String benchmark = run.path("benchmark").asText();
+            int method = benchmark.lastIndexOf('.');
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Entry<String, JsonNode>> fields = run.path("params").fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> param = fields.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                key.append(params.toString().replace('{', '(').replace('}', ')'));
+            }
+            results.put(key.toString(), run);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode run) {
+        double error = run.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String format(double score, double error, String unit) {
+        return String.format(Locale.ROOT, "%.3f ± %.3f %s", score, error, unit);
+    }
+}
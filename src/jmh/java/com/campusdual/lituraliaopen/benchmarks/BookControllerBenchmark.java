@@ -0,0 +1,108 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.campusdual.lituraliaopen.LituraliaBackSpringApplication;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * End-to-end book endpoints over HTTP: the whole application on an embedded Tomcat and an in-memory H2 database seeded
+ * by {@link LegacyCatalogSeeder}. Scores include the HTTP client and loopback, so compare them only with each other
+ * and with earlier runs of the same benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookControllerBenchmark {
+
+    @Param({"50"})
+    int copies;
+
+    ConfigurableApplicationContext context;
+    RestTemplate restTemplate;
+    String baseUrl;
+    int books;
+    int next;
+    HttpEntity<Void> conditional;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context      = new SpringApplicationBuilder(LituraliaBackSpringApplication.class)
+            .profiles("jmh")
+            .run();
+        restTemplate = new RestTemplate();
+        baseUrl      = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/books";
+        books        = LegacyCatalogSeeder.seed(context, copies);
+
+        BookTitleIndex bookTitleIndex = context.getBean(BookTitleIndex.class);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!(bookTitleIndex.isReady() && bookTitleIndex.search("").length == books)
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(restTemplate.getForEntity(baseUrl + "/1", String.class).getHeaders().getETag());
+        conditional = new HttpEntity<>(headers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int nextId() {
+        return 1 + (next++ % books);
+    }
+
+    @Benchmark
+    public String listPage() {
+        return restTemplate.getForObject(baseUrl + "?page={page}&size=20", String.class, nextId() % 50);
+    }
+
+    @Benchmark
+    public String searchTitles() {
+        return restTemplate.getForObject(baseUrl + "/search?searchTerm=the&size=20", String.class);
+    }
+
+    @Benchmark
+    public String getBook() {
+        return restTemplate.getForObject(baseUrl + "/{id}", String.class, nextId());
+    }
+
+    @Benchmark
+    public ResponseEntity<String> getBookNotModified() {
+        return restTemplate.exchange(baseUrl + "/1", HttpMethod.GET, conditional, String.class);
+    }
+
+    @Benchmark
+    public String getBookDetail() {
+        return restTemplate.getForObject(baseUrl + "/{id}/full", String.class, nextId());
+    }
+
+    @Benchmark
+    public String getBookGenres() {
+        return restTemplate.getForObject(baseUrl + "/{id}/genres", String.class, nextId());
+    }
+
+    @Benchmark
+    public byte[] getBookCover() {
+        return restTemplate.getForObject(baseUrl + "/{id}/cover", byte[].class, nextId());
+    }
+}
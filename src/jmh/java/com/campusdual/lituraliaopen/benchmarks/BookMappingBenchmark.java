@@ -0,0 +1,71 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
+import com.campusdual.lituraliaopen.domain.Book;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * MapStruct mapping throughput: entity to DTO, entity to detail aggregate and DTO back to entity. The mappers come
+ * from a Spring context, as in the application, so the detail mapping gets its nested mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookMappingBenchmark {
+
+    AnnotationConfigApplicationContext context;
+    BookMapper bookMapper;
+    List<Book> books;
+    BookDTO bookDto;
+    int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context    = new AnnotationConfigApplicationContext(BookMapperImpl.class, PublisherMapperImpl.class,
+                                                           GenreMapperImpl.class, AuthorMapperImpl.class);
+        bookMapper = context.getBean(BookMapper.class);
+        books      = CatalogFixtures.books(1024);
+        bookDto    = bookMapper.bookToBookDTO(books.get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private Book nextBook() {
+        return books.get(next++ & 1023);
+    }
+
+    @Benchmark
+    public BookDTO bookToBookDTO() {
+        return bookMapper.bookToBookDTO(nextBook());
+    }
+
+    @Benchmark
+    public BookDetailDTO bookToBookDetailDTO() {
+        return bookMapper.bookToBookDetailDTO(nextBook());
+    }
+
+    @Benchmark
+    public Book bookDTOToBook() {
+        return bookMapper.bookDTOToBook(bookDto);
+    }
+}
@@ -0,0 +1,78 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapperImpl;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson serialization of the payloads the book endpoints return, with an {@link ObjectMapper} configured the way
+ * Spring Boot configures it. Covers are no longer inline base64: they are served by {@code /cover}, measured in
+ * {@link BookControllerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookSerializationBenchmark {
+
+    @Param({"10", "100"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    Page<BookDTO> page;
+    CursorSlice<BookDTO> slice;
+    BookDetailDTO detail;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        try (AnnotationConfigApplicationContext context =
+                 new AnnotationConfigApplicationContext(BookMapperImpl.class, PublisherMapperImpl.class,
+                                                        GenreMapperImpl.class, AuthorMapperImpl.class)) {
+            BookMapper bookMapper = context.getBean(BookMapper.class);
+            List<BookDTO> books = CatalogFixtures.books(pageSize).stream()
+                                                 .map(bookMapper::bookToBookDTO)
+                                                 .collect(Collectors.toList());
+            page   = new PageImpl<>(books, PageRequest.of(3, pageSize), 100_000);
+            slice  = new CursorSlice<>(books, PageRequest.of(0, pageSize), true, "eyJwcm9wZXJ0eSI6ImJvb2tJZCJ9");
+            detail = bookMapper.bookToBookDetailDTO(CatalogFixtures.books(1).get(0));
+        }
+    }
+
+    @Benchmark
+    public byte[] page() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] cursorSlice() throws Exception {
+        return objectMapper.writeValueAsBytes(slice);
+    }
+
+    @Benchmark
+    public byte[] detail() throws Exception {
+        return objectMapper.writeValueAsBytes(detail);
+    }
+}
@@ -0,0 +1,68 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.campusdual.lituraliaopen.domain.Author;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.domain.Genre;
+import com.campusdual.lituraliaopen.domain.Publisher;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Detached catalog entities shaped like production rows, built with a fixed seed so runs are comparable.
+ */
+final class CatalogFixtures {
+
+    static final String SYNOPSIS = "Maecenas leo odio, condimentum id, luctus nec, molestie sed, justo. Pellentesque "
+                                   + "viverra pede ac diam. Cras pellentesque volutpat dui. Maecenas tristique, est et "
+                                   + "tempus semper, est quam pharetra magna, ac consequat metus sapien ut nunc.";
+
+    private CatalogFixtures() {
+    }
+
+    static List<Book> books(int count) {
+        Random random = new Random(42);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Book book = Book.builder()
+                            .bookId(i)
+                            .version((long) random.nextInt(5))
+                            .isbn(String.format("%09d-%d", random.nextInt(1_000_000_000), i % 10))
+                            .title("The Tragedy of Hamlet, Prince of Denmark, volume " + i)
+                            .synopsis(SYNOPSIS)
+                            .publishDate(LocalDate.of(1900 + random.nextInt(120), 1 + random.nextInt(12), 1))
+                            .coverHash(String.format("%064x", random.nextLong() & Long.MAX_VALUE))
+                            .publisher(Publisher.builder()
+                                                .publisherId(1 + random.nextInt(20))
+                                                .version(0L)
+                                                .publisherName("Penguin Random House")
+                                                .publisherDesc(SYNOPSIS)
+                                                .build())
+                            .genres(new HashSet<>())
+                            .authors(new HashSet<>())
+                            .build();
+            for (int g = 0; g < 3; g++) {
+                book.getGenres().add(Genre.builder()
+                                          .genreId(1 + random.nextInt(30))
+                                          .version(0L)
+                                          .genreName("Genre " + g)
+                                          .genreDesc("Tragedy and other drama")
+                                          .build());
+            }
+            for (int a = 0; a < 2; a++) {
+                book.getAuthors().add(Author.builder()
+                                            .authorId(1 + random.nextInt(500))
+                                            .version(0L)
+                                            .authorName("William Shakespeare " + a)
+                                            .authorBirth(LocalDate.of(1564, 4, 26))
+                                            .authorDeath(LocalDate.of(1616, 4, 23))
+                                            .authorBio(SYNOPSIS)
+                                            .build());
+            }
+            books.add(book);
+        }
+        return books;
+    }
+}
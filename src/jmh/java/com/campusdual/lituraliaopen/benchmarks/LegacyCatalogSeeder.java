@@ -0,0 +1,111 @@
+package com.campusdual.lituraliaopen.benchmarks;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.event.CatalogImportedEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Seeds the benchmark database from {@code data.sql.bk}: its rows go to a staging table with the pre-migration
+ * layout, covers are decoded into the image store, and every book is copied {@code copies} times so listings page
+ * over a realistic number of rows. Each book gets two genres and two authors.
+ */
+final class LegacyCatalogSeeder {
+
+    static final int GENRES = 30;
+    static final int AUTHORS = 500;
+
+    private LegacyCatalogSeeder() {
+    }
+
+    static int seed(ApplicationContext context, int copies) throws IOException {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        jdbc.execute("CREATE TABLE legacy_books (isbn varchar(13), title varchar, synopsis varchar,"
+                     + " publish_date timestamp, cover text, publisher_id integer)");
+        String data;
+        try (InputStream input = new ClassPathResource("data.sql.bk").getInputStream()) {
+            data = StreamUtils.copyToString(input, StandardCharsets.UTF_8).trim();
+        }
+        jdbc.execute(data.replaceFirst("(?i)insert into books", "insert into legacy_books")
+                         .replaceAll(";$", ""));
+
+        jdbc.update("INSERT INTO lituralia.publishers (publisher_id, version, publisher_name)"
+                    + " SELECT DISTINCT publisher_id, 0, 'Publisher ' || publisher_id FROM legacy_books");
+        List<Object[]> genres = new ArrayList<>();
+        for (int i = 1; i <= GENRES; i++) {
+            genres.add(new Object[]{i, "Genre " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO lituralia.genres (genre_id, version, genre_name) VALUES (?, 0, ?)", genres);
+        List<Object[]> authors = new ArrayList<>();
+        for (int i = 1; i <= AUTHORS; i++) {
+            authors.add(new Object[]{i, "Author " + i});
+        }
+        jdbc.batchUpdate("INSERT INTO lituralia.authors (author_id, version, author_name) VALUES (?, 0, ?)", authors);
+
+        List<Map<String, Object>> legacy = jdbc.queryForList("SELECT * FROM legacy_books");
+        List<Object[]> books = new ArrayList<>();
+        List<Object[]> bookGenres = new ArrayList<>();
+        List<Object[]> bookAuthors = new ArrayList<>();
+        int bookId = 0;
+        for (Map<String, Object> row : legacy) {
+            String coverHash = storeCover(jdbc, (String) row.get("COVER"));
+            for (int copy = 0; copy < copies; copy++) {
+                bookId++;
+                Object publishDate = row.get("PUBLISH_DATE");
+                books.add(new Object[]{bookId, row.get("ISBN"),
+                                       copy == 0 ? row.get("TITLE") : row.get("TITLE") + " " + copy,
+                                       row.get("SYNOPSIS"),
+                                       publishDate == null ? null : new Date(((java.util.Date) publishDate).getTime()),
+                                       row.get("PUBLISHER_ID"), coverHash});
+                bookGenres.add(new Object[]{bookId, 1 + bookId % GENRES});
+                bookGenres.add(new Object[]{bookId, 1 + (bookId * 7) % GENRES});
+                bookAuthors.add(new Object[]{bookId, 1 + bookId % AUTHORS});
+                bookAuthors.add(new Object[]{bookId, 1 + (bookId * 13) % AUTHORS});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO lituralia.books"
+                         + " (book_id, version, isbn, title, synopsis, publish_date, publisher_id, cover_hash)"
+                         + " VALUES (?, 0, ?, ?, ?, ?, ?, ?)", books);
+        jdbc.batchUpdate("MERGE INTO lituralia.book_genres (book_id, genre_id) VALUES (?, ?)", bookGenres);
+        jdbc.batchUpdate("MERGE INTO lituralia.book_authors (book_id, author_id) VALUES (?, ?)", bookAuthors);
+
+        // the title index was built from the empty tables when the application became ready
+        context.publishEvent(new CatalogImportedEvent(Type.BOOK, "books", books.size()));
+        return books.size();
+    }
+
+    /**
+     * Same content hash as the image service; written directly because its {@code ON CONFLICT} insert is PostgreSQL
+     * only.
+     */
+    private static String storeCover(JdbcTemplate jdbc, String cover) {
+        if (cover == null || cover.isEmpty()) {
+            return null;
+        }
+        byte[] image = Base64.getMimeDecoder().decode(cover);
+        StringBuilder imageHash = new StringBuilder(64);
+        try {
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(image)) {
+                imageHash.append(String.format("%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        jdbc.update("MERGE INTO lituralia.images (image_hash, content_type, image_size, content) KEY (image_hash)"
+                    + " VALUES (?, 'image/png', ?, ?)", imageHash.toString(), image.length, image);
+        return imageHash.toString();
+    }
+}
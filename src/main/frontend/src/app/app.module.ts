@@ -6,6 +6,7 @@ import {AppComponent} from './app.component';
 import {MDBBootstrapModule} from "angular-bootstrap-md";
 import {HTTP_INTERCEPTORS, HttpClientModule} from "@angular/common/http";
 import {AuthInterceptor} from "./main/auth/auth.interceptor";
+import {ReadYourWritesInterceptor} from "./main/auth/read-your-writes.interceptor";
 
 @NgModule({
   declarations: [
@@ -21,6 +22,9 @@ import {AuthInterceptor} from "./main/auth/auth.interceptor";
   providers: [
     {
       provide: HTTP_INTERCEPTORS, useClass: AuthInterceptor, multi: true
+    },
+    {
+      provide: HTTP_INTERCEPTORS, useClass: ReadYourWritesInterceptor, multi: true
     }
   ],
   bootstrap: [AppComponent]
@@ -0,0 +1,36 @@
+import {Injectable} from '@angular/core';
+import {HttpEvent, HttpHandler, HttpInterceptor, HttpRequest, HttpResponse} from '@angular/common/http';
+import {Observable} from 'rxjs';
+import {tap} from 'rxjs/operators';
+
+export const PRIMARY_UNTIL_HEADER = 'Lituralia-Primary-Until';
+
+/**
+ * Echoes the deadline the API sends after a write, so that the reads that follow it are served by the primary
+ * database and see the write; the cookie carrying it is not sent back on cross-origin calls.
+ */
+@Injectable()
+export class ReadYourWritesInterceptor implements HttpInterceptor {
+
+  private primaryUntil: string;
+
+  constructor() {
+  }
+
+  intercept(request: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
+
+    if (this.primaryUntil && Number(this.primaryUntil) > Date.now()) {
+      request = request.clone({
+        setHeaders: {
+          [PRIMARY_UNTIL_HEADER]: this.primaryUntil
+        }
+      })
+    }
+
+    return next.handle(request).pipe(tap(event => {
+      if (event instanceof HttpResponse && event.headers.has(PRIMARY_UNTIL_HEADER)) {
+        this.primaryUntil = event.headers.get(PRIMARY_UNTIL_HEADER);
+      }
+    }));
+  }
+}
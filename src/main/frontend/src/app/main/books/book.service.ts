@@ -57,6 +57,10 @@ export class BookService {
     return this.http.delete(this.booksUrl + '/' + id);
   }
 
+  public coverSrc(book: Book): string {
+    return book && book.coverUrl ? environment.apiUrl.replace(/\/api$/, '') + book.coverUrl : '';
+  }
+
   private handleError<T>(operation = 'operation', result?: T) {
     return (error: any): Observable<T> => {
       console.error(error); // log to console instead
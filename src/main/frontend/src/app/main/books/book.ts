@@ -5,6 +5,7 @@ export class Book {
   synopsis: string;
   publishDate: string;
   publisherId: number;
-  cover: string;
+  coverHash: string;
+  coverUrl: string;
 
 }
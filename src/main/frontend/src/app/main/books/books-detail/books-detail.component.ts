@@ -74,6 +74,10 @@ export class BooksDetailComponent implements OnInit {
 
   }
 
+  coverSrc(book: Book): string {
+    return this.bookService.coverSrc(book);
+  }
+
   onSubmit() {
     const book = new Book()
     book.title = this.bookForm.value['title']
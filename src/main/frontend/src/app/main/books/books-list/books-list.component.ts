@@ -120,6 +120,10 @@ export class BooksListComponent implements OnInit, OnDestroy {
   }
 
 
+  coverSrc(book: Book): string {
+    return this.bookService.coverSrc(book);
+  }
+
   refresh() {
     this.pagingObs.next(this.pagingStatus);
   }
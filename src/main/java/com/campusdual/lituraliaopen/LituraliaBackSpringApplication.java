@@ -1,9 +1,14 @@
 package com.campusdual.lituraliaopen;
 
+import com.campusdual.lituraliaopen.repositories.KeysetJpaRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
-@SpringBootApplication
+// the R2DBC pool of the reactive read path is built by ReactiveCatalogConfig, only when that path is enabled
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableJpaRepositories(repositoryBaseClass = KeysetJpaRepositoryImpl.class)
 public class LituraliaBackSpringApplication {
 
     public static void main(String[] args) {
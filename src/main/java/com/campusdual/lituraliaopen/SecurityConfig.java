@@ -36,6 +36,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.csrf().disable().
             authorizeRequests()
             .antMatchers("/*").permitAll()
+            .antMatchers("/api/admin/**").authenticated()
+            .antMatchers("/actuator/queries/**").authenticated()
             .antMatchers(HttpMethod.OPTIONS, "/api/**").permitAll()
 //            .anyRequest().authenticated()
             .and().httpBasic();
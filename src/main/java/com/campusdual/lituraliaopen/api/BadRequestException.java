@@ -0,0 +1,8 @@
+package com.campusdual.lituraliaopen.api;
+
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,71 @@
+package com.campusdual.lituraliaopen.api;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch request: one {@link Item} per request item, in request order, and how many of them failed.
+ */
+public class BatchResult<T> {
+
+    private final List<Item<T>> items;
+    private final int failed;
+
+    public BatchResult(List<Item<T>> items) {
+        this.items  = items;
+        this.failed = (int) items.stream().filter(item -> item.getError() != null).count();
+    }
+
+    public List<Item<T>> getItems() {
+        return items;
+    }
+
+    public int getSucceeded() {
+        return items.size() - failed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * The HTTP status of one item, with the resource it left behind or why it failed.
+     */
+    public static class Item<T> {
+
+        private final int index;
+        private final int status;
+        private final T body;
+        private final String error;
+
+        private Item(int index, int status, T body, String error) {
+            this.index  = index;
+            this.status = status;
+            this.body   = body;
+            this.error  = error;
+        }
+
+        public static <T> Item<T> success(int index, int status, T body) {
+            return new Item<>(index, status, body, null);
+        }
+
+        public static <T> Item<T> failure(int index, int status, String error) {
+            return new Item<>(index, status, null, error);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public T getBody() {
+            return body;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.campusdual.lituraliaopen.api;
+
+import java.util.Locale;
+
+/**
+ * Whether a paginated listing reports its total, from {@code ?count=}: {@code none} returns a Slice, {@code exact} a
+ * Page whose total may be served from a short lived cache or a maintained counter, {@code estimate} a Page whose total
+ * comes from the query planner, see {@link CountedPage}.
+ */
+public enum CountMode {
+    NONE, ESTIMATE, EXACT;
+
+    public static CountMode of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown count mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.campusdual.lituraliaopen.api;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * A {@link org.springframework.data.domain.Page} telling whether its total is exact or a planner estimate.
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+    private final boolean totalExact;
+
+    public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+        super(content, pageable, total);
+        this.totalExact = totalExact;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    /**
+     * The slice with the total {@code countMode} asks for. On the last page the total is known without counting, and
+     * an estimate is never below what the slice already shows.
+     */
+    public static <T> Slice<T> of(Slice<T> slice, CountMode countMode, LongSupplier exact, LongSupplier estimate) {
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+        Pageable pageable = slice.getPageable();
+        long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || slice.isFirst())) {
+            return new CountedPage<>(slice.getContent(), pageable, seen, true);
+        }
+        if (countMode == CountMode.EXACT) {
+            return new CountedPage<>(slice.getContent(), pageable, exact.getAsLong(), true);
+        }
+        long atLeast = seen + (slice.hasNext() ? 1 : 0);
+        return new CountedPage<>(slice.getContent(), pageable, Math.max(estimate.getAsLong(), atLeast), false);
+    }
+}
@@ -0,0 +1,101 @@
+package com.campusdual.lituraliaopen.api;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * The fields of a DTO a response should carry, from {@code ?fields=bookId,title,isbn}. Listings select just the
+ * columns behind them, and every response leaves the other fields out.
+ */
+public final class FieldSet {
+
+    public static final String PARAM = "fields";
+
+    public static final FieldSet ALL = new FieldSet(null);
+
+    private static final Map<Class<?>, Set<String>> PROPERTIES = new ConcurrentHashMap<>();
+
+    // null when every field is wanted
+    private final Set<String> names;
+
+    private FieldSet(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Parses {@code fields}, {@link #ALL} when absent or blank.
+     */
+    public static FieldSet parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return ALL;
+        }
+        Set<String> names = Arrays.stream(fields.split(","))
+                                  .map(String::trim)
+                                  .filter(name -> !name.isEmpty())
+                                  .collect(Collectors.toCollection(LinkedHashSet::new));
+        return names.isEmpty() ? ALL : new FieldSet(Collections.unmodifiableSet(names));
+    }
+
+    /**
+     * Parses {@code fields}, rejecting names that are not properties of {@code dtoType}.
+     */
+    public static FieldSet of(String fields, Class<?> dtoType) {
+        return parse(fields).check(dtoType);
+    }
+
+    public FieldSet check(Class<?> dtoType) {
+        if (names != null) {
+            Set<String> properties = properties(dtoType);
+            for (String name : names) {
+                if (!properties.contains(name)) {
+                    throw new BadRequestException("Unknown field: " + name);
+                }
+            }
+        }
+        return this;
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean contains(String name) {
+        return names == null || names.contains(name);
+    }
+
+    /**
+     * The entity attributes to select for these fields: the id first, then each field, or the attribute it is
+     * derived from when it appears in {@code derived}.
+     */
+    public List<String> attributes(String idAttribute, Map<String, String> derived) {
+        Set<String> attributes = new LinkedHashSet<>();
+        attributes.add(idAttribute);
+        if (names != null) {
+            for (String name : names) {
+                attributes.add(derived.getOrDefault(name, name));
+            }
+        }
+        return new ArrayList<>(attributes);
+    }
+
+    private static Set<String> properties(Class<?> type) {
+        return PROPERTIES.computeIfAbsent(type, t -> Arrays.stream(BeanUtils.getPropertyDescriptors(t))
+                                                          .map(PropertyDescriptor::getName)
+                                                          .filter(name -> !name.equals("class"))
+                                                          .collect(Collectors.toSet()));
+    }
+
+    @Override
+    public String toString() {
+        return names == null ? "*" : String.join(",", names);
+    }
+}
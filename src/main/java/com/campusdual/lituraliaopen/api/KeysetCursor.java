@@ -0,0 +1,50 @@
+package com.campusdual.lituraliaopen.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort.Direction;
+
+/**
+ * Position in a keyset paginated listing: the sort key and id of the last row already returned. Clients get it as
+ * an opaque base64url token and send it back verbatim in {@code ?after=}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class KeysetCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String property;
+    private Direction direction;
+    private String value;
+    private String id;
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static KeysetCursor decode(String token) throws BadRequestException {
+        try {
+            KeysetCursor cursor = MAPPER.readValue(Base64.getUrlDecoder().decode(token.getBytes(StandardCharsets.US_ASCII)),
+                                                   KeysetCursor.class);
+            if (cursor.getProperty() == null || cursor.getDirection() == null || cursor.getId() == null) {
+                throw new BadRequestException("Malformed cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new BadRequestException("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.campusdual.lituraliaopen.api;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * A keyset slice request: one sort property, with the id as tiebreaker, the cursor to continue after ({@code null}
+ * for the first slice) and the slice size.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetRequest {
+
+    private final Sort.Order order;
+    private final KeysetCursor after;
+    private final int size;
+
+    /**
+     * Validates the pageable's sort against the {@code sortable} properties and the cursor against that sort. The
+     * page number is ignored.
+     */
+    public static KeysetRequest of(Pageable pageable, String after, String idProperty, Collection<String> sortable)
+        throws BadRequestException {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.size() > 2 || (orders.size() == 2 && !orders.get(1).getProperty().equals(idProperty))) {
+            throw new BadRequestException("Cursor pagination sorts by a single property");
+        }
+        Sort.Order order = orders.isEmpty() ? Sort.Order.asc(idProperty) : orders.get(0);
+        if (!order.getProperty().equals(idProperty) && !sortable.contains(order.getProperty())) {
+            throw new BadRequestException("Cursor pagination cannot sort by " + order.getProperty());
+        }
+
+        KeysetCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            cursor = KeysetCursor.decode(after);
+            if (!cursor.getProperty().equals(order.getProperty()) || cursor.getDirection() != order.getDirection()) {
+                throw new BadRequestException("Cursor does not match the requested sort");
+            }
+        }
+        return new KeysetRequest(order, cursor, pageable.isPaged() ? pageable.getPageSize() : 10);
+    }
+
+    public Sort getSort() {
+        return Sort.by(order);
+    }
+}
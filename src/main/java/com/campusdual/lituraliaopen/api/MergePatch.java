@@ -0,0 +1,44 @@
+package com.campusdual.lituraliaopen.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * JSON Merge Patch (RFC 7396) over the flat DTOs: each member of the patch replaces that field, {@code null} clears
+ * it, absent fields stay as they are.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    /**
+     * Applies {@code patch} onto {@code target} and returns it. Fields the update ignores, like the id, are ignored
+     * here too, as with PUT.
+     */
+    public static <T> T apply(ObjectMapper objectMapper, T target, JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new BadRequestException("A merge patch must be a JSON object");
+        }
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (BeanUtils.getPropertyDescriptor(target.getClass(), name) == null || name.equals("class")) {
+                throw new BadRequestException("Unknown field: " + name);
+            }
+        }
+        try {
+            return objectMapper.readerForUpdating(target).readValue(patch);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed merge patch: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.campusdual.lituraliaopen.api.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the services after a book, author, genre or publisher is created, updated or deleted, so in-memory
+ * structures derived from the catalog can follow the change without the services knowing about them.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CatalogChangedEvent {
+
+    public enum Type {BOOK, AUTHOR, GENRE, PUBLISHER}
+
+    public enum Change {CREATED, UPDATED, DELETED}
+
+    private final Type type;
+    private final Change change;
+    private final Integer id;
+    private final String name;
+
+    public static CatalogChangedEvent created(Type type, Integer id, String name) {
+        return new CatalogChangedEvent(type, Change.CREATED, id, name);
+    }
+
+    public static CatalogChangedEvent updated(Type type, Integer id, String name) {
+        return new CatalogChangedEvent(type, Change.UPDATED, id, name);
+    }
+
+    public static CatalogChangedEvent deleted(Type type, Integer id) {
+        return new CatalogChangedEvent(type, Change.DELETED, id, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.campusdual.lituraliaopen.api.event;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after a bulk import committed, in place of one {@link CatalogChangedEvent} per row. Imports into the
+ * book join tables are reported as {@link Type#BOOK}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CatalogImportedEvent {
+
+    private final Type type;
+    private final String table;
+    private final long rows;
+}
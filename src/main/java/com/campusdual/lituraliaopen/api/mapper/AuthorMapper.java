@@ -3,15 +3,35 @@ package com.campusdual.lituraliaopen.api.mapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.domain.Author;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.factory.Mappers;
 
-@Mapper(componentModel = "spring", uses = {BookMapper.class})
+@Mapper(componentModel = "spring", uses = {BookMapper.class}, imports = ImageUrls.class)
 public interface AuthorMapper {
 
     AuthorMapper INSTANCE = Mappers.getMapper(AuthorMapper.class);
 
+    @Mapping(target = "authorPortraitUrl",
+             expression = "java(ImageUrls.authorPortrait(author.getAuthorId(), author.getAuthorPortraitHash()))")
     AuthorDTO authorToAuthorDTO(Author author);
 
+    /**
+     * A new author has no portrait yet: it only gets one through its upload endpoints.
+     */
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "authorPortraitHash", ignore = true)
     Author authorDTOToAuthor(AuthorDTO authorDto);
 
+    /**
+     * Copies the editable fields of {@code authorDto} onto a loaded author, leaving its id, version and associations alone.
+     * The portrait only changes through its upload endpoints.
+     */
+    @Mapping(target = "authorId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "authorPortraitHash", ignore = true)
+    @Mapping(target = "authorBio", ignore = true)
+    @Mapping(target = "books", ignore = true)
+    void updateAuthorFromAuthorDTO(AuthorDTO authorDto, @MappingTarget Author author);
+
 }
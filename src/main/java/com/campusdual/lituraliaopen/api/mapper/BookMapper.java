@@ -1,17 +1,41 @@
 package com.campusdual.lituraliaopen.api.mapper;
 
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
 import com.campusdual.lituraliaopen.domain.Book;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.factory.Mappers;
 
-@Mapper(componentModel = "spring", uses = {PublisherMapper.class, GenreMapper.class, AuthorMapper.class})
+@Mapper(componentModel = "spring", uses = {PublisherMapper.class, GenreMapper.class, AuthorMapper.class}, imports = ImageUrls.class)
 public interface BookMapper {
 
     BookMapper INSTANCE = Mappers.getMapper(BookMapper.class);
 
+    @Mapping(target = "coverUrl", expression = "java(ImageUrls.bookCover(book.getBookId(), book.getCoverHash()))")
     BookDTO bookToBookDTO(Book book);
 
+    @Mapping(target = "coverUrl", expression = "java(ImageUrls.bookCover(book.getBookId(), book.getCoverHash()))")
+    BookDetailDTO bookToBookDetailDTO(Book book);
+
+    /**
+     * A new book has no cover yet: it only gets one through its upload endpoints.
+     */
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "coverHash", ignore = true)
     Book bookDTOToBook(BookDTO bookDto);
 
+    /**
+     * Copies the editable fields of {@code bookDto} onto a loaded book, leaving its id, version and associations alone.
+     * The cover only changes through its upload endpoints.
+     */
+    @Mapping(target = "bookId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "coverHash", ignore = true)
+    @Mapping(target = "publisher", ignore = true)
+    @Mapping(target = "genres", ignore = true)
+    @Mapping(target = "authors", ignore = true)
+    void updateBookFromBookDTO(BookDTO bookDto, @MappingTarget Book book);
+
 }
@@ -3,6 +3,8 @@ package com.campusdual.lituraliaopen.api.mapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.domain.Genre;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring", uses = {BookMapper.class})
@@ -12,6 +14,15 @@ public interface GenreMapper {
 
     GenreDTO genreToGenreDTO(Genre genre);
 
+    @Mapping(target = "version", ignore = true)
     Genre genreDTOToGenre(GenreDTO genreDto);
 
+    /**
+     * Copies the editable fields of {@code genreDto} onto a loaded genre, leaving its id, version and associations alone.
+     */
+    @Mapping(target = "genreId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "books", ignore = true)
+    void updateGenreFromGenreDTO(GenreDTO genreDto, @MappingTarget Genre genre);
+
 }
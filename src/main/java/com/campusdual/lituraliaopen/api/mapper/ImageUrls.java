@@ -0,0 +1,34 @@
+package com.campusdual.lituraliaopen.api.mapper;
+
+/**
+ * Builds the public URLs of stored images. The content hash goes in the query string, so the URL changes whenever
+ * the image does and clients may cache it forever.
+ */
+public final class ImageUrls {
+
+    private ImageUrls() {
+    }
+
+    public static String bookCover(Integer bookId, String coverHash) {
+        return url("/api/books/", bookId, "/cover", coverHash);
+    }
+
+    public static String authorPortrait(Integer authorId, String portraitHash) {
+        return url("/api/authors/", authorId, "/portrait", portraitHash);
+    }
+
+    public static String publisherLogo(Integer publisherId, String logoHash) {
+        return url("/api/publishers/", publisherId, "/logo", logoHash);
+    }
+
+    public static String image(String imageHash) {
+        return imageHash == null ? null : "/api/images/" + imageHash;
+    }
+
+    private static String url(String base, Integer id, String path, String imageHash) {
+        if (id == null || imageHash == null) {
+            return null;
+        }
+        return base + id + path + "?v=" + imageHash;
+    }
+}
@@ -3,15 +3,34 @@ package com.campusdual.lituraliaopen.api.mapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
 import com.campusdual.lituraliaopen.domain.Publisher;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.factory.Mappers;
 
-@Mapper(componentModel = "spring", uses = {BookMapper.class})
+@Mapper(componentModel = "spring", uses = {BookMapper.class}, imports = ImageUrls.class)
 public interface PublisherMapper {
 
     PublisherMapper INSTANCE = Mappers.getMapper(PublisherMapper.class);
 
+    @Mapping(target = "publisherLogoUrl",
+             expression = "java(ImageUrls.publisherLogo(publisher.getPublisherId(), publisher.getPublisherLogoHash()))")
     PublisherDTO publisherToPublisherDTO(Publisher publisher);
 
+    /**
+     * A new publisher has no logo yet: it only gets one through its upload endpoints.
+     */
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "publisherLogoHash", ignore = true)
     Publisher publisherDTOToPublisher(PublisherDTO publisherDto);
 
+    /**
+     * Copies the editable fields of {@code publisherDto} onto a loaded publisher, leaving its id, version and associations alone.
+     * The logo only changes through its upload endpoints.
+     */
+    @Mapping(target = "publisherId", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "publisherLogoHash", ignore = true)
+    @Mapping(target = "books", ignore = true)
+    void updatePublisherFromPublisherDTO(PublisherDTO publisherDto, @MappingTarget Publisher publisher);
+
 }
@@ -3,13 +3,15 @@ package com.campusdual.lituraliaopen.api.mapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.UserDTO;
 import com.campusdual.lituraliaopen.domain.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = ImageUrls.class)
 public interface UserMapper {
 
     UserMapper INSTANCE = Mappers.getMapper(UserMapper.class);
 
+    @Mapping(target = "avatarUrl", expression = "java(ImageUrls.image(user.getAvatarHash()))")
     UserDTO userToUserDTO(User user);
 
     User userDTOToUser(UserDTO userDto);
@@ -13,8 +13,11 @@ import lombok.NoArgsConstructor;
 public class AuthorDTO {
 
     private Integer authorId;
+    private Long version;
     private String authorName;
     private LocalDate authorBirth;
     private LocalDate authorDeath;
+    private String authorPortraitHash;
+    private String authorPortraitUrl;
 
 }
@@ -14,9 +14,11 @@ import lombok.NoArgsConstructor;
 public class BookDTO {
 
     private Integer bookId;
+    private Long version;
     private String isbn;
     private String title;
     private String synopsis;
     private LocalDate publishDate;
-    private String cover;
+    private String coverHash;
+    private String coverUrl;
 }
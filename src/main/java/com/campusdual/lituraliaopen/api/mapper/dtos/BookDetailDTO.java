@@ -0,0 +1,31 @@
+package com.campusdual.lituraliaopen.api.mapper.dtos;
+
+import java.time.LocalDate;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * A book together with its publisher, authors and genres, everything the detail view shows.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class BookDetailDTO {
+
+    private Integer bookId;
+    private Long version;
+    private String isbn;
+    private String title;
+    private String synopsis;
+    private LocalDate publishDate;
+    private String coverHash;
+    private String coverUrl;
+    private PublisherDTO publisher;
+    private List<AuthorDTO> authors;
+    private List<GenreDTO> genres;
+}
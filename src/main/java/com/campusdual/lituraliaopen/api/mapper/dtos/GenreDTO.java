@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 public class GenreDTO {
 
     private Integer genreId;
+    private Long version;
     private String genreName;
     private String genreDesc;
 
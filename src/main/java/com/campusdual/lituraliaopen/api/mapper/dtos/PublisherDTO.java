@@ -14,9 +14,11 @@ import lombok.NoArgsConstructor;
 public class PublisherDTO {
 
     private Integer publisherId;
+    private Long version;
     private String publisherName;
     private String publisherDesc;
-    private String publisherLogo;
+    private String publisherLogoHash;
+    private String publisherLogoUrl;
 
 
 }
@@ -0,0 +1,19 @@
+package com.campusdual.lituraliaopen.api.mapper.dtos;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class SuggestionDTO {
+
+    private Type type;
+    private Integer id;
+    private String text;
+
+}
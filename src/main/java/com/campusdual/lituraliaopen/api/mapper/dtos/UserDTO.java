@@ -23,7 +23,9 @@ public class UserDTO {
 
     private LocalDate birthdate;
 
-    private String avatar;
+    private String avatarHash;
+
+    private String avatarUrl;
 
     private LocalDateTime userblocked;
 
@@ -1,33 +1,72 @@
 package com.campusdual.lituraliaopen.api.service;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
-import org.springframework.data.domain.Page;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 
 public interface AuthorService {
 
-    Page<AuthorDTO> getAllAuthors(Pageable pageable);
+    Slice<AuthorDTO> getAllAuthors(Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<AuthorDTO> getAllAuthors(String after, Pageable pageable);
 
     AuthorDTO getAuthorById(Integer author_id) throws ResourceNotFoundException;
 
+    Long getAuthorVersion(Integer author_id) throws ResourceNotFoundException;
+
     AuthorDTO createAuthor(AuthorDTO authorDto);
 
     AuthorDTO updateAuthor(AuthorDTO authorDto);
 
     AuthorDTO updateAuthor(Integer author_id, AuthorDTO authorDto);
 
+    AuthorDTO patchAuthor(Integer authorId, JsonNode patch, Long version) throws ResourceNotFoundException;
+
     void deleteAuthorById(Integer author_id) throws ResourceNotFoundException;
 
-    Page<AuthorDTO> searchAuthors(String searchTerm, Pageable pageable) throws ResourceNotFoundException;
+    Slice<AuthorDTO> searchAuthors(String searchTerm, Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<AuthorDTO> searchAuthors(String searchTerm, String after, Pageable pageable);
+
+    // -------- Batches
+
+    BatchResult<AuthorDTO> createAuthors(List<AuthorDTO> authorDtos);
+
+    BatchResult<AuthorDTO> updateAuthors(List<AuthorDTO> authorDtos);
+
+    BatchResult<Integer> deleteAuthors(List<Integer> authorIds);
+
+    // -------- Author's Portrait
+
+    String getAuthorPortraitHash(Integer authorId) throws ResourceNotFoundException;
+
+    AuthorDTO setAuthorPortrait(Integer authorId, String portraitHash) throws ResourceNotFoundException;
 
     // -------- Author's Books
 
-    Slice<BookDTO> getAuthorBooks(Integer authorId) throws ResourceNotFoundException;
+    Slice<BookDTO> getAuthorBooks(Integer authorId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException;
+
+    CursorSlice<BookDTO> getAuthorBooks(Integer authorId, String after, Pageable pageable)
+        throws ResourceNotFoundException;
+
+    String getAuthorBooksVersion(Integer authorId) throws ResourceNotFoundException;
 
     Slice<BookDTO> setAuthorBook(Integer authorId, Integer bookId) throws ResourceNotFoundException;
 
     Slice<BookDTO> deleteAuthorBook(Integer authorId, Integer bookId) throws ResourceNotFoundException;
+
+    Slice<BookDTO> addAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> setAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> deleteAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException;
 }
@@ -1,49 +1,99 @@
 package com.campusdual.lituraliaopen.api.service;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
-import org.springframework.data.domain.Page;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 
 public interface BookService {
 
-    Page<BookDTO> getAllBooks(Pageable pageable);
+    Slice<BookDTO> getAllBooks(Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<BookDTO> getAllBooks(String after, Pageable pageable);
 
     BookDTO getBookById(Integer bookId) throws ResourceNotFoundException;
 
+    BookDetailDTO getBookDetailById(Integer bookId) throws ResourceNotFoundException;
+
+    Long getBookVersion(Integer bookId) throws ResourceNotFoundException;
+
+    String getBookDetailVersion(Integer bookId) throws ResourceNotFoundException;
+
     BookDTO createBook(BookDTO bookDto);
 
     BookDTO updateBook(BookDTO bookDto);
 
     BookDTO updateBook(Integer bookId, BookDTO bookDto);
 
+    BookDTO patchBook(Integer bookId, JsonNode patch, Long version) throws ResourceNotFoundException;
+
     void deleteBookById(Integer bookId) throws ResourceNotFoundException;
 
-    Page<BookDTO> searchBooks(String searchTerm, Pageable pageable) throws ResourceNotFoundException;
+    Slice<BookDTO> searchBooks(String searchTerm, Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<BookDTO> searchBooks(String searchTerm, String after, Pageable pageable);
+
+    // -------- Batches
+
+    BatchResult<BookDTO> createBooks(List<BookDTO> bookDtos);
+
+    BatchResult<BookDTO> updateBooks(List<BookDTO> bookDtos);
+
+    BatchResult<Integer> deleteBooks(List<Integer> bookIds);
+
+    // -------- Book's Cover
+
+    String getBookCoverHash(Integer bookId) throws ResourceNotFoundException;
+
+    BookDTO setBookCover(Integer bookId, String coverHash) throws ResourceNotFoundException;
 
     // -------- Book's Publisher
 
     PublisherDTO getBookPublisher(Integer bookId) throws ResourceNotFoundException;
 
+    String getBookPublisherVersion(Integer bookId) throws ResourceNotFoundException;
+
     PublisherDTO setBookPublisher(Integer bookId, Integer publisherId) throws ResourceNotFoundException;
 
     // -------- Book's Genres
 
     Slice<GenreDTO> getBookGenres(Integer bookId) throws ResourceNotFoundException;
 
+    String getBookGenresVersion(Integer bookId) throws ResourceNotFoundException;
+
     Slice<GenreDTO> setBookGenre(Integer bookId, Integer genreId) throws ResourceNotFoundException;
 
     Slice<GenreDTO> deleteBookGenre(Integer bookId, Integer genreId) throws ResourceNotFoundException;
 
+    Slice<GenreDTO> addBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException;
+
+    Slice<GenreDTO> setBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException;
+
+    Slice<GenreDTO> deleteBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException;
+
     // -------- Book's Authors
 
     Slice<AuthorDTO> getBookAuthors(Integer bookId) throws ResourceNotFoundException;
 
+    String getBookAuthorsVersion(Integer bookId) throws ResourceNotFoundException;
+
     Slice<AuthorDTO> setBookAuthor(Integer bookId, Integer authorId) throws ResourceNotFoundException;
 
     Slice<AuthorDTO> deleteBookAuthor(Integer bookId, Integer authorId) throws ResourceNotFoundException;
+
+    Slice<AuthorDTO> addBookAuthors(Integer bookId, List<Integer> authorIds) throws ResourceNotFoundException;
+
+    Slice<AuthorDTO> setBookAuthors(Integer bookId, List<Integer> authorIds) throws ResourceNotFoundException;
+
+    Slice<AuthorDTO> deleteBookAuthors(Integer bookId, List<Integer> authorIds) throws ResourceNotFoundException;
 }
@@ -1,33 +1,66 @@
 package com.campusdual.lituraliaopen.api.service;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
-import org.springframework.data.domain.Page;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 
 public interface GenreService {
 
-    Page<GenreDTO> getAllGenres(Pageable pageable);
+    Slice<GenreDTO> getAllGenres(Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<GenreDTO> getAllGenres(String after, Pageable pageable);
 
     GenreDTO getGenreById(Integer genre_id) throws ResourceNotFoundException;
 
+    Long getGenreVersion(Integer genre_id) throws ResourceNotFoundException;
+
     GenreDTO createGenre(GenreDTO genreDto);
 
     GenreDTO updateGenre(GenreDTO genreDto);
 
     GenreDTO updateGenre(Integer genre_id, GenreDTO genreDto);
 
+    GenreDTO patchGenre(Integer genreId, JsonNode patch, Long version) throws ResourceNotFoundException;
+
     void deleteGenreById(Integer genre_id) throws ResourceNotFoundException;
 
-    Page<GenreDTO> searchGenres(String searchTerm, Pageable pageable) throws ResourceNotFoundException;
+    Slice<GenreDTO> searchGenres(String searchTerm, Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<GenreDTO> searchGenres(String searchTerm, String after, Pageable pageable);
+
+    // -------- Batches
+
+    BatchResult<GenreDTO> createGenres(List<GenreDTO> genreDtos);
+
+    BatchResult<GenreDTO> updateGenres(List<GenreDTO> genreDtos);
+
+    BatchResult<Integer> deleteGenres(List<Integer> genreIds);
 
     // -------- Genre's Books
 
-    Slice<BookDTO> getGenreBooks(Integer genreId) throws ResourceNotFoundException;
+    Slice<BookDTO> getGenreBooks(Integer genreId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException;
+
+    CursorSlice<BookDTO> getGenreBooks(Integer genreId, String after, Pageable pageable)
+        throws ResourceNotFoundException;
+
+    String getGenreBooksVersion(Integer genreId) throws ResourceNotFoundException;
 
     Slice<BookDTO> setGenreBook(Integer genreId, Integer bookId) throws ResourceNotFoundException;
 
     Slice<BookDTO> deleteGenreBook(Integer genreId, Integer bookId) throws ResourceNotFoundException;
+
+    Slice<BookDTO> addGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> setGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> deleteGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException;
 }
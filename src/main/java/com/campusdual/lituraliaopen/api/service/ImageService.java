@@ -0,0 +1,16 @@
+package com.campusdual.lituraliaopen.api.service;
+
+import com.campusdual.lituraliaopen.domain.Image;
+import java.io.InputStream;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+
+public interface ImageService {
+
+    /**
+     * Streams the image into the store and returns its content hash. Uploading bytes that are already stored is a
+     * no-op that returns the existing hash.
+     */
+    String storeImage(InputStream content, String contentType);
+
+    Image getImage(String imageHash) throws ResourceNotFoundException;
+}
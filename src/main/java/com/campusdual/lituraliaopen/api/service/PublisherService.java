@@ -1,32 +1,71 @@
 package com.campusdual.lituraliaopen.api.service;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
-import org.springframework.data.domain.Page;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 
 public interface PublisherService {
 
-    Page<PublisherDTO> getAllPublishers(Pageable pageable);
+    Slice<PublisherDTO> getAllPublishers(Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<PublisherDTO> getAllPublishers(String after, Pageable pageable);
 
     PublisherDTO getPublisherById(Integer publisher_id) throws ResourceNotFoundException;
 
+    Long getPublisherVersion(Integer publisher_id) throws ResourceNotFoundException;
+
     PublisherDTO createPublisher(PublisherDTO publisherDto);
 
     PublisherDTO updatePublisher(PublisherDTO publisherDto);
 
     PublisherDTO updatePublisher(Integer publisher_id, PublisherDTO publisherDto);
 
+    PublisherDTO patchPublisher(Integer publisherId, JsonNode patch, Long version) throws ResourceNotFoundException;
+
     void deletePublisherById(Integer publisher_id) throws ResourceNotFoundException;
 
-    Page<PublisherDTO> searchPublishers(String searchTerm, Pageable pageable) throws ResourceNotFoundException;
+    Slice<PublisherDTO> searchPublishers(String searchTerm, Pageable pageable, CountMode countMode, FieldSet fields);
+
+    CursorSlice<PublisherDTO> searchPublishers(String searchTerm, String after, Pageable pageable);
+
+    // -------- Batches
+
+    BatchResult<PublisherDTO> createPublishers(List<PublisherDTO> publisherDtos);
+
+    BatchResult<PublisherDTO> updatePublishers(List<PublisherDTO> publisherDtos);
+
+    BatchResult<Integer> deletePublishers(List<Integer> publisherIds);
+
+    // -------- Publisher's Logo
+
+    String getPublisherLogoHash(Integer publisherId) throws ResourceNotFoundException;
+
+    PublisherDTO setPublisherLogo(Integer publisherId, String logoHash) throws ResourceNotFoundException;
 
     // -------- Publisher's Books
 
-    Slice<BookDTO> getPublisherBooks(Integer publisherId) throws ResourceNotFoundException;
+    Slice<BookDTO> getPublisherBooks(Integer publisherId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException;
+
+    CursorSlice<BookDTO> getPublisherBooks(Integer publisherId, String after, Pageable pageable)
+        throws ResourceNotFoundException;
+
+    String getPublisherBooksVersion(Integer publisherId) throws ResourceNotFoundException;
 
     Slice<BookDTO> setPublisherBook(Integer publisherId, Integer bookId) throws ResourceNotFoundException;
 
+    Slice<BookDTO> addPublisherBooks(Integer publisherId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> setPublisherBooks(Integer publisherId, List<Integer> bookIds) throws ResourceNotFoundException;
+
+    Slice<BookDTO> deletePublisherBooks(Integer publisherId, List<Integer> bookIds) throws ResourceNotFoundException;
+
 }
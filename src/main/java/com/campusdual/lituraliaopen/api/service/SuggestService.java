@@ -0,0 +1,11 @@
+package com.campusdual.lituraliaopen.api.service;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.mapper.dtos.SuggestionDTO;
+import java.util.List;
+import java.util.Set;
+
+public interface SuggestService {
+
+    List<SuggestionDTO> suggest(String query, Set<Type> types, int limit);
+}
@@ -0,0 +1,67 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line bulk import, for seeding a database without going through HTTP:
+ * <pre>
+ * java -jar lituralia-open.jar --spring.main.web-application-type=none --lituralia.warmup.enabled=false \
+ *      --import=publishers:publishers.csv --import=books:books.jsonl.gz --import=book-authors:book_authors.csv
+ * </pre>
+ * Files are imported in the order given, so parents must come before the rows referencing them.
+ */
+@Component
+@Order(0)
+public class BulkImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportRunner.class);
+
+    static final String OPTION = "import";
+
+    private final CatalogBulkLoader catalogBulkLoader;
+
+    public BulkImportRunner(CatalogBulkLoader catalogBulkLoader) {
+        this.catalogBulkLoader = catalogBulkLoader;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> imports = args.getOptionValues(OPTION);
+        if (imports == null) {
+            return;
+        }
+        long rows = 0;
+        long start = System.currentTimeMillis();
+        for (String spec : imports) {
+            int separator = spec.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected --" + OPTION + "=<table>:<file>, got " + spec);
+            }
+            CatalogTable table = CatalogTable.of(spec.substring(0, separator));
+            Path file = Paths.get(spec.substring(separator + 1));
+            try (InputStream input = open(file)) {
+                rows += catalogBulkLoader.load(table, ImportFormat.ofFileName(file.getFileName().toString()), input)
+                                         .getRows();
+            }
+        }
+        log.info("Bulk import finished: {} rows from {} files in {} ms", rows, imports.size(),
+                 System.currentTimeMillis() - start);
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(input, 64 * 1024) : input;
+    }
+}
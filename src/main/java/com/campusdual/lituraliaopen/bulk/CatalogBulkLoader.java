@@ -0,0 +1,237 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.event.CatalogImportedEvent;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads catalog rows with PostgreSQL {@code COPY ... FROM STDIN}, streaming the input straight into the copy in
+ * {@value #CHUNK_SIZE} character chunks: heap use does not depend on the size of the import. Rows without an id get
+ * one from the table's pooled sequence, a block of {@value #ID_BLOCK} per {@code nextval}, exactly as Hibernate
+ * allocates them. Each import is one transaction.
+ */
+@Service
+public class CatalogBulkLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogBulkLoader.class);
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    /**
+     * Must match the sequences' {@code increment by} and the entities' {@code allocationSize}.
+     */
+    static final int ID_BLOCK = 50;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CatalogBulkLoader(DataSource dataSource, ObjectMapper objectMapper,
+                             CatalogCache catalogCache, ApplicationEventPublisher eventPublisher) {
+        this.dataSource     = dataSource;
+        this.objectMapper   = objectMapper;
+        this.catalogCache   = catalogCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ImportReport load(CatalogTable table, ImportFormat format, InputStream input) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), CHUNK_SIZE);
+        RecordReader records = format.open(reader, table, objectMapper);
+        Counts counts;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                counts = copy(connection, table, records);
+                advanceSequence(connection, table);
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            String state = e.getSQLState() == null ? "" : e.getSQLState();
+            if (state.startsWith("22") || state.startsWith("23")) {
+                // data exceptions and integrity violations are the input's fault
+                throw new BadRequestException("Import into " + table.getTableName() + " failed near line "
+                                              + records.line() + ": " + e.getMessage());
+            }
+            throw new SQLStateSQLExceptionTranslator().translate("COPY " + table.getTableName(), null, e);
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        catalogCache.evictAll();
+        eventPublisher.publishEvent(new CatalogImportedEvent(table.getType(), table.getTableName(), counts.rows));
+
+        ImportReport report = ImportReport.builder()
+                                          .table(table.getTableName())
+                                          .rows(counts.rows)
+                                          .allocatedIds(counts.allocatedIds)
+                                          .millis(millis)
+                                          .rowsPerSecond(counts.rows * 1000 / millis)
+                                          .build();
+        log.info("Imported {} rows into {} in {} ms ({} rows/s)", report.getRows(), report.getTable(),
+                 report.getMillis(), report.getRowsPerSecond());
+        return report;
+    }
+
+    // -------- Internals
+
+    private Counts copy(Connection connection, CatalogTable table, RecordReader records)
+        throws SQLException, IOException {
+        List<String> columns = new ArrayList<>(records.columns());
+        int idIndex = -1;
+        if (table.getIdColumn() != null) {
+            idIndex = columns.indexOf(table.getIdColumn());
+            if (idIndex < 0) {
+                columns.add(table.getIdColumn());
+                idIndex = columns.size() - 1;
+            }
+        }
+        String sql = "COPY " + table.getQualifiedName() + " (" + String.join(", ", columns) + ")"
+                     + " FROM STDIN WITH (FORMAT csv)";
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        Counts counts = new Counts();
+        StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+        // the copying connection cannot run nextval until the copy ends, so ids come through a second one
+        try (IdAllocator ids = idIndex < 0 ? null : new IdAllocator(dataSource, table.getQualifiedSequenceName())) {
+            String[] record;
+            while ((record = records.next()) != null) {
+                for (int i = 0; i < columns.size(); i++) {
+                    String value = i < record.length ? record[i] : null;
+                    if (i == idIndex && (value == null || value.trim().isEmpty())) {
+                        value = Long.toString(ids.next());
+                    }
+                    if (i > 0) {
+                        chunk.append(',');
+                    }
+                    appendCsv(chunk, value);
+                }
+                chunk.append('\n');
+                counts.rows++;
+                if (chunk.length() >= CHUNK_SIZE) {
+                    write(copyIn, chunk);
+                }
+            }
+            write(copyIn, chunk);
+            copyIn.endCopy();
+            counts.allocatedIds = ids == null ? 0 : ids.allocated;
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Moves the sequence past every id now in the table, including ids that came with the input, so later blocks
+     * handed to Hibernate or to another import cannot collide with them.
+     */
+    private void advanceSequence(Connection connection, CatalogTable table) throws SQLException {
+        String sequence = table.getQualifiedSequenceName();
+        if (sequence == null) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval('" + sequence + "',"
+                              + " greatest(coalesce(max(" + table.getIdColumn() + "), 0),"
+                              + " (SELECT last_value FROM " + sequence + ")) + " + ID_BLOCK + ", false)"
+                              + " FROM " + table.getQualifiedName());
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.length() > 0) {
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+        }
+    }
+
+    /**
+     * NULL is an empty unquoted field; every value is quoted, so empty strings and separators survive.
+     */
+    private static void appendCsv(StringBuilder chunk, String value) {
+        if (value == null) {
+            return;
+        }
+        chunk.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                chunk.append('"');
+            }
+            chunk.append(c);
+        }
+        chunk.append('"');
+    }
+
+    private static class Counts {
+
+        long rows;
+        long allocatedIds;
+    }
+
+    /**
+     * Hands out ids from a pooled sequence: {@code nextval} returning n reserves n-49 .. n for this import.
+     * Sequences are not transactional, so a rolled back import only leaves a gap.
+     */
+    private static class IdAllocator implements AutoCloseable {
+
+        private final DataSource dataSource;
+        private final String sql;
+        private Connection connection;
+        private long next;
+        private long last = -1;
+        long allocated;
+
+        IdAllocator(DataSource dataSource, String sequence) {
+            this.dataSource = dataSource;
+            this.sql        = "SELECT nextval('" + sequence + "')";
+        }
+
+        long next() throws SQLException {
+            if (next > last) {
+                if (connection == null) {
+                    connection = dataSource.getConnection();
+                }
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(sql)) {
+                    resultSet.next();
+                    last = resultSet.getLong(1);
+                    next = last - ID_BLOCK + 1;
+                }
+            }
+            allocated++;
+            return next++;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+}
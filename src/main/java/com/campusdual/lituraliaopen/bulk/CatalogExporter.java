@@ -0,0 +1,147 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
+import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.campusdual.lituraliaopen.repositories.GenreRepository;
+import com.campusdual.lituraliaopen.repositories.PublisherRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams whole catalog tables to an output stream in constant memory.
+ * <p>
+ * CSV goes through PostgreSQL {@code COPY ... TO STDOUT} with the same columns a bulk import reads, so an export can be
+ * imported again as is. JSON Lines carries the API DTOs: entities are read through a server-side cursor and detached
+ * as soon as they are written, so the persistence context never grows.
+ */
+@Service
+public class CatalogExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogExporter.class);
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter objectWriter;
+
+    private final BookRepository bookRepository;
+    private final BookMapper bookMapper;
+    private final AuthorRepository authorRepository;
+    private final AuthorMapper authorMapper;
+    private final GenreRepository genreRepository;
+    private final GenreMapper genreMapper;
+    private final PublisherRepository publisherRepository;
+    private final PublisherMapper publisherMapper;
+
+    public CatalogExporter(DataSource dataSource, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                           BookRepository bookRepository, BookMapper bookMapper,
+                           AuthorRepository authorRepository, AuthorMapper authorMapper,
+                           GenreRepository genreRepository, GenreMapper genreMapper,
+                           PublisherRepository publisherRepository, PublisherMapper publisherMapper) {
+        this.dataSource          = dataSource;
+        this.entityManager       = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectWriter        = objectMapper.writer();
+        this.bookRepository      = bookRepository;
+        this.bookMapper          = bookMapper;
+        this.authorRepository    = authorRepository;
+        this.authorMapper        = authorMapper;
+        this.genreRepository     = genreRepository;
+        this.genreMapper         = genreMapper;
+        this.publisherRepository = publisherRepository;
+        this.publisherMapper     = publisherMapper;
+    }
+
+    /**
+     * Rejects what cannot be exported before the response is committed.
+     */
+    public void check(CatalogTable table, ImportFormat format) {
+        if (format == ImportFormat.JSONL && table.getIdColumn() == null) {
+            throw new BadRequestException("JSON Lines export is only available for books, authors, genres and "
+                                          + "publishers; export " + table.getTableName() + " as csv");
+        }
+    }
+
+    public void export(CatalogTable table, ImportFormat format, OutputStream output) throws IOException {
+        check(table, format);
+        long start = System.nanoTime();
+        OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+        long rows = format == ImportFormat.CSV ? copyOut(table, out) : writeJsonLines(table, out);
+        out.flush();
+        log.info("Exported {} rows of {} as {} in {} ms", rows, table.getTableName(), format,
+                 (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // -------- Internals
+
+    private long copyOut(CatalogTable table, OutputStream out) throws IOException {
+        String sql = "COPY " + table.getQualifiedName() + " (" + String.join(", ", table.getColumns()) + ") "
+                     + "TO STDOUT WITH (FORMAT csv, HEADER true)";
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } catch (SQLException e) {
+            throw new SQLStateSQLExceptionTranslator().translate("COPY " + table.getTableName(), sql, e);
+        }
+    }
+
+    private long writeJsonLines(CatalogTable table, OutputStream out) {
+        switch (table) {
+            case BOOKS:
+                return writeJsonLines(bookRepository::streamAll, bookMapper::bookToBookDTO, out);
+            case AUTHORS:
+                return writeJsonLines(authorRepository::streamAll, authorMapper::authorToAuthorDTO, out);
+            case GENRES:
+                return writeJsonLines(genreRepository::streamAll, genreMapper::genreToGenreDTO, out);
+            case PUBLISHERS:
+                return writeJsonLines(publisherRepository::streamAll, publisherMapper::publisherToPublisherDTO, out);
+            default:
+                throw new IllegalStateException("No JSON Lines export for " + table);
+        }
+    }
+
+    private <E> long writeJsonLines(Supplier<Stream<E>> rows, Function<E, ?> toDto, OutputStream out) {
+        Long written = readOnlyTransaction.execute(status -> {
+            long count = 0;
+            try (Stream<E> stream = rows.get()) {
+                for (E entity : (Iterable<E>) stream::iterator) {
+                    out.write(objectWriter.writeValueAsBytes(toDto.apply(entity)));
+                    out.write('\n');
+                    entityManager.detach(entity);
+                    count++;
+                }
+            } catch (IOException e) {
+                // the client went away: roll back the read and close the cursor
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        return written == null ? 0 : written;
+    }
+}
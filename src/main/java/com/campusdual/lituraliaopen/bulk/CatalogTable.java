@@ -0,0 +1,85 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The catalog tables a bulk import can write, with the columns an input file may carry for each. Tables with a
+ * sequence get their id filled in when a row leaves it empty.
+ */
+public enum CatalogTable {
+
+    PUBLISHERS(Type.PUBLISHER, "publishers", "publishers_seq",
+               "publisher_id", "publisher_name", "publisher_desc", "publisher_logo_hash"),
+    GENRES(Type.GENRE, "genres", "genres_seq",
+           "genre_id", "genre_name", "genre_desc"),
+    AUTHORS(Type.AUTHOR, "authors", "authors_seq",
+            "author_id", "author_name", "author_birth", "author_death", "author_bio", "author_portrait_hash"),
+    BOOKS(Type.BOOK, "books", "books_seq",
+          "book_id", "isbn", "title", "synopsis", "publish_date", "publisher_id", "cover_hash"),
+    BOOK_GENRES(Type.BOOK, "book_genres", null,
+                "book_id", "genre_id"),
+    BOOK_AUTHORS(Type.BOOK, "book_authors", null,
+                 "book_id", "author_id");
+
+    public static final String SCHEMA = "lituralia";
+
+    private final Type type;
+    private final String tableName;
+    private final String sequenceName;
+    private final List<String> columns;
+
+    CatalogTable(Type type, String tableName, String sequenceName, String... columns) {
+        this.type         = type;
+        this.tableName    = tableName;
+        this.sequenceName = sequenceName;
+        this.columns      = Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * Accepts the table name as well as its path form, {@code book-genres} for {@code book_genres}.
+     */
+    public static CatalogTable of(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT).replace('-', '_');
+        for (CatalogTable table : values()) {
+            if (table.tableName.equals(normalized)) {
+                return table;
+            }
+        }
+        throw new BadRequestException("Unknown catalog table: " + name);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getQualifiedName() {
+        return SCHEMA + "." + tableName;
+    }
+
+    /**
+     * The pooled id sequence, {@code null} for the join tables.
+     */
+    public String getQualifiedSequenceName() {
+        return sequenceName == null ? null : SCHEMA + "." + sequenceName;
+    }
+
+    /**
+     * The id column for tables with a sequence; always the first column.
+     */
+    public String getIdColumn() {
+        return sequenceName == null ? null : columns.get(0);
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+}
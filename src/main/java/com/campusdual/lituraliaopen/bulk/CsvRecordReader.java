@@ -0,0 +1,125 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 CSV: fields separated by commas, optionally quoted, with doubled quotes and line breaks inside quotes. The
+ * first row names the columns. An empty unquoted field is NULL, {@code ""} is an empty string, as in
+ * PostgreSQL's {@code COPY ... (FORMAT csv)}.
+ */
+class CsvRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private final List<String> columns;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    private long line;
+    private long nextLine = 1;
+
+    CsvRecordReader(BufferedReader reader, CatalogTable table) {
+        this.reader = reader;
+        String[] header;
+        try {
+            header = next();
+        } catch (IOException e) {
+            throw new BadRequestException("Unreadable CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            throw new BadRequestException("Empty CSV input, expected a header row");
+        }
+        List<String> names = new ArrayList<>(header.length);
+        for (String name : header) {
+            String column = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+            if (!table.getColumns().contains(column)) {
+                throw new BadRequestException("Unknown column '" + name + "' for " + table.getTableName()
+                                              + ", expected some of " + table.getColumns());
+            }
+            if (names.contains(column)) {
+                throw new BadRequestException("Duplicate column '" + name + "'");
+            }
+            names.add(column);
+        }
+        this.columns = Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public List<String> columns() {
+        return columns;
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        String[] record;
+        do {
+            record = read();
+        } while (record != null && record.length == 1 && record[0] == null);
+        if (record != null && columns != null && record.length != columns.size()) {
+            throw new BadRequestException("Line " + line + " has " + record.length + " fields, expected "
+                                          + columns.size());
+        }
+        return record;
+    }
+
+    private String[] read() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        line = nextLine;
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new BadRequestException("Unterminated quoted field starting on line " + line);
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted    = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                endField(wasQuoted);
+                wasQuoted = false;
+            } else if (c == '\n' || c == -1) {
+                endField(wasQuoted);
+                nextLine++;
+                return fields.toArray(new String[0]);
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private void endField(boolean wasQuoted) {
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        field.setLength(0);
+    }
+}
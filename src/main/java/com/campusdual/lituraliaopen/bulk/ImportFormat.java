@@ -0,0 +1,81 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.util.Locale;
+
+/**
+ * Formats of a bulk import or export: CSV with a header row naming the columns, or JSON Lines with one object per row.
+ */
+public enum ImportFormat {
+
+    CSV("text/csv", ".csv"),
+    JSONL("application/x-ndjson", ".jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    ImportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension   = extension;
+    }
+
+    public static ImportFormat ofContentType(String contentType) {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith("text/csv")) {
+            return CSV;
+        }
+        if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+            return JSONL;
+        }
+        throw new BadRequestException("Unsupported import content type: " + contentType
+                                      + ", expected text/csv or application/x-ndjson");
+    }
+
+    /**
+     * From the file extension, {@code .csv}, {@code .jsonl} or {@code .ndjson}, ignoring a trailing {@code .gz}.
+     */
+    public static ImportFormat ofFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        throw new IllegalArgumentException("Cannot tell the import format of " + fileName);
+    }
+
+    /**
+     * From an export's {@code ?format=}: {@code csv}, {@code jsonl} or {@code ndjson}.
+     */
+    public static ImportFormat ofName(String format) {
+        switch (format.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "jsonl":
+            case "ndjson":
+                return JSONL;
+            default:
+                throw new BadRequestException("Unsupported export format: " + format + ", expected csv or ndjson");
+        }
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    RecordReader open(BufferedReader reader, CatalogTable table, ObjectMapper objectMapper) {
+        return this == CSV ?
+               new CsvRecordReader(reader, table) :
+               new JsonLinesRecordReader(reader, table, objectMapper);
+    }
+}
@@ -0,0 +1,19 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ImportReport {
+
+    private String table;
+    private long rows;
+    private long allocatedIds;
+    private long millis;
+    private long rowsPerSecond;
+}
@@ -0,0 +1,75 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * JSON Lines: one flat object per line, keyed by column name. Missing keys and JSON {@code null} are NULL.
+ */
+class JsonLinesRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private final CatalogTable table;
+    private final ObjectMapper objectMapper;
+    private long line;
+
+    JsonLinesRecordReader(BufferedReader reader, CatalogTable table, ObjectMapper objectMapper) {
+        this.reader       = reader;
+        this.table        = table;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public List<String> columns() {
+        return table.getColumns();
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            line++;
+        } while (text != null && text.trim().isEmpty());
+        if (text == null) {
+            return null;
+        }
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Line " + line + " is not valid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new BadRequestException("Line " + line + " is not a JSON object");
+        }
+        String[] record = new String[table.getColumns().size()];
+        Iterator<Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            int index = table.getColumns().indexOf(field.getKey());
+            if (index < 0) {
+                throw new BadRequestException("Unknown column '" + field.getKey() + "' on line " + line + " for "
+                                              + table.getTableName() + ", expected some of " + table.getColumns());
+            }
+            JsonNode value = field.getValue();
+            if (value.isContainerNode()) {
+                throw new BadRequestException("Column '" + field.getKey() + "' on line " + line + " is not a scalar");
+            }
+            record[index] = value.isNull() ? null : value.asText();
+        }
+        return record;
+    }
+}
@@ -0,0 +1,25 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streams the rows of an import file one at a time, so an import holds a single row in memory whatever its size.
+ */
+interface RecordReader {
+
+    /**
+     * The columns every row returned by {@link #next()} is aligned with.
+     */
+    List<String> columns();
+
+    /**
+     * The next row, {@code null} for SQL NULL values, or {@code null} at the end of the input.
+     */
+    String[] next() throws IOException;
+
+    /**
+     * Line of the input the last row came from, for error messages.
+     */
+    long line();
+}
@@ -0,0 +1,63 @@
+package com.campusdual.lituraliaopen.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import java.util.OptionalLong;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Second-level cache for Hibernate: Caffeine through JCache, with one bounded region per cached entity or collection.
+ * <p>
+ * Hit and miss counts per region come from Hibernate statistics ({@code hibernate.second.level.cache.*} metrics);
+ * evictions and removals from the JCache statistics of each region ({@code cache.*} metrics).
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    public static final String GENRES = "genres";
+    public static final String PUBLISHERS = "publishers";
+    public static final String AUTHORS = "authors";
+    public static final String BOOKS = "books";
+    public static final String BOOK_GENRES = "book-genres";
+    public static final String BOOK_AUTHORS = "book-authors";
+    /**
+     * Not a Hibernate region: totals of the author, genre and publisher book listings, see {@link CatalogCache}.
+     */
+    public static final String BOOK_COUNTS = "book-counts";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(CacheProperties properties) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        properties.getRegions().forEach((name, region) -> {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(region.getMaximumSize()));
+            configuration.setExpireAfterWrite(OptionalLong.of(region.getTimeToLive().toNanos()));
+            // Hibernate only stores immutable, already disassembled entries: no need to copy them on every access
+            configuration.setStoreByValue(false);
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(name, configuration);
+        });
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return hibernateProperties -> hibernateProperties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> hibernateCacheManager.getCacheNames().forEach(
+            name -> JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(name), "cacheManager", "hibernate"));
+    }
+}
@@ -0,0 +1,24 @@
+package com.campusdual.lituraliaopen.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bounds of the Hibernate second-level cache regions, {@code lituralia.cache.regions.<region>.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "lituralia.cache")
+public class CacheProperties {
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.campusdual.lituraliaopen.cache;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.domain.Book;
+import java.util.function.LongSupplier;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts second-level cache entries that Hibernate cannot invalidate by itself: rows removed by database side
+ * cascades and links written outside the {@code Book} entity.
+ * <p>
+ * Also keeps the book totals of authors, genres and publishers and the totals of searches, dropped whenever links or
+ * the catalog change.
+ */
+@Component
+public class CatalogCache {
+
+    static final String BOOK_GENRES_ROLE = Book.class.getName() + ".genres";
+    static final String BOOK_AUTHORS_ROLE = Book.class.getName() + ".authors";
+
+    private final Cache cache;
+    private final javax.cache.Cache<String, Long> bookCounts;
+
+    public CatalogCache(EntityManagerFactory entityManagerFactory, CacheManager hibernateCacheManager) {
+        this.cache      = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.bookCounts = hibernateCacheManager.getCache(CacheConfig.BOOK_COUNTS);
+    }
+
+    public void evictBook(Integer bookId) {
+        cache.evictEntityData(Book.class, bookId);
+    }
+
+    public void evictBooks() {
+        cache.evictEntityData(Book.class);
+    }
+
+    public void evictBookGenres(Integer bookId) {
+        cache.evictCollectionData(BOOK_GENRES_ROLE, bookId);
+    }
+
+    public void evictBookGenres() {
+        cache.evictCollectionData(BOOK_GENRES_ROLE);
+    }
+
+    public void evictBookAuthors(Integer bookId) {
+        cache.evictCollectionData(BOOK_AUTHORS_ROLE, bookId);
+    }
+
+    public void evictBookAuthors() {
+        cache.evictCollectionData(BOOK_AUTHORS_ROLE);
+    }
+
+    public void evictAll() {
+        cache.evictAllRegions();
+        evictBookCounts();
+    }
+
+    /**
+     * Runs an eviction right away, so the rest of the transaction reads the change, and again after commit, so no
+     * concurrent reader leaves the old entries cached.
+     */
+    public void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // -------- Book counts
+
+    /**
+     * Number of books of an author, genre or publisher, e.g. {@code countBooks("genre", 7, ...)}, see
+     * {@link #count(String, LongSupplier)}.
+     */
+    public long countBooks(String owner, Integer ownerId, LongSupplier count) {
+        return count(owner + ':' + ownerId, count);
+    }
+
+    /**
+     * A count of catalog rows, counted once per time-to-live of the {@code book-counts} region, or every time when
+     * that region is not configured.
+     */
+    public long count(String key, LongSupplier count) {
+        if (bookCounts == null) {
+            return count.getAsLong();
+        }
+        Long cached = bookCounts.get(key);
+        if (cached == null) {
+            cached = count.getAsLong();
+            bookCounts.put(key, cached);
+        }
+        return cached;
+    }
+
+    public void evictBookCounts() {
+        if (bookCounts != null) {
+            bookCounts.clear();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        evictBookCounts();
+    }
+}
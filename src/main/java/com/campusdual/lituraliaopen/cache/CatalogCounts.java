@@ -0,0 +1,144 @@
+package com.campusdual.lituraliaopen.cache;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Change;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.event.CatalogImportedEvent;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Row totals of the catalog tables, so listings do not run {@code count(*)} per page.
+ * <p>
+ * Exact totals are counted once, then kept up to date from the created and deleted events of the services, and
+ * counted again after a bulk import or once {@code lituralia.counts.resync} has passed, which also bounds the drift
+ * of a count racing with a change or of changes made by other instances. Estimates come from the planner:
+ * {@code pg_class.reltuples} for whole tables, the row estimate of {@code EXPLAIN} for searches.
+ */
+@Component
+public class CatalogCounts {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCounts.class);
+
+    static final Map<Type, String> TABLES = new EnumMap<>(Type.class);
+
+    static {
+        TABLES.put(Type.BOOK, "books");
+        TABLES.put(Type.AUTHOR, "authors");
+        TABLES.put(Type.GENRE, "genres");
+        TABLES.put(Type.PUBLISHER, "publishers");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CatalogCache catalogCache;
+    private final long resyncNanos;
+
+    private final Map<Type, Count> counts = new ConcurrentHashMap<>();
+
+    public CatalogCounts(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, CatalogCache catalogCache,
+                         @Value("${lituralia.counts.resync:10m}") Duration resync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.catalogCache = catalogCache;
+        this.resyncNanos  = resync.toNanos();
+    }
+
+    /**
+     * Number of rows of the table.
+     */
+    public long exact(Type type) {
+        long now = System.nanoTime();
+        Count count = counts.get(type);
+        if (count == null || now - count.countedAt > resyncNanos) {
+            // counted outside the map: compute would lock its bin for as long as the count(*) runs
+            count = new Count(countRows(type), now);
+            counts.put(type, count);
+        }
+        return count.value;
+    }
+
+    /**
+     * Planner estimate of the number of rows of the table, the exact total while the table was never analyzed.
+     */
+    public long estimate(Type type) {
+        Long estimate = jdbcTemplate.queryForObject(
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, qualified(type));
+        return estimate == null || estimate < 0 ? exact(type) : estimate;
+    }
+
+    /**
+     * Number of search matches, kept in the {@code book-counts} region until the catalog changes.
+     */
+    public long exactSearch(Type type, String term, LongSupplier count) {
+        return catalogCache.count("search:" + TABLES.get(type) + ':' + term.toLowerCase(Locale.ROOT), count);
+    }
+
+    /**
+     * Planner estimate of the number of rows whose {@code column} contains {@code term} ignoring case.
+     */
+    public long estimateSearch(Type type, String column, String term) {
+        String plan = jdbcTemplate.queryForObject(
+            "EXPLAIN (FORMAT JSON) SELECT 1 FROM " + qualified(type)
+            + " WHERE lower(" + column + ") LIKE ? ESCAPE '\\'",
+            String.class, SearchSpecifications.containsPattern(term));
+        try {
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? rows.asLong() : estimate(type);
+        } catch (IOException e) {
+            log.warn("Unreadable plan for a {} search: {}", type, plan);
+            return estimate(type);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getChange() == Change.UPDATED) {
+            return;
+        }
+        long delta = event.getChange() == Change.CREATED ? 1 : -1;
+        counts.computeIfPresent(event.getType(), (type, count) -> new Count(count.value + delta, count.countedAt));
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        counts.remove(event.getType());
+    }
+
+    // -------- Internals
+
+    private long countRows(Type type) {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM " + qualified(type), Long.class);
+        return rows == null ? 0 : rows;
+    }
+
+    private static String qualified(Type type) {
+        return "lituralia." + TABLES.get(type);
+    }
+
+    private static final class Count {
+
+        final long value;
+        final long countedAt;
+
+        Count(long value, long countedAt) {
+            this.value     = value;
+            this.countedAt = countedAt;
+        }
+    }
+}
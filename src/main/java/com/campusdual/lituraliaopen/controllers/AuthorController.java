@@ -1,30 +1,47 @@
 package com.campusdual.lituraliaopen.controllers;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.MergePatch;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.service.AuthorService;
+import com.campusdual.lituraliaopen.api.service.ImageService;
+import com.campusdual.lituraliaopen.replicas.ReadYourWrites;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
-@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {HttpHeaders.ETAG, ReadYourWrites.HEADER},
+             maxAge = 3600)
 @RestController
 @RequestMapping("/api/authors")
 public class AuthorController {
@@ -32,28 +49,46 @@ public class AuthorController {
     @Autowired
     AuthorService authorService;
 
+    @Autowired
+    ImageService imageService;
+
 
     @GetMapping
-    public Page<AuthorDTO> getAllAuthors(@PageableDefault(page = 0, size = 10)
-                                         @SortDefault.SortDefaults({@SortDefault(sort = "authorId", direction = Direction.ASC)})
-                                             Pageable pageable) {
-        return authorService.getAllAuthors(pageable);
+    public Slice<AuthorDTO> getAllAuthors(@PageableDefault(page = 0, size = 10)
+                                          @SortDefault.SortDefaults({@SortDefault(sort = "authorId", direction = Direction.ASC)})
+                                              Pageable pageable,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false, defaultValue = "exact") String count,
+                                          @RequestParam(required = false) String fields) {
+        return after == null ?
+               authorService.getAllAuthors(pageable, CountMode.of(count), FieldSet.of(fields, AuthorDTO.class)) :
+               authorService.getAllAuthors(after, pageable);
     }
 
     @GetMapping("/search")
-    public Page<AuthorDTO> searchAuthors(@PageableDefault(page = 0, size = 10)
-                                         @SortDefault.SortDefaults({@SortDefault(sort = "authorId", direction = Direction.ASC)})
-                                             Pageable pageable,
-                                         @RequestParam(required = false, defaultValue = "") String searchTerm) {
+    public Slice<AuthorDTO> searchAuthors(@PageableDefault(page = 0, size = 10)
+                                          @SortDefault.SortDefaults({@SortDefault(sort = "authorId", direction = Direction.ASC)})
+                                              Pageable pageable,
+                                          @RequestParam(required = false, defaultValue = "") String searchTerm,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false, defaultValue = "exact") String count,
+                                          @RequestParam(required = false) String fields) {
+        if (after != null) {
+            return searchTerm.isEmpty() ?
+                   authorService.getAllAuthors(after, pageable) :
+                   authorService.searchAuthors(searchTerm, after, pageable);
+        }
+        CountMode countMode = CountMode.of(count);
+        FieldSet fieldSet = FieldSet.of(fields, AuthorDTO.class);
         return searchTerm.isEmpty() ?
-               authorService.getAllAuthors(pageable) :
-               authorService.searchAuthors(searchTerm, pageable);
+               authorService.getAllAuthors(pageable, countMode, fieldSet) :
+               authorService.searchAuthors(searchTerm, pageable, countMode, fieldSet);
     }
 
     @GetMapping("/{id}")
-    public AuthorDTO getEmployeeById(@PathVariable("id") Integer id)
+    public ResponseEntity<AuthorDTO> getEmployeeById(@PathVariable("id") Integer id, WebRequest request)
         throws ResourceNotFoundException {
-        return authorService.getAuthorById(id);
+        return ETags.get(request, authorService.getAuthorVersion(id), () -> authorService.getAuthorById(id));
     }
 
     @PostMapping
@@ -63,9 +98,21 @@ public class AuthorController {
     }
 
     @PutMapping({"/{id}"})
-    @ResponseStatus(HttpStatus.OK)
-    public AuthorDTO updateAuthor(@PathVariable Integer id, @RequestBody AuthorDTO customerDTO) {
-        return authorService.updateAuthor(id, customerDTO);
+    public ResponseEntity<AuthorDTO> updateAuthor(@PathVariable Integer id, @RequestBody AuthorDTO customerDTO,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            customerDTO.setVersion(ETags.ifMatchVersion(ifMatch));
+        }
+        AuthorDTO updated = authorService.updateAuthor(id, customerDTO);
+        return ETags.ok(updated.getVersion(), updated);
+    }
+
+    @PatchMapping(value = {"/{id}"}, consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<AuthorDTO> patchAuthor(@PathVariable Integer id, @RequestBody JsonNode patch,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        AuthorDTO patched = authorService.patchAuthor(id, patch, version);
+        return ETags.ok(patched.getVersion(), patched);
     }
 
     @DeleteMapping({"/{id}"})
@@ -74,13 +121,68 @@ public class AuthorController {
         authorService.deleteAuthorById(id);
     }
 
+    // -------- Batches
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<AuthorDTO>> createAuthors(@RequestBody List<AuthorDTO> authorDtos) {
+        return BatchResponses.of(authorService.createAuthors(authorDtos));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResult<AuthorDTO>> updateAuthors(@RequestBody List<AuthorDTO> authorDtos) {
+        return BatchResponses.of(authorService.updateAuthors(authorDtos));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResult<Integer>> deleteAuthors(@RequestBody List<Integer> authorIds) {
+        return BatchResponses.of(authorService.deleteAuthors(authorIds));
+    }
+
+    // -------- Author's Portrait
+
+    @GetMapping({"/{id}/portrait"})
+    public ResponseEntity<byte[]> getAuthorPortrait(@PathVariable Integer id,
+                                                    @RequestParam(required = false) String v,
+                                                    WebRequest request) {
+        return ImageResponses.serve(imageService, authorService.getAuthorPortraitHash(id), v, request);
+    }
+
+    @PutMapping(value = {"/{id}/portrait"}, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public AuthorDTO putAuthorPortrait(@PathVariable Integer id, @RequestParam("file") MultipartFile file)
+        throws IOException {
+        return authorService.setAuthorPortrait(id, ImageResponses.store(imageService, file));
+    }
+
+    @PutMapping(value = {"/{id}/portrait"}, consumes = "image/*")
+    @ResponseStatus(HttpStatus.OK)
+    public AuthorDTO putAuthorPortraitBytes(@PathVariable Integer id, HttpServletRequest request)
+        throws IOException {
+        return authorService.setAuthorPortrait(id, ImageResponses.store(imageService, request));
+    }
+
+    @DeleteMapping({"/{id}/portrait"})
+    @ResponseStatus(HttpStatus.OK)
+    public AuthorDTO deleteAuthorPortrait(@PathVariable Integer id) {
+        return authorService.setAuthorPortrait(id, null);
+    }
+
     // -------- Author's Books
 
 
     @GetMapping({"/{id}/books"})
-    @ResponseStatus(HttpStatus.OK)
-    public Slice<BookDTO> getAuthorBooks(@PathVariable Integer id) {
-        return authorService.getAuthorBooks(id);
+    public ResponseEntity<Slice<BookDTO>> getAuthorBooks(@PathVariable Integer id,
+                                                         @PageableDefault(page = 0, size = 10)
+                                                         @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
+                                                             Pageable pageable,
+                                                         @RequestParam(required = false) String after,
+                                                         @RequestParam(required = false, defaultValue = "none") String count,
+                                                         WebRequest request) {
+        CountMode countMode = CountMode.of(count);
+        return ETags.get(request, authorService.getAuthorBooksVersion(id),
+                         () -> after == null ?
+                               authorService.getAuthorBooks(id, pageable, countMode) :
+                               authorService.getAuthorBooks(id, after, pageable));
     }
 
     @PostMapping({"/{id}/books/{idBook}"})
@@ -101,4 +203,22 @@ public class AuthorController {
         return authorService.deleteAuthorBook(id, idBook);
     }
 
+    @PostMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> postAuthorBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return authorService.addAuthorBooks(id, bookIds);
+    }
+
+    @PutMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> putAuthorBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return authorService.setAuthorBooks(id, bookIds);
+    }
+
+    @DeleteMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> deleteAuthorBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return authorService.deleteAuthorBooks(id, bookIds);
+    }
+
 }
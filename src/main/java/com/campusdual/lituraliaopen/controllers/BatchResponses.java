@@ -0,0 +1,19 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.BatchResult;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Batch responses: 200 when every item succeeded, 207 Multi-Status when some failed, each item carrying its own
+ * status.
+ */
+final class BatchResponses {
+
+    private BatchResponses() {
+    }
+
+    static <T> ResponseEntity<BatchResult<T>> of(BatchResult<T> result) {
+        return ResponseEntity.status(result.getFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+    }
+}
@@ -1,33 +1,51 @@
 package com.campusdual.lituraliaopen.controllers;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.MergePatch;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
 import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.api.service.ImageService;
 import com.campusdual.lituraliaopen.api.service.PublisherService;
+import com.campusdual.lituraliaopen.replicas.ReadYourWrites;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
-@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {HttpHeaders.ETAG, ReadYourWrites.HEADER},
+             maxAge = 3600)
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
@@ -38,28 +56,52 @@ public class BookController {
     @Autowired
     PublisherService publisherService;
 
+    @Autowired
+    ImageService imageService;
+
     @GetMapping
-    public Page<BookDTO> getAllBooks(@PageableDefault(page = 0, size = 10)
-                                     @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
-                                         Pageable pageable) {
-        return bookService.getAllBooks(pageable);
+    public Slice<BookDTO> getAllBooks(@PageableDefault(page = 0, size = 10)
+                                      @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
+                                          Pageable pageable,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false, defaultValue = "exact") String count,
+                                      @RequestParam(required = false) String fields) {
+        return after == null ?
+               bookService.getAllBooks(pageable, CountMode.of(count), FieldSet.of(fields, BookDTO.class)) :
+               bookService.getAllBooks(after, pageable);
     }
 
     @GetMapping("/search")
-    public Page<BookDTO> searchBooks(@PageableDefault(page = 0, size = 10)
-                                     @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
-                                         Pageable pageable,
-                                     @RequestParam(required = false, defaultValue = "") String searchTerm) {
+    public Slice<BookDTO> searchBooks(@PageableDefault(page = 0, size = 10)
+                                      @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
+                                          Pageable pageable,
+                                      @RequestParam(required = false, defaultValue = "") String searchTerm,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(required = false, defaultValue = "exact") String count,
+                                      @RequestParam(required = false) String fields) {
+        if (after != null) {
+            return searchTerm.isEmpty() ?
+                   bookService.getAllBooks(after, pageable) :
+                   bookService.searchBooks(searchTerm, after, pageable);
+        }
+        CountMode countMode = CountMode.of(count);
+        FieldSet fieldSet = FieldSet.of(fields, BookDTO.class);
         return searchTerm.isEmpty() ?
-               bookService.getAllBooks(pageable) :
-               bookService.searchBooks(searchTerm, pageable);
+               bookService.getAllBooks(pageable, countMode, fieldSet) :
+               bookService.searchBooks(searchTerm, pageable, countMode, fieldSet);
     }
 
 
     @GetMapping("/{id}")
-    public BookDTO getEmployeeById(@PathVariable("id") Integer id)
+    public ResponseEntity<BookDTO> getEmployeeById(@PathVariable("id") Integer id, WebRequest request)
+        throws ResourceNotFoundException {
+        return ETags.get(request, bookService.getBookVersion(id), () -> bookService.getBookById(id));
+    }
+
+    @GetMapping("/{id}/full")
+    public ResponseEntity<BookDetailDTO> getBookDetailById(@PathVariable("id") Integer id, WebRequest request)
         throws ResourceNotFoundException {
-        return bookService.getBookById(id);
+        return ETags.get(request, bookService.getBookDetailVersion(id), () -> bookService.getBookDetailById(id));
     }
 
     @PostMapping
@@ -69,9 +111,21 @@ public class BookController {
     }
 
     @PutMapping({"/{id}"})
-    @ResponseStatus(HttpStatus.OK)
-    public BookDTO updateBook(@PathVariable Integer id, @RequestBody BookDTO customerDTO) {
-        return bookService.updateBook(id, customerDTO);
+    public ResponseEntity<BookDTO> updateBook(@PathVariable Integer id, @RequestBody BookDTO customerDTO,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            customerDTO.setVersion(ETags.ifMatchVersion(ifMatch));
+        }
+        BookDTO updated = bookService.updateBook(id, customerDTO);
+        return ETags.ok(updated.getVersion(), updated);
+    }
+
+    @PatchMapping(value = {"/{id}"}, consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BookDTO> patchBook(@PathVariable Integer id, @RequestBody JsonNode patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        BookDTO patched = bookService.patchBook(id, patch, version);
+        return ETags.ok(patched.getVersion(), patched);
     }
 
     @DeleteMapping({"/{id}"})
@@ -80,13 +134,58 @@ public class BookController {
         bookService.deleteBookById(id);
     }
 
+    // -------- Batches
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<BookDTO>> createBooks(@RequestBody List<BookDTO> bookDtos) {
+        return BatchResponses.of(bookService.createBooks(bookDtos));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResult<BookDTO>> updateBooks(@RequestBody List<BookDTO> bookDtos) {
+        return BatchResponses.of(bookService.updateBooks(bookDtos));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResult<Integer>> deleteBooks(@RequestBody List<Integer> bookIds) {
+        return BatchResponses.of(bookService.deleteBooks(bookIds));
+    }
+
+    // -------- Book's Cover
+
+    @GetMapping({"/{id}/cover"})
+    public ResponseEntity<byte[]> getBookCover(@PathVariable Integer id,
+                                               @RequestParam(required = false) String v,
+                                               WebRequest request) {
+        return ImageResponses.serve(imageService, bookService.getBookCoverHash(id), v, request);
+    }
+
+    @PutMapping(value = {"/{id}/cover"}, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public BookDTO putBookCover(@PathVariable Integer id, @RequestParam("file") MultipartFile file)
+        throws IOException {
+        return bookService.setBookCover(id, ImageResponses.store(imageService, file));
+    }
+
+    @PutMapping(value = {"/{id}/cover"}, consumes = "image/*")
+    @ResponseStatus(HttpStatus.OK)
+    public BookDTO putBookCoverBytes(@PathVariable Integer id, HttpServletRequest request)
+        throws IOException {
+        return bookService.setBookCover(id, ImageResponses.store(imageService, request));
+    }
+
+    @DeleteMapping({"/{id}/cover"})
+    @ResponseStatus(HttpStatus.OK)
+    public BookDTO deleteBookCover(@PathVariable Integer id) {
+        return bookService.setBookCover(id, null);
+    }
+
     // -------- Book's Publisher
 
 
     @GetMapping({"/{id}/publisher"})
-    @ResponseStatus(HttpStatus.OK)
-    public PublisherDTO getBookPublisher(@PathVariable Integer id) {
-        return bookService.getBookPublisher(id);
+    public ResponseEntity<PublisherDTO> getBookPublisher(@PathVariable Integer id, WebRequest request) {
+        return ETags.get(request, bookService.getBookPublisherVersion(id), () -> bookService.getBookPublisher(id));
     }
 
     @PostMapping({"/{id}/publisher/{idPublisher}"})
@@ -105,9 +204,8 @@ public class BookController {
 
 
     @GetMapping({"/{id}/genres"})
-    @ResponseStatus(HttpStatus.OK)
-    public Slice<GenreDTO> getBookGenres(@PathVariable Integer id) {
-        return bookService.getBookGenres(id);
+    public ResponseEntity<Slice<GenreDTO>> getBookGenres(@PathVariable Integer id, WebRequest request) {
+        return ETags.get(request, bookService.getBookGenresVersion(id), () -> bookService.getBookGenres(id));
     }
 
     @PostMapping({"/{id}/genres/{idGenre}"})
@@ -128,12 +226,29 @@ public class BookController {
         return bookService.deleteBookGenre(id, idGenre);
     }
 
+    @PostMapping({"/{id}/genres"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<GenreDTO> postBookGenres(@PathVariable Integer id, @RequestBody List<Integer> genreIds) {
+        return bookService.addBookGenres(id, genreIds);
+    }
+
+    @PutMapping({"/{id}/genres"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<GenreDTO> putBookGenres(@PathVariable Integer id, @RequestBody List<Integer> genreIds) {
+        return bookService.setBookGenres(id, genreIds);
+    }
+
+    @DeleteMapping({"/{id}/genres"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<GenreDTO> deleteBookGenres(@PathVariable Integer id, @RequestBody List<Integer> genreIds) {
+        return bookService.deleteBookGenres(id, genreIds);
+    }
+
     // -------- Book's Authors
 
     @GetMapping({"/{id}/authors"})
-    @ResponseStatus(HttpStatus.OK)
-    public Slice<AuthorDTO> getBookAuthors(@PathVariable Integer id) {
-        return bookService.getBookAuthors(id);
+    public ResponseEntity<Slice<AuthorDTO>> getBookAuthors(@PathVariable Integer id, WebRequest request) {
+        return ETags.get(request, bookService.getBookAuthorsVersion(id), () -> bookService.getBookAuthors(id));
     }
 
     @PostMapping({"/{id}/authors/{idAuthor}"})
@@ -154,5 +269,23 @@ public class BookController {
         return bookService.deleteBookAuthor(id, idAuthor);
     }
 
+    @PostMapping({"/{id}/authors"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<AuthorDTO> postBookAuthors(@PathVariable Integer id, @RequestBody List<Integer> authorIds) {
+        return bookService.addBookAuthors(id, authorIds);
+    }
+
+    @PutMapping({"/{id}/authors"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<AuthorDTO> putBookAuthors(@PathVariable Integer id, @RequestBody List<Integer> authorIds) {
+        return bookService.setBookAuthors(id, authorIds);
+    }
+
+    @DeleteMapping({"/{id}/authors"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<AuthorDTO> deleteBookAuthors(@PathVariable Integer id, @RequestBody List<Integer> authorIds) {
+        return bookService.deleteBookAuthors(id, authorIds);
+    }
+
 
 }
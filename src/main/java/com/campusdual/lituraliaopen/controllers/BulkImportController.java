@@ -0,0 +1,34 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.bulk.CatalogBulkLoader;
+import com.campusdual.lituraliaopen.bulk.CatalogTable;
+import com.campusdual.lituraliaopen.bulk.ImportFormat;
+import com.campusdual.lituraliaopen.bulk.ImportReport;
+import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Bulk import of one catalog table per request; the body is streamed into the database, never buffered.
+ */
+@RestController
+@RequestMapping("/api/admin/import")
+public class BulkImportController {
+
+    @Autowired
+    CatalogBulkLoader catalogBulkLoader;
+
+    @PostMapping({"/{table}"})
+    @ResponseStatus(HttpStatus.OK)
+    public ImportReport importTable(@PathVariable String table, HttpServletRequest request) throws IOException {
+        return catalogBulkLoader.load(CatalogTable.of(table),
+                                      ImportFormat.ofContentType(request.getContentType()),
+                                      request.getInputStream());
+    }
+}
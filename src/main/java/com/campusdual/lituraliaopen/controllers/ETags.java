@@ -0,0 +1,58 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import java.util.function.Supplier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Strong ETags derived from the entity version column, so a conditional request is answered from a version lookup
+ * instead of loading and serializing the resource.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Object version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Answers a GET with 304 when {@code If-None-Match} still matches, otherwise loads the body and tags it.
+     */
+    static <T> ResponseEntity<T> get(WebRequest request, Object version, Supplier<T> body) {
+        String etag = of(version);
+        if (etag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+
+    static <T> ResponseEntity<T> ok(Object version, T body) {
+        String etag = of(version);
+        return etag == null ? ResponseEntity.ok(body) : ResponseEntity.ok().eTag(etag).body(body);
+    }
+
+    /**
+     * The entity version an {@code If-Match} header asks for; {@code null} for {@code *}, which matches any version.
+     */
+    static Long ifMatchVersion(String ifMatch) {
+        String value = ifMatch.trim();
+        if ("*".equals(value)) {
+            return null;
+        }
+        if (value.startsWith("W/")) {
+            throw new BadRequestException("If-Match requires a strong ETag");
+        }
+        try {
+            return Long.valueOf(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Malformed If-Match header");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.bulk.CatalogExporter;
+import com.campusdual.lituraliaopen.bulk.CatalogTable;
+import com.campusdual.lituraliaopen.bulk.ImportFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Full dumps of one catalog table per request, {@code ?format=ndjson} (the default) or {@code csv}. Rows are written
+ * to the response as they are read; with {@code Accept-Encoding: gzip} the server compresses on the fly.
+ */
+@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    @Autowired
+    CatalogExporter catalogExporter;
+
+    @GetMapping({"/{table}"})
+    public ResponseEntity<StreamingResponseBody> exportTable(@PathVariable String table,
+                                                             @RequestParam(required = false, defaultValue = "ndjson")
+                                                                 String format) {
+        CatalogTable catalogTable = CatalogTable.of(table);
+        ImportFormat importFormat = ImportFormat.ofName(format);
+        catalogExporter.check(catalogTable, importFormat);
+        ContentDisposition disposition = ContentDisposition.builder("attachment")
+                                                           .filename(catalogTable.getTableName()
+                                                                     + importFormat.getExtension())
+                                                           .build();
+        return ResponseEntity.ok()
+                             .contentType(MediaType.parseMediaType(importFormat.getContentType()))
+                             .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                             .body(out -> catalogExporter.export(catalogTable, importFormat, out));
+    }
+}
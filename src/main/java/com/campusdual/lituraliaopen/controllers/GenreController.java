@@ -1,30 +1,43 @@
 package com.campusdual.lituraliaopen.controllers;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.MergePatch;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.service.GenreService;
+import com.campusdual.lituraliaopen.replicas.ReadYourWrites;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {HttpHeaders.ETAG, ReadYourWrites.HEADER},
+             maxAge = 3600)
 @RestController
 @RequestMapping("/api/genres")
 public class GenreController {
@@ -34,27 +47,42 @@ public class GenreController {
 
 
     @GetMapping
-    public Page<GenreDTO> getAllGenres(@PageableDefault(page = 0, size = 10)
-                                       @SortDefault.SortDefaults({@SortDefault(sort = "genreId", direction = Direction.ASC)})
-                                           Pageable pageable) {
-        return genreService.getAllGenres(pageable);
+    public Slice<GenreDTO> getAllGenres(@PageableDefault(page = 0, size = 10)
+                                        @SortDefault.SortDefaults({@SortDefault(sort = "genreId", direction = Direction.ASC)})
+                                            Pageable pageable,
+                                        @RequestParam(required = false) String after,
+                                        @RequestParam(required = false, defaultValue = "exact") String count,
+                                        @RequestParam(required = false) String fields) {
+        return after == null ?
+               genreService.getAllGenres(pageable, CountMode.of(count), FieldSet.of(fields, GenreDTO.class)) :
+               genreService.getAllGenres(after, pageable);
     }
 
     @GetMapping("/search")
-    public Page<GenreDTO> searchGenres(@PageableDefault(page = 0, size = 10)
-                                       @SortDefault.SortDefaults({@SortDefault(sort = "genreId", direction = Direction.ASC)})
-                                           Pageable pageable,
-                                       @RequestParam(required = false, defaultValue = "") String searchTerm) {
+    public Slice<GenreDTO> searchGenres(@PageableDefault(page = 0, size = 10)
+                                        @SortDefault.SortDefaults({@SortDefault(sort = "genreId", direction = Direction.ASC)})
+                                            Pageable pageable,
+                                        @RequestParam(required = false, defaultValue = "") String searchTerm,
+                                        @RequestParam(required = false) String after,
+                                        @RequestParam(required = false, defaultValue = "exact") String count,
+                                        @RequestParam(required = false) String fields) {
+        if (after != null) {
+            return searchTerm.isEmpty() ?
+                   genreService.getAllGenres(after, pageable) :
+                   genreService.searchGenres(searchTerm, after, pageable);
+        }
+        CountMode countMode = CountMode.of(count);
+        FieldSet fieldSet = FieldSet.of(fields, GenreDTO.class);
         return searchTerm.isEmpty() ?
-               genreService.getAllGenres(pageable) :
-               genreService.searchGenres(searchTerm, pageable);
+               genreService.getAllGenres(pageable, countMode, fieldSet) :
+               genreService.searchGenres(searchTerm, pageable, countMode, fieldSet);
     }
 
 
     @GetMapping("/{id}")
-    public GenreDTO getEmployeeById(@PathVariable("id") Integer id)
+    public ResponseEntity<GenreDTO> getEmployeeById(@PathVariable("id") Integer id, WebRequest request)
         throws ResourceNotFoundException {
-        return genreService.getGenreById(id);
+        return ETags.get(request, genreService.getGenreVersion(id), () -> genreService.getGenreById(id));
     }
 
     @PostMapping
@@ -64,9 +92,21 @@ public class GenreController {
     }
 
     @PutMapping({"/{id}"})
-    @ResponseStatus(HttpStatus.OK)
-    public GenreDTO updateGenre(@PathVariable Integer id, @RequestBody GenreDTO customerDTO) {
-        return genreService.updateGenre(id, customerDTO);
+    public ResponseEntity<GenreDTO> updateGenre(@PathVariable Integer id, @RequestBody GenreDTO customerDTO,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            customerDTO.setVersion(ETags.ifMatchVersion(ifMatch));
+        }
+        GenreDTO updated = genreService.updateGenre(id, customerDTO);
+        return ETags.ok(updated.getVersion(), updated);
+    }
+
+    @PatchMapping(value = {"/{id}"}, consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<GenreDTO> patchGenre(@PathVariable Integer id, @RequestBody JsonNode patch,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        GenreDTO patched = genreService.patchGenre(id, patch, version);
+        return ETags.ok(patched.getVersion(), patched);
     }
 
     @DeleteMapping({"/{id}"})
@@ -75,13 +115,39 @@ public class GenreController {
         genreService.deleteGenreById(id);
     }
 
+    // -------- Batches
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<GenreDTO>> createGenres(@RequestBody List<GenreDTO> genreDtos) {
+        return BatchResponses.of(genreService.createGenres(genreDtos));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResult<GenreDTO>> updateGenres(@RequestBody List<GenreDTO> genreDtos) {
+        return BatchResponses.of(genreService.updateGenres(genreDtos));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResult<Integer>> deleteGenres(@RequestBody List<Integer> genreIds) {
+        return BatchResponses.of(genreService.deleteGenres(genreIds));
+    }
+
     // -------- Genre's Books
 
 
     @GetMapping({"/{id}/books"})
-    @ResponseStatus(HttpStatus.OK)
-    public Slice<BookDTO> getGenreBooks(@PathVariable Integer id) {
-        return genreService.getGenreBooks(id);
+    public ResponseEntity<Slice<BookDTO>> getGenreBooks(@PathVariable Integer id,
+                                                        @PageableDefault(page = 0, size = 10)
+                                                        @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
+                                                            Pageable pageable,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(required = false, defaultValue = "none") String count,
+                                                        WebRequest request) {
+        CountMode countMode = CountMode.of(count);
+        return ETags.get(request, genreService.getGenreBooksVersion(id),
+                         () -> after == null ?
+                               genreService.getGenreBooks(id, pageable, countMode) :
+                               genreService.getGenreBooks(id, after, pageable));
     }
 
     @PostMapping({"/{id}/books/{idBook}"})
@@ -101,4 +167,22 @@ public class GenreController {
     public Slice<BookDTO> deleteGenreBooks(@PathVariable Integer id, @PathVariable Integer idBook) {
         return genreService.deleteGenreBook(id, idBook);
     }
+
+    @PostMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> postGenreBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return genreService.addGenreBooks(id, bookIds);
+    }
+
+    @PutMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> putGenreBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return genreService.setGenreBooks(id, bookIds);
+    }
+
+    @DeleteMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> deleteGenreBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return genreService.deleteGenreBooks(id, bookIds);
+    }
 }
@@ -0,0 +1,26 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.service.ImageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    @Autowired
+    ImageService imageService;
+
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> getImage(@PathVariable String hash, WebRequest request) {
+        // the path is the content hash, so the representation can never change
+        return ImageResponses.serve(imageService, hash, hash, request);
+    }
+}
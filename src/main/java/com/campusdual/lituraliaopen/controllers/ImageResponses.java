@@ -0,0 +1,57 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.service.ImageService;
+import com.campusdual.lituraliaopen.domain.Image;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Shared plumbing for the binary image endpoints of books, authors and publishers.
+ */
+final class ImageResponses {
+
+    private static final CacheControl FOREVER = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+
+    private ImageResponses() {
+    }
+
+    /**
+     * Serves a stored image. Requests carrying the current hash as {@code v} get a one year public cache lifetime,
+     * anything else must revalidate, which is answered with a 304 from the hash alone.
+     */
+    static ResponseEntity<byte[]> serve(ImageService imageService, String imageHash, String version,
+                                        WebRequest request) {
+        CacheControl cacheControl = imageHash.equals(version) ? FOREVER : CacheControl.noCache();
+        if (request.checkNotModified(imageHash)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                 .cacheControl(cacheControl)
+                                 .eTag(imageHash)
+                                 .build();
+        }
+        Image image = imageService.getImage(imageHash);
+        return ResponseEntity.ok()
+                             .cacheControl(cacheControl)
+                             .eTag(imageHash)
+                             .contentType(MediaType.parseMediaType(image.getContentType()))
+                             .contentLength(image.getContent().length)
+                             .body(image.getContent());
+    }
+
+    static String store(ImageService imageService, MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return imageService.storeImage(content, file.getContentType());
+        }
+    }
+
+    static String store(ImageService imageService, HttpServletRequest request) throws IOException {
+        return imageService.storeImage(request.getInputStream(), request.getContentType());
+    }
+}
@@ -1,30 +1,47 @@
 package com.campusdual.lituraliaopen.controllers;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.MergePatch;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
+import com.campusdual.lituraliaopen.api.service.ImageService;
 import com.campusdual.lituraliaopen.api.service.PublisherService;
+import com.campusdual.lituraliaopen.replicas.ReadYourWrites;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.web.SortDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
-@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", allowedHeaders = "*", exposedHeaders = {HttpHeaders.ETAG, ReadYourWrites.HEADER},
+             maxAge = 3600)
 @RestController
 @RequestMapping("/api/publishers")
 public class PublisherController {
@@ -32,28 +49,47 @@ public class PublisherController {
     @Autowired
     PublisherService publisherService;
 
+    @Autowired
+    ImageService imageService;
+
 
     @GetMapping
-    public Page<PublisherDTO> getAllPublishers(@PageableDefault(page = 0, size = 10)
-                                               @SortDefault.SortDefaults({@SortDefault(sort = "publisherId", direction = Direction.ASC)})
-                                                   Pageable pageable) {
-        return publisherService.getAllPublishers(pageable);
+    public Slice<PublisherDTO> getAllPublishers(@PageableDefault(page = 0, size = 10)
+                                                @SortDefault.SortDefaults({@SortDefault(sort = "publisherId", direction = Direction.ASC)})
+                                                    Pageable pageable,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false, defaultValue = "exact") String count,
+                                                @RequestParam(required = false) String fields) {
+        return after == null ?
+               publisherService.getAllPublishers(pageable, CountMode.of(count),
+                                                 FieldSet.of(fields, PublisherDTO.class)) :
+               publisherService.getAllPublishers(after, pageable);
     }
 
     @GetMapping("/search")
-    public Page<PublisherDTO> searchPublishers(@PageableDefault(page = 0, size = 10)
-                                               @SortDefault.SortDefaults({@SortDefault(sort = "publisherId", direction = Direction.ASC)})
-                                                   Pageable pageable,
-                                               @RequestParam(required = false, defaultValue = "") String searchTerm) {
+    public Slice<PublisherDTO> searchPublishers(@PageableDefault(page = 0, size = 10)
+                                                @SortDefault.SortDefaults({@SortDefault(sort = "publisherId", direction = Direction.ASC)})
+                                                    Pageable pageable,
+                                                @RequestParam(required = false, defaultValue = "") String searchTerm,
+                                                @RequestParam(required = false) String after,
+                                                @RequestParam(required = false, defaultValue = "exact") String count,
+                                                @RequestParam(required = false) String fields) {
+        if (after != null) {
+            return searchTerm.isEmpty() ?
+                   publisherService.getAllPublishers(after, pageable) :
+                   publisherService.searchPublishers(searchTerm, after, pageable);
+        }
+        CountMode countMode = CountMode.of(count);
+        FieldSet fieldSet = FieldSet.of(fields, PublisherDTO.class);
         return searchTerm.isEmpty() ?
-               publisherService.getAllPublishers(pageable) :
-               publisherService.searchPublishers(searchTerm, pageable);
+               publisherService.getAllPublishers(pageable, countMode, fieldSet) :
+               publisherService.searchPublishers(searchTerm, pageable, countMode, fieldSet);
     }
 
     @GetMapping("/{id}")
-    public PublisherDTO getEmployeeById(@PathVariable("id") Integer id)
+    public ResponseEntity<PublisherDTO> getEmployeeById(@PathVariable("id") Integer id, WebRequest request)
         throws ResourceNotFoundException {
-        return publisherService.getPublisherById(id);
+        return ETags.get(request, publisherService.getPublisherVersion(id), () -> publisherService.getPublisherById(id));
     }
 
     @PostMapping
@@ -63,9 +99,21 @@ public class PublisherController {
     }
 
     @PutMapping({"/{id}"})
-    @ResponseStatus(HttpStatus.OK)
-    public PublisherDTO updatePublisher(@PathVariable Integer id, @RequestBody PublisherDTO customerDTO) {
-        return publisherService.updatePublisher(id, customerDTO);
+    public ResponseEntity<PublisherDTO> updatePublisher(@PathVariable Integer id, @RequestBody PublisherDTO customerDTO,
+                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (ifMatch != null) {
+            customerDTO.setVersion(ETags.ifMatchVersion(ifMatch));
+        }
+        PublisherDTO updated = publisherService.updatePublisher(id, customerDTO);
+        return ETags.ok(updated.getVersion(), updated);
+    }
+
+    @PatchMapping(value = {"/{id}"}, consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<PublisherDTO> patchPublisher(@PathVariable Integer id, @RequestBody JsonNode patch,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long version = ifMatch == null ? null : ETags.ifMatchVersion(ifMatch);
+        PublisherDTO patched = publisherService.patchPublisher(id, patch, version);
+        return ETags.ok(patched.getVersion(), patched);
     }
 
     @DeleteMapping({"/{id}"})
@@ -74,13 +122,68 @@ public class PublisherController {
         publisherService.deletePublisherById(id);
     }
 
+    // -------- Batches
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult<PublisherDTO>> createPublishers(@RequestBody List<PublisherDTO> publisherDtos) {
+        return BatchResponses.of(publisherService.createPublishers(publisherDtos));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<BatchResult<PublisherDTO>> updatePublishers(@RequestBody List<PublisherDTO> publisherDtos) {
+        return BatchResponses.of(publisherService.updatePublishers(publisherDtos));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<BatchResult<Integer>> deletePublishers(@RequestBody List<Integer> publisherIds) {
+        return BatchResponses.of(publisherService.deletePublishers(publisherIds));
+    }
+
+    // -------- Publisher's Logo
+
+    @GetMapping({"/{id}/logo"})
+    public ResponseEntity<byte[]> getPublisherLogo(@PathVariable Integer id,
+                                                   @RequestParam(required = false) String v,
+                                                   WebRequest request) {
+        return ImageResponses.serve(imageService, publisherService.getPublisherLogoHash(id), v, request);
+    }
+
+    @PutMapping(value = {"/{id}/logo"}, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public PublisherDTO putPublisherLogo(@PathVariable Integer id, @RequestParam("file") MultipartFile file)
+        throws IOException {
+        return publisherService.setPublisherLogo(id, ImageResponses.store(imageService, file));
+    }
+
+    @PutMapping(value = {"/{id}/logo"}, consumes = "image/*")
+    @ResponseStatus(HttpStatus.OK)
+    public PublisherDTO putPublisherLogoBytes(@PathVariable Integer id, HttpServletRequest request)
+        throws IOException {
+        return publisherService.setPublisherLogo(id, ImageResponses.store(imageService, request));
+    }
+
+    @DeleteMapping({"/{id}/logo"})
+    @ResponseStatus(HttpStatus.OK)
+    public PublisherDTO deletePublisherLogo(@PathVariable Integer id) {
+        return publisherService.setPublisherLogo(id, null);
+    }
+
     // -------- Publisher's Books
 
 
     @GetMapping({"/{id}/books"})
-    @ResponseStatus(HttpStatus.OK)
-    public Slice<BookDTO> getPublisherBooks(@PathVariable Integer id) {
-        return publisherService.getPublisherBooks(id);
+    public ResponseEntity<Slice<BookDTO>> getPublisherBooks(@PathVariable Integer id,
+                                                            @PageableDefault(page = 0, size = 10)
+                                                            @SortDefault.SortDefaults({@SortDefault(sort = "bookId", direction = Direction.ASC)})
+                                                                Pageable pageable,
+                                                            @RequestParam(required = false) String after,
+                                                            @RequestParam(required = false, defaultValue = "none") String count,
+                                                            WebRequest request) {
+        CountMode countMode = CountMode.of(count);
+        return ETags.get(request, publisherService.getPublisherBooksVersion(id),
+                         () -> after == null ?
+                               publisherService.getPublisherBooks(id, pageable, countMode) :
+                               publisherService.getPublisherBooks(id, after, pageable));
     }
 
     @PostMapping({"/{id}/books/{idBook}"})
@@ -95,4 +198,22 @@ public class PublisherController {
         return publisherService.setPublisherBook(id, idBook);
     }
 
+    @PostMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> postPublisherBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return publisherService.addPublisherBooks(id, bookIds);
+    }
+
+    @PutMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> putPublisherBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return publisherService.setPublisherBooks(id, bookIds);
+    }
+
+    @DeleteMapping({"/{id}/books"})
+    @ResponseStatus(HttpStatus.OK)
+    public Slice<BookDTO> deletePublisherBooks(@PathVariable Integer id, @RequestBody List<Integer> bookIds) {
+        return publisherService.deletePublisherBooks(id, bookIds);
+    }
+
 }
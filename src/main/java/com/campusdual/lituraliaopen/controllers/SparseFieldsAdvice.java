@@ -0,0 +1,103 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Leaves out of DTO responses the fields that {@code ?fields=} does not ask for, on every endpoint returning DTOs, a
+ * slice or a list of them. Listings also read fewer columns, see {@link FieldSet}; the other endpoints, mostly served
+ * from the second level cache, only write less.
+ */
+@RestControllerAdvice
+public class SparseFieldsAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String DTO_PACKAGE = BookDTO.class.getPackage().getName();
+
+    private final ObjectMapper objectMapper;
+
+    public SparseFieldsAdvice(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType)
+               && dtoType(bodyType(returnType)) != null;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || !(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+        ResolvableType bodyType = bodyType(returnType);
+        FieldSet fields = FieldSet.parse(((ServletServerHttpRequest) request).getServletRequest()
+                                                                               .getParameter(FieldSet.PARAM));
+        if (fields.isAll()) {
+            return body;
+        }
+        fields.check(dtoType(bodyType));
+        JsonNode tree = objectMapper.valueToTree(body);
+        if (Slice.class.isAssignableFrom(bodyType.toClass())) {
+            tree.path("content").forEach(dto -> retain(dto, fields));
+        } else if (Collection.class.isAssignableFrom(bodyType.toClass())) {
+            tree.forEach(dto -> retain(dto, fields));
+        } else {
+            retain(tree, fields);
+        }
+        return tree;
+    }
+
+    // -------- Internals
+
+    private static ResolvableType bodyType(MethodParameter returnType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        return HttpEntity.class.isAssignableFrom(type.toClass()) ? type.getGeneric(0) : type;
+    }
+
+    /**
+     * The DTO class of a DTO, slice or collection type, null for anything else.
+     */
+    private static Class<?> dtoType(ResolvableType bodyType) {
+        Class<?> raw = bodyType.toClass();
+        Class<?> element = Slice.class.isAssignableFrom(raw) || Collection.class.isAssignableFrom(raw) ?
+                           bodyType.getGeneric(0).resolve() :
+                           raw;
+        return element != null && element.getPackage() != null && element.getPackage().getName().equals(DTO_PACKAGE) ?
+               element :
+               null;
+    }
+
+    private static void retain(JsonNode dto, FieldSet fields) {
+        if (!dto.isObject()) {
+            return;
+        }
+        List<String> dropped = new ArrayList<>();
+        dto.fieldNames().forEachRemaining(name -> {
+            if (!fields.contains(name)) {
+                dropped.add(name);
+            }
+        });
+        ((ObjectNode) dto).remove(dropped);
+    }
+}
@@ -0,0 +1,56 @@
+package com.campusdual.lituraliaopen.controllers;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.mapper.dtos.SuggestionDTO;
+import com.campusdual.lituraliaopen.api.service.SuggestService;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Typeahead over book titles and author, genre and publisher names: {@code ?q=} with, optionally,
+ * {@code types=book,author,genre,publisher} and {@code limit}.
+ */
+@CrossOrigin(origins = "*", allowedHeaders = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestController {
+
+    static final int MAX_LIMIT = 50;
+
+    @Autowired
+    SuggestService suggestService;
+
+    @GetMapping
+    public List<SuggestionDTO> suggest(@RequestParam(defaultValue = "") String q,
+                                       @RequestParam(required = false) List<String> types,
+                                       @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Invalid limit " + limit);
+        }
+        return suggestService.suggest(q, types(types), Math.min(limit, MAX_LIMIT));
+    }
+
+    static Set<Type> types(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return EnumSet.allOf(Type.class);
+        }
+        Set<Type> types = EnumSet.noneOf(Type.class);
+        for (String name : names) {
+            try {
+                types.add(Type.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown suggestion type: " + name);
+            }
+        }
+        return types;
+    }
+}
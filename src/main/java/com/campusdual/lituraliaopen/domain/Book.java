@@ -1,8 +1,10 @@
 package com.campusdual.lituraliaopen.domain;
 
+import com.campusdual.lituraliaopen.cache.CacheConfig;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -14,25 +16,38 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
 @Entity(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.BOOKS)
+@DynamicUpdate
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     @Column(name = "book_id")
     private Integer bookId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     private String isbn;
 
     private String title;
@@ -42,7 +57,8 @@ public class Book {
     @Column(name = "publish_date", columnDefinition = "DATE")
     private LocalDate publishDate;
 
-    private String cover;
+    @Column(name = "cover_hash")
+    private String coverHash;
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
@@ -52,6 +68,7 @@ public class Book {
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.BOOK_GENRES)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "book_genres",
@@ -62,6 +79,7 @@ public class Book {
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.BOOK_AUTHORS)
     @ManyToMany(fetch = FetchType.LAZY, cascade =
         {
             CascadeType.DETACH,
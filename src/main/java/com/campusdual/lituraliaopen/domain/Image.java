@@ -0,0 +1,36 @@
+package com.campusdual.lituraliaopen.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Content addressed image: the id is the hex SHA-256 of the bytes, so identical covers, portraits, logos and
+ * avatars are stored only once and never change once written.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+@Entity(name = "images")
+public class Image {
+
+    @Id
+    @Column(name = "image_hash")
+    private String imageHash;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "image_size")
+    private Long imageSize;
+
+    @ToString.Exclude
+    @Column(name = "content", columnDefinition = "BYTEA")
+    private byte[] content;
+}
@@ -1,8 +1,10 @@
 package com.campusdual.lituraliaopen.domain;
 
 
+import com.campusdual.lituraliaopen.cache.CacheConfig;
 import java.util.HashSet;
 import java.util.Set;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -10,31 +12,44 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
 @Entity(name = "publishers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.PUBLISHERS)
+@DynamicUpdate
 public class Publisher {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "publishers_seq")
+    @SequenceGenerator(name = "publishers_seq", sequenceName = "publishers_seq", allocationSize = 50)
     @Column(name = "publisher_id")
     private Integer publisherId;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @Column(name = "publisher_name")
     private String publisherName;
     @Column(name = "publisher_desc")
     private String publisherDesc;
-    @Column(name = "publisher_logo")
-    private String publisherLogo;
+    @Column(name = "publisher_logo_hash")
+    private String publisherLogoHash;
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
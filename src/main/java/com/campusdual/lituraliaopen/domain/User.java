@@ -30,7 +30,8 @@ public class User {
     @Column(name = "birthdate", columnDefinition = "DATE")
     private LocalDate birthdate;
 
-    private String avatar;
+    @Column(name = "avatar_hash")
+    private String avatarHash;
 
     @Column(name = "userblocked", columnDefinition = "DATE")
     private LocalDateTime userblocked;
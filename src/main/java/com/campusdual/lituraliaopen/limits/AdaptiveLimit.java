@@ -0,0 +1,126 @@
+package com.campusdual.lituraliaopen.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrency limit driven by latency, after the gradient algorithm of Netflix's concurrency-limits.
+ * <p>
+ * Every {@link #WINDOW} requests, the mean latency of the window is compared with a long-term baseline: while it stays
+ * within {@code tolerance} times the baseline the target is the limit plus its square root, the queue it allows;
+ * beyond that the target shrinks in proportion, to half the limit at most. The limit moves a fifth of the way to the
+ * target per window, so one slow window costs it under 10%, about 7% at a limit of 50, and a lasting slowdown takes
+ * several windows to halve it. The baseline follows the windows slowly, so a lasting change of latency becomes the
+ * new normal instead of pinning the limit at either end.
+ */
+public class AdaptiveLimit {
+
+    static final int WINDOW = 20;
+
+    /**
+     * Windows the long-term baseline averages over, about 600 requests.
+     */
+    private static final int BASELINE_WINDOWS = 30;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile double limit;
+
+    // guarded by this
+    private double baselineNanos;
+    private long windowNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit  = Math.max(1, minLimit);
+        this.maxLimit  = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1, tolerance);
+        this.limit     = clamp(initialLimit);
+    }
+
+    /**
+     * Takes a slot if the limit allows one more request in flight; a true return must be followed by a release.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back, with the latency of the request that held it.
+     */
+    public void release(long latencyNanos) {
+        sample(latencyNanos, inFlight.getAndDecrement());
+    }
+
+    /**
+     * Gives the slot back without a latency sample, for requests whose time says nothing about the load.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // -------- Internals
+
+    synchronized void sample(long latencyNanos, int inFlightBefore) {
+        windowNanos += latencyNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+        if (windowSamples < WINDOW) {
+            return;
+        }
+        double meanNanos = Math.max(1, (double) windowNanos / windowSamples);
+        int maxInFlight = windowMaxInFlight;
+        windowNanos       = 0;
+        windowSamples     = 0;
+        windowMaxInFlight = 0;
+        update(meanNanos, maxInFlight);
+    }
+
+    private void update(double meanNanos, int maxInFlight) {
+        baselineNanos = baselineNanos == 0 ?
+                        meanNanos :
+                        baselineNanos + (meanNanos - baselineNanos) / BASELINE_WINDOWS;
+        if (baselineNanos / meanNanos > 2) {
+            // latency fell well below the baseline: catch up faster than the average would
+            baselineNanos *= 0.95;
+        }
+        if (maxInFlight < limit / 2) {
+            // the traffic did not come near the limit, so the latency says nothing about raising it
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / meanNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
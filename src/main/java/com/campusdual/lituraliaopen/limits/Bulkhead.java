@@ -0,0 +1,44 @@
+package com.campusdual.lituraliaopen.limits;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * The classes of API requests that get a concurrency limit of their own, so that a burst of one cannot take the
+ * capacity of the others: slow searches do not shed cheap reads, nor reads the writes.
+ */
+public enum Bulkhead {
+
+    /**
+     * Lookups by id, listings and the typeahead, mostly served from indexes and the second-level cache.
+     */
+    READ,
+
+    /**
+     * {@code GET .../search}: text matching over whole tables.
+     */
+    SEARCH,
+
+    /**
+     * Everything that is not a {@code GET} or {@code HEAD}.
+     */
+    WRITE;
+
+    public static Bulkhead of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        return request.getRequestURI().contains("/search") ? SEARCH : READ;
+    }
+
+    LimitsProperties.Limit limit(LimitsProperties properties) {
+        switch (this) {
+            case SEARCH:
+                return properties.getSearch();
+            case WRITE:
+                return properties.getWrite();
+            default:
+                return properties.getRead();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.campusdual.lituraliaopen.limits;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Locale;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Load shedding in front of {@code /api/*}, unless {@code lituralia.limits.enabled=false}; see
+ * {@link ConcurrencyLimitFilter}. It runs before every other filter, security included, so a shed request costs
+ * next to nothing.
+ * <p>
+ * Each bulkhead is metered as {@code lituralia.limits.limit}, {@code lituralia.limits.in-flight} and
+ * {@code lituralia.limits.rejected}, tagged {@code bulkhead=read|search|write}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lituralia.limits.enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(LimitsProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(LimitsProperties properties) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+            new FilterRegistrationBean<>(new ConcurrencyLimitFilter(properties));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter) {
+        return registry -> concurrencyLimitFilter.getFilter().getLimits().forEach((bulkhead, limit) -> {
+            String tag = bulkhead.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("lituralia.limits.limit", limit, AdaptiveLimit::getLimit)
+                 .tag("bulkhead", tag)
+                 .register(registry);
+            Gauge.builder("lituralia.limits.in-flight", limit, AdaptiveLimit::getInFlight)
+                 .tag("bulkhead", tag)
+                 .register(registry);
+            FunctionCounter.builder("lituralia.limits.rejected", limit, AdaptiveLimit::getRejected)
+                           .tag("bulkhead", tag)
+                           .register(registry);
+        });
+    }
+}
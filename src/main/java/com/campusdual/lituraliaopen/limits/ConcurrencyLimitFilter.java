@@ -0,0 +1,85 @@
+package com.campusdual.lituraliaopen.limits;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Admits an API request only while its {@link Bulkhead} is under its {@link AdaptiveLimit}, and answers the others
+ * straight away with a {@code 503} and a {@code Retry-After}, rather than letting them queue on the connection pool
+ * until every request times out. Preflight requests and the excluded paths are let through.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String OVER_CAPACITY = "Server over capacity, retry later";
+
+    private final Map<Bulkhead, AdaptiveLimit> limits = new EnumMap<>(Bulkhead.class);
+    private final List<String> excluded;
+    private final String retryAfterSeconds;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public ConcurrencyLimitFilter(LimitsProperties properties) {
+        for (Bulkhead bulkhead : Bulkhead.values()) {
+            limits.put(bulkhead, bulkhead.limit(properties).newLimit());
+        }
+        this.excluded          = properties.getExclude();
+        this.retryAfterSeconds = String.valueOf(Math.max(1, seconds(properties.getRetryAfter())));
+    }
+
+    public Map<Bulkhead, AdaptiveLimit> getLimits() {
+        return Collections.unmodifiableMap(limits);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if ("OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return excluded.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        AdaptiveLimit limit = limits.get(Bulkhead.of(request));
+        if (!limit.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(OVER_CAPACITY);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // the response goes on on another thread, the time so far is not its latency
+                limit.release();
+            } else {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    // -------- Internals
+
+    private static long seconds(Duration duration) {
+        return duration.getSeconds() + (duration.getNano() > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,57 @@
+package com.campusdual.lituraliaopen.limits;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Concurrency limits of the API, {@code lituralia.limits.*}, one {@link Bulkhead} each for reads, searches and
+ * writes.
+ */
+@Data
+@ConfigurationProperties(prefix = "lituralia.limits")
+public class LimitsProperties {
+
+    /**
+     * What a shed request is told to wait before retrying, in whole seconds.
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Paths left out, like long streaming exports and imports whose time would skew the latency baseline.
+     */
+    private List<String> exclude = new ArrayList<>(Arrays.asList("/api/export/**", "/api/admin/**"));
+
+    private Limit read = new Limit(50, 10, 200);
+    private Limit search = new Limit(10, 2, 50);
+    private Limit write = new Limit(20, 5, 100);
+
+    @Data
+    public static class Limit {
+
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        /**
+         * How many times the baseline latency is still taken as healthy.
+         */
+        private double tolerance = 1.5;
+
+        public Limit() {
+        }
+
+        Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit     = minLimit;
+            this.maxLimit     = maxLimit;
+        }
+
+        AdaptiveLimit newLimit() {
+            return new AdaptiveLimit(initialLimit, minLimit, maxLimit, tolerance);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.campusdual.lituraliaopen.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times every service and repository call. Both timers are tagged with the class, the method and the exception thrown
+ * if any, never with the request: every series carries a histogram, and one per endpoint and method would be too
+ * many. Endpoint latency itself is Spring Boot's {@code http.server.requests}.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    public static final String SERVICE_TIMER = "lituralia.service.calls";
+    public static final String REPOSITORY_TIMER = "lituralia.repository.calls";
+
+    static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("bean(*ServiceImpl)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint.getTarget().getClass().getSimpleName(), joinPoint);
+    }
+
+    @Around("bean(*Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, repositoryName(joinPoint.getThis()), joinPoint);
+    }
+
+    private Object time(String timer, String className, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(timer, Tags.of("class", className,
+                                                           "method", joinPoint.getSignature().getName(),
+                                                           "exception", exception)));
+        }
+    }
+
+    /**
+     * The repository interface behind a Spring Data proxy, {@code BookRepository} rather than the shared base class,
+     * or the class of a plain repository bean.
+     */
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> {
+            for (Class<?> candidate : ClassUtils.getAllInterfaces(proxy)) {
+                if (candidate.getName().startsWith("com.campusdual.lituraliaopen.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return AopProxyUtils.ultimateTargetClass(proxy).getSimpleName();
+        });
+    }
+}
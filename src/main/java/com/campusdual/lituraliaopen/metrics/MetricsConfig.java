@@ -0,0 +1,27 @@
+package com.campusdual.lituraliaopen.metrics;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jpa.HibernateQueryMetrics;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters Spring Boot does not register by itself. Hibernate session statistics ({@code hibernate.*}: statements,
+ * entity loads, collection fetches, second-level cache hits) and Hikari pool meters ({@code hikaricp.*}) are
+ * auto-configured once {@code hibernate.generate_statistics} is on.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Per HQL query execution counts and times, {@code hibernate.query.executions} tagged with the query.
+     */
+    @Bean
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory",
+                                         Tags.empty());
+    }
+}
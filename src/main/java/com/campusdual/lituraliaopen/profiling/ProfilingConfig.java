@@ -0,0 +1,53 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * JDBC statement profiling, on unless {@code lituralia.profiling.enabled=false}: the {@code dataSource} bean, the one
+ * JPA, Flyway and the bulk loader use, is wrapped in a {@link ProfilingDataSource}; every request is checked against
+ * the {@code lituralia.profiling.budget.*} by the {@link QueryBudgetFilter}; and the fingerprints are served on
+ * {@code /actuator/queries}.
+ * <p>
+ * Tests can use the {@link QueryProfiler} bean to count the statements of a block, see {@code QueryAssertions}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lituralia.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingConfig {
+
+    @Bean
+    public static QueryProfiler queryProfiler(Environment environment) {
+        return new QueryProfiler(environment.getProperty("lituralia.profiling.max-fingerprints", Integer.class, 1000));
+    }
+
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(QueryProfiler queryProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && beanName.equals("dataSource") ?
+                       new ProfilingDataSource((DataSource) bean, queryProfiler) :
+                       bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryBudgetFilter queryBudgetFilter(QueryProfiler queryProfiler,
+                                               @Value("${lituralia.profiling.budget.statements:20}") int statements,
+                                               @Value("${lituralia.profiling.budget.time:500ms}") Duration time,
+                                               @Value("${lituralia.profiling.n-plus-one:10}") int nPlusOne) {
+        return new QueryBudgetFilter(queryProfiler, statements, time, nPlusOne);
+    }
+
+    @Bean
+    public QueryFingerprintsEndpoint queryFingerprintsEndpoint(QueryProfiler queryProfiler) {
+        return new QueryFingerprintsEndpoint(queryProfiler);
+    }
+}
@@ -0,0 +1,93 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Times every {@code execute*} call on the statements of its connections and reports it, with the SQL, to the
+ * {@link QueryProfiler}. A JDBC batch counts as one statement, as it is one round trip.
+ * <p>
+ * Everything else, {@code unwrap} included, goes straight to the driver objects, so COPY through the PostgreSQL
+ * connection keeps working.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private final QueryProfiler profiler;
+
+    public ProfilingDataSource(DataSource targetDataSource, QueryProfiler profiler) {
+        super(targetDataSource);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return profiling(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return profiling(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Closes the target pool, which the wrapped {@code dataSource} bean would otherwise no longer do on shutdown.
+     */
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable) {
+            ((AutoCloseable) obtainTargetDataSource()).close();
+        }
+    }
+
+    // -------- Internals
+
+    private Connection profiling(Connection connection) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return profiling((Statement) result, method.getReturnType(), sql);
+            }
+            return result;
+        };
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                                                   handler);
+    }
+
+    private Object profiling(Statement statement, Class<?> type, String preparedSql) {
+        String[] lastBatched = new String[1];
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1) {
+                lastBatched[0] = (String) args[0];
+            }
+            if (!name.startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] :
+                         preparedSql != null ? preparedSql :
+                         lastBatched[0];
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                profiler.executed(sql, System.nanoTime() - start);
+            }
+        };
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
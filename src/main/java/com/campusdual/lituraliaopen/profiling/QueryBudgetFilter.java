@@ -0,0 +1,74 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Records the statements of every request and logs, as warnings, the requests over the statement or time budget and
+ * those running one fingerprint {@code n-plus-one} times or more.
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    private static final int REPORTED_FINGERPRINTS = 3;
+
+    private final QueryProfiler profiler;
+    private final int maxStatements;
+    private final Duration maxTime;
+    private final int nPlusOne;
+
+    public QueryBudgetFilter(QueryProfiler profiler, int maxStatements, Duration maxTime, int nPlusOne) {
+        this.profiler      = profiler;
+        this.maxStatements = maxStatements;
+        this.maxTime       = maxTime;
+        this.nPlusOne      = nPlusOne;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        QueryLog queries = profiler.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            profiler.stop(queries);
+            report(request, queries);
+        }
+    }
+
+    // -------- Internals
+
+    private void report(HttpServletRequest request, QueryLog queries) {
+        if (!log.isWarnEnabled() || queries.getStatements() == 0) {
+            return;
+        }
+        if (queries.getStatements() > maxStatements || queries.getTime().compareTo(maxTime) > 0) {
+            log.warn("{} {} ran {}, over the budget of {} statements in {} ms; most run: {}", request.getMethod(),
+                     request.getRequestURI(), queries, maxStatements, maxTime.toMillis(),
+                     describe(queries.repeated(1)));
+        }
+        Map<String, Integer> repeated = queries.repeated(nPlusOne);
+        if (!repeated.isEmpty()) {
+            log.warn("{} {} looks like N+1, the same query run again and again: {}", request.getMethod(),
+                     request.getRequestURI(), describe(repeated));
+        }
+    }
+
+    private static String describe(Map<String, Integer> fingerprints) {
+        return fingerprints.entrySet()
+                           .stream()
+                           .limit(REPORTED_FINGERPRINTS)
+                           .map(entry -> entry.getValue() + " x " + entry.getKey())
+                           .collect(Collectors.joining(" | "));
+    }
+}
@@ -0,0 +1,34 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import com.campusdual.lituraliaopen.profiling.QueryProfiler.Fingerprint;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@code /actuator/queries}: the query fingerprints that took the most database time since startup, with how often
+ * they ran; {@code ?limit=} defaults to 20. {@code DELETE} starts counting again.
+ */
+@Endpoint(id = "queries")
+public class QueryFingerprintsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final QueryProfiler profiler;
+
+    public QueryFingerprintsEndpoint(QueryProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<Fingerprint> top(@Nullable Integer limit) {
+        return profiler.top(limit == null || limit <= 0 ? DEFAULT_LIMIT : limit);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
@@ -0,0 +1,62 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The statements one thread ran between {@link QueryProfiler#start()} and {@link QueryProfiler#stop(QueryLog)}: how
+ * many, for how long, and how many times each query fingerprint.
+ */
+public class QueryLog {
+
+    final QueryLog parent;
+    private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+    private int statements;
+    private long nanos;
+
+    QueryLog(QueryLog parent) {
+        this.parent = parent;
+    }
+
+    void executed(String fingerprint, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        fingerprints.merge(fingerprint, 1, Integer::sum);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public Duration getTime() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Times each fingerprint ran, in order of first execution.
+     */
+    public Map<String, Integer> getFingerprints() {
+        return Collections.unmodifiableMap(fingerprints);
+    }
+
+    /**
+     * The fingerprints that ran at least {@code times} times, most repeated first: one query per row of an earlier
+     * one, the N+1 shape.
+     */
+    public Map<String, Integer> repeated(int times) {
+        return fingerprints.entrySet()
+                           .stream()
+                           .filter(entry -> entry.getValue() >= times)
+                           .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                           .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a,
+                                                     LinkedHashMap::new));
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements in " + getTime().toMillis() + " ms";
+    }
+}
@@ -0,0 +1,143 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Collects what {@link ProfilingDataSource} sees: per thread into the current {@link QueryLog}, if one was started,
+ * and globally per query fingerprint, for the {@code queries} actuator endpoint.
+ * <p>
+ * A fingerprint is the SQL with its literals and the length of its {@code IN} lists taken out, so that the queries
+ * of an N+1 loop, or of batch fetches of different sizes, share one.
+ */
+public class QueryProfiler {
+
+    static final String OTHER = "(other)";
+
+    private static final Pattern STRINGS = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBERS = Pattern.compile("(?<![\\w.$])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LISTS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ThreadLocal<QueryLog> current = new ThreadLocal<>();
+    private final ConcurrentMap<String, String> fingerprintsBySql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final int maxFingerprints;
+
+    public QueryProfiler(int maxFingerprints) {
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    /**
+     * Starts recording the statements of this thread into a new log, nested in the current one if any.
+     */
+    public QueryLog start() {
+        QueryLog log = new QueryLog(current.get());
+        current.set(log);
+        return log;
+    }
+
+    /**
+     * Stops recording into {@code log}, going back to the log it was nested in.
+     */
+    public void stop(QueryLog log) {
+        if (log.parent == null) {
+            current.remove();
+        } else {
+            current.set(log.parent);
+        }
+    }
+
+    /**
+     * The fingerprints that took the most time altogether, since startup or the last reset.
+     */
+    public List<Fingerprint> top(int limit) {
+        return fingerprints.values()
+                           .stream()
+                           .sorted(Comparator.comparingLong(Fingerprint::getTotalNanos).reversed())
+                           .limit(limit)
+                           .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        fingerprints.clear();
+    }
+
+    static String fingerprint(String sql) {
+        String fingerprint = STRINGS.matcher(sql).replaceAll("?");
+        fingerprint = NUMBERS.matcher(fingerprint).replaceAll("?");
+        fingerprint = IN_LISTS.matcher(fingerprint).replaceAll("(?...)");
+        return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    }
+
+    // -------- Internals
+
+    void executed(String sql, long elapsedNanos) {
+        String fingerprint = fingerprintOf(sql);
+        for (QueryLog log = current.get(); log != null; log = log.parent) {
+            log.executed(fingerprint, elapsedNanos);
+        }
+        Fingerprint stats = fingerprints.get(fingerprint);
+        if (stats == null) {
+            stats = fingerprints.size() < maxFingerprints ?
+                    fingerprints.computeIfAbsent(fingerprint, Fingerprint::new) :
+                    fingerprints.computeIfAbsent(OTHER, Fingerprint::new);
+        }
+        stats.count.increment();
+        stats.nanos.add(elapsedNanos);
+    }
+
+    private String fingerprintOf(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        String fingerprint = fingerprintsBySql.get(sql);
+        if (fingerprint == null) {
+            fingerprint = fingerprint(sql);
+            if (fingerprintsBySql.size() < maxFingerprints) {
+                fingerprintsBySql.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * How often a fingerprint ran and for how long altogether.
+     */
+    public static class Fingerprint {
+
+        private final String query;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Fingerprint(String query) {
+            this.query = query;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getTotalMillis() {
+            return nanos.sum() / 1e6;
+        }
+
+        public double getMeanMillis() {
+            long count = getCount();
+            return count == 0 ? 0 : getTotalMillis() / count;
+        }
+
+        long getTotalNanos() {
+            return nanos.sum();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.campusdual.lituraliaopen.reactive;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import java.time.Duration;
+import java.util.Collections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Opt-in non-blocking read path, {@code lituralia.reactive.enabled=true}: the catalog reads of the REST API served
+ * by WebFlux handlers on their own Reactor Netty port, {@code lituralia.reactive.port}, over an R2DBC pool.
+ * <p>
+ * The paths are those of the blocking API, so a proxy can route public {@code GET}s to this port and everything
+ * else to the servlet one. Writes, the admin API and ETags stay on the JPA services.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lituralia.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCatalogConfig.class);
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool reactiveConnectionPool(DataSourceProperties dataSourceProperties,
+                                                 @Value("${lituralia.reactive.url:}") String url,
+                                                 @Value("${lituralia.reactive.pool-size:20}") int poolSize) {
+        ConnectionFactoryOptions options =
+            ConnectionFactoryOptions.parse(StringUtils.hasText(url) ? url : r2dbcUrl(dataSourceProperties.getUrl()))
+                                    .mutate()
+                                    .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                                    .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                                    .build();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                                                             .name("lituralia-reactive")
+                                                             .initialSize(Math.min(2, poolSize))
+                                                             .maxSize(poolSize)
+                                                             .maxIdleTime(Duration.ofMinutes(10))
+                                                             .build());
+    }
+
+    @Bean
+    public ReactiveCatalogRepository reactiveCatalogRepository(ConnectionPool reactiveConnectionPool) {
+        return new ReactiveCatalogRepository(reactiveConnectionPool);
+    }
+
+    @Bean
+    public ReactiveCatalogHandler reactiveCatalogHandler(ReactiveCatalogRepository reactiveCatalogRepository,
+                                                         BookTitleIndex bookTitleIndex,
+                                                         BookMapper bookMapper, AuthorMapper authorMapper,
+                                                         GenreMapper genreMapper, PublisherMapper publisherMapper) {
+        return new ReactiveCatalogHandler(reactiveCatalogRepository, bookTitleIndex, bookMapper, authorMapper,
+                                          genreMapper, publisherMapper);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveCatalogServer(ReactiveCatalogHandler reactiveCatalogHandler,
+                                                  ObjectMapper objectMapper,
+                                                  @Value("${lituralia.reactive.port:8081}") int port) {
+        HandlerStrategies strategies = HandlerStrategies.builder().codecs(codecs -> {
+            codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+            codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+        }).build();
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.addAllowedOrigin("*");
+        cors.addAllowedHeader("*");
+        cors.setAllowedMethods(Collections.singletonList(HttpMethod.GET.name()));
+        cors.setMaxAge(3600L);
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/api/**", cors);
+
+        HttpHandler httpHandler = WebHttpHandlerBuilder
+            .webHandler(RouterFunctions.toWebHandler(routes(reactiveCatalogHandler), strategies))
+            .filter(new CorsWebFilter(corsSource))
+            .build();
+        DisposableServer server = HttpServer.create()
+                                            .port(port)
+                                            .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                                            .bindNow();
+        log.info("Reactive catalog reads served on port {}", server.port());
+        return server;
+    }
+
+    static RouterFunction<ServerResponse> routes(ReactiveCatalogHandler handler) {
+        return RouterFunctions.route()
+                              .GET("/api/books", handler::getAllBooks)
+                              .GET("/api/books/search", handler::searchBooks)
+                              .GET("/api/books/{id}", handler::getBookById)
+                              .GET("/api/books/{id}/full", handler::getBookDetailById)
+                              .GET("/api/books/{id}/publisher", handler::getBookPublisher)
+                              .GET("/api/books/{id}/genres", handler::getBookGenres)
+                              .GET("/api/books/{id}/authors", handler::getBookAuthors)
+                              .GET("/api/authors/{id}/books", handler::getAuthorBooks)
+                              .GET("/api/genres/{id}/books", handler::getGenreBooks)
+                              .GET("/api/publishers/{id}/books", handler::getPublisherBooks)
+                              .onError(ResourceNotFoundException.class, handler::notFound)
+                              .onError(BadRequestException.class, handler::badRequest)
+                              // handlers parse their parameters eagerly: turn what they throw into errors
+                              .filter((request, next) -> Mono.defer(() -> next.handle(request)))
+                              .build();
+    }
+
+    /**
+     * {@code jdbc:postgresql://host:port/db?...} as {@code r2dbc:postgresql://host:port/db}.
+     */
+    static String r2dbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith("jdbc:postgresql:")) {
+            throw new IllegalStateException("Set lituralia.reactive.url, no R2DBC url can be derived from " + jdbcUrl);
+        }
+        String url = "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+}
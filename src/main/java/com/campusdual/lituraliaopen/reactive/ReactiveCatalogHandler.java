@@ -0,0 +1,237 @@
+package com.campusdual.lituraliaopen.reactive;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.domain.Publisher;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.domain.Sort.Order;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handlers of the reactive catalog reads. They answer with the same DTOs, and the same slice shape, as the
+ * blocking controllers; query parameters are {@code page}, {@code size}, {@code sort=property[,desc]} and, for
+ * searches, {@code searchTerm}.
+ */
+public class ReactiveCatalogHandler {
+
+    static final int DEFAULT_PAGE_SIZE = 10;
+    static final int MAX_PAGE_SIZE = 2000;
+
+    private final ReactiveCatalogRepository repository;
+    private final BookTitleIndex bookTitleIndex;
+    private final BookMapper bookMapper;
+    private final AuthorMapper authorMapper;
+    private final GenreMapper genreMapper;
+    private final PublisherMapper publisherMapper;
+
+    public ReactiveCatalogHandler(ReactiveCatalogRepository repository, BookTitleIndex bookTitleIndex,
+                                  BookMapper bookMapper, AuthorMapper authorMapper,
+                                  GenreMapper genreMapper, PublisherMapper publisherMapper) {
+        this.repository      = repository;
+        this.bookTitleIndex  = bookTitleIndex;
+        this.bookMapper      = bookMapper;
+        this.authorMapper    = authorMapper;
+        this.genreMapper     = genreMapper;
+        this.publisherMapper = publisherMapper;
+    }
+
+    // -------- Books
+
+    public Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        Pageable pageable = pageable(request);
+        return ok(slice(repository.findBooks(pageable), pageable));
+    }
+
+    public Mono<ServerResponse> searchBooks(ServerRequest request) {
+        Pageable pageable = pageable(request);
+        String searchTerm = request.queryParam("searchTerm").orElse("");
+        if (searchTerm.isEmpty()) {
+            return ok(slice(repository.findBooks(pageable), pageable));
+        }
+        if (bookTitleIndex.isReady() && isByAscendingBookId(pageable.getSort())) {
+            // the in-memory index answers with ascending ids: only their page is read
+            int[] ids = bookTitleIndex.search(searchTerm);
+            int from = (int) Math.min(pageable.getOffset(), ids.length);
+            int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize() + 1, ids.length);
+            Integer[] pageIds = new Integer[to - from];
+            for (int i = from; i < to; i++) {
+                pageIds[i - from] = ids[i];
+            }
+            return ok(slice(repository.findBooksByIds(pageIds), pageable));
+        }
+        return ok(slice(repository.findBooksByTitle(searchTerm, pageable), pageable));
+    }
+
+    public Mono<ServerResponse> getBookById(ServerRequest request) {
+        return ok(repository.findBook(id(request))
+                            .map(bookMapper::bookToBookDTO)
+                            .switchIfEmpty(notFoundError()));
+    }
+
+    public Mono<ServerResponse> getBookDetailById(ServerRequest request) {
+        Integer bookId = id(request);
+        Mono<Book> detail = Mono.zip(repository.findBook(bookId),
+                                     repository.findBookPublisher(bookId).map(Optional::of)
+                                               .defaultIfEmpty(Optional.empty()),
+                                     repository.findBookGenres(bookId).collectList(),
+                                     repository.findBookAuthors(bookId).collectList())
+                                .map(parts -> {
+                                    Book book = parts.getT1();
+                                    book.setPublisher(parts.getT2().orElse(null));
+                                    book.setGenres(new LinkedHashSet<>(parts.getT3()));
+                                    book.setAuthors(new LinkedHashSet<>(parts.getT4()));
+                                    return book;
+                                });
+        return ok(detail.map(bookMapper::bookToBookDetailDTO)
+                        .switchIfEmpty(notFoundError()));
+    }
+
+    public Mono<ServerResponse> getBookPublisher(ServerRequest request) {
+        Mono<Publisher> publisher = repository.findBookPublisher(id(request));
+        return ok(publisher.map(publisherMapper::publisherToPublisherDTO)
+                           .switchIfEmpty(notFoundError()));
+    }
+
+    public Mono<ServerResponse> getBookGenres(ServerRequest request) {
+        Integer bookId = id(request);
+        return ok(requireExisting("books", "book_id", bookId)
+                      .thenMany(repository.findBookGenres(bookId))
+                      .map(genreMapper::genreToGenreDTO)
+                      .collectList()
+                      .map(SliceImpl::new));
+    }
+
+    public Mono<ServerResponse> getBookAuthors(ServerRequest request) {
+        Integer bookId = id(request);
+        return ok(requireExisting("books", "book_id", bookId)
+                      .thenMany(repository.findBookAuthors(bookId))
+                      .map(authorMapper::authorToAuthorDTO)
+                      .collectList()
+                      .map(SliceImpl::new));
+    }
+
+    // -------- Books of an author, genre or publisher
+
+    public Mono<ServerResponse> getAuthorBooks(ServerRequest request) {
+        Integer authorId = id(request);
+        Pageable pageable = pageable(request);
+        return ok(requireExisting("authors", "author_id", authorId)
+                      .then(slice(repository.findAuthorBooks(authorId, pageable), pageable)));
+    }
+
+    public Mono<ServerResponse> getGenreBooks(ServerRequest request) {
+        Integer genreId = id(request);
+        Pageable pageable = pageable(request);
+        return ok(requireExisting("genres", "genre_id", genreId)
+                      .then(slice(repository.findGenreBooks(genreId, pageable), pageable)));
+    }
+
+    public Mono<ServerResponse> getPublisherBooks(ServerRequest request) {
+        Integer publisherId = id(request);
+        Pageable pageable = pageable(request);
+        return ok(requireExisting("publishers", "publisher_id", publisherId)
+                      .then(slice(repository.findPublisherBooks(publisherId, pageable), pageable)));
+    }
+
+    // -------- Errors
+
+    public Mono<ServerResponse> notFound(Throwable error, ServerRequest request) {
+        return ServerResponse.notFound().build();
+    }
+
+    public Mono<ServerResponse> badRequest(Throwable error, ServerRequest request) {
+        return ServerResponse.status(HttpStatus.BAD_REQUEST).bodyValue(String.valueOf(error.getMessage()));
+    }
+
+    // -------- Internals
+
+    private static Mono<ServerResponse> ok(Mono<?> body) {
+        return body.flatMap(value -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(value));
+    }
+
+    private Mono<Slice<BookDTO>> slice(Flux<Book> books, Pageable pageable) {
+        return books.map(bookMapper::bookToBookDTO)
+                    .collectList()
+                    .map(content -> toSlice(content, pageable));
+    }
+
+    /**
+     * The page asked for out of its rows plus, when there is a next page, its first row.
+     */
+    static <T> Slice<T> toSlice(List<T> content, Pageable pageable) {
+        boolean hasNext = pageable.isPaged() && content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    private static <T> Mono<T> notFoundError() {
+        return Mono.defer(() -> Mono.error(new ResourceNotFoundException()));
+    }
+
+    private Mono<Void> requireExisting(String table, String idColumn, Integer id) {
+        return repository.exists(table, idColumn, id)
+                         .flatMap(exists -> exists ?
+                                            Mono.<Void>empty() :
+                                            Mono.<Void>error(new ResourceNotFoundException()));
+    }
+
+    static Integer id(ServerRequest request) {
+        try {
+            return Integer.valueOf(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid id " + request.pathVariable("id"));
+        }
+    }
+
+    static Pageable pageable(ServerRequest request) {
+        try {
+            int page = request.queryParam("page").map(Integer::parseInt).orElse(0);
+            int size = request.queryParam("size").map(Integer::parseInt).orElse(DEFAULT_PAGE_SIZE);
+            if (page < 0 || size < 1) {
+                throw new BadRequestException("Invalid page " + page + " of size " + size);
+            }
+            return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), sort(request.queryParams().get("sort")));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid page or size");
+        }
+    }
+
+    private static Sort sort(List<String> params) {
+        if (params == null || params.isEmpty()) {
+            return Sort.by("bookId");
+        }
+        Sort sort = Sort.unsorted();
+        for (String param : params) {
+            String[] parts = param.split(",");
+            Direction direction = parts.length > 1 ?
+                                  Direction.fromOptionalString(parts[1]).orElse(Direction.ASC) :
+                                  Direction.ASC;
+            sort = sort.and(Sort.by(new Order(direction, parts[0])));
+        }
+        return sort;
+    }
+
+    private static boolean isByAscendingBookId(Sort sort) {
+        List<Order> orders = sort.toList();
+        return orders.size() == 1 && orders.get(0).getProperty().equals("bookId") && orders.get(0).isAscending();
+    }
+}
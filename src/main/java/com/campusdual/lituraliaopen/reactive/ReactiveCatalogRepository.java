@@ -0,0 +1,212 @@
+package com.campusdual.lituraliaopen.reactive;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.domain.Author;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.domain.Genre;
+import com.campusdual.lituraliaopen.domain.Publisher;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the catalog over R2DBC, mapped to the same domain classes JPA loads so the API mappers apply
+ * unchanged. Pages are fetched with one row more than asked for, so callers can tell whether another one follows.
+ */
+public class ReactiveCatalogRepository {
+
+    static final String BOOK_COLUMNS =
+        "b.book_id, b.version, b.isbn, b.title, b.synopsis, b.publish_date, b.cover_hash";
+
+    /**
+     * Properties books can be sorted by, with their columns.
+     */
+    static final Map<String, String> BOOK_SORTABLE = new LinkedHashMap<>();
+
+    static {
+        BOOK_SORTABLE.put("bookId", "b.book_id");
+        BOOK_SORTABLE.put("title", "b.title");
+        BOOK_SORTABLE.put("isbn", "b.isbn");
+        BOOK_SORTABLE.put("publishDate", "b.publish_date");
+    }
+
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveCatalogRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    // -------- Books
+
+    public Flux<Book> findBooks(Pageable pageable) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.books b" + orderBy(pageable) + page(pageable),
+                     ReactiveCatalogRepository::book);
+    }
+
+    /**
+     * Books whose title contains {@code term} ignoring case, the same match as the JPA search.
+     */
+    public Flux<Book> findBooksByTitle(String term, Pageable pageable) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.books b WHERE lower(b.title) LIKE $1 ESCAPE '\\'"
+                     + orderBy(pageable) + page(pageable),
+                     ReactiveCatalogRepository::book, SearchSpecifications.containsPattern(term));
+    }
+
+    /**
+     * Books with the given ids, ascending by id.
+     */
+    public Flux<Book> findBooksByIds(Integer[] bookIds) {
+        if (bookIds.length == 0) {
+            return Flux.empty();
+        }
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.books b WHERE b.book_id = ANY($1) ORDER BY b.book_id",
+                     ReactiveCatalogRepository::book, (Object) bookIds);
+    }
+
+    public Mono<Book> findBook(Integer bookId) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.books b WHERE b.book_id = $1",
+                     ReactiveCatalogRepository::book, bookId).next();
+    }
+
+    public Mono<Publisher> findBookPublisher(Integer bookId) {
+        return query("SELECT p.publisher_id, p.version, p.publisher_name, p.publisher_desc, p.publisher_logo_hash "
+                     + "FROM lituralia.books b JOIN lituralia.publishers p ON p.publisher_id = b.publisher_id "
+                     + "WHERE b.book_id = $1",
+                     ReactiveCatalogRepository::publisher, bookId).next();
+    }
+
+    public Flux<Genre> findBookGenres(Integer bookId) {
+        return query("SELECT g.genre_id, g.version, g.genre_name, g.genre_desc "
+                     + "FROM lituralia.book_genres bg JOIN lituralia.genres g ON g.genre_id = bg.genre_id "
+                     + "WHERE bg.book_id = $1 ORDER BY g.genre_id",
+                     ReactiveCatalogRepository::genre, bookId);
+    }
+
+    public Flux<Author> findBookAuthors(Integer bookId) {
+        return query("SELECT a.author_id, a.version, a.author_name, a.author_birth, a.author_death, "
+                     + "a.author_portrait_hash, a.author_bio "
+                     + "FROM lituralia.book_authors ba JOIN lituralia.authors a ON a.author_id = ba.author_id "
+                     + "WHERE ba.book_id = $1 ORDER BY a.author_id",
+                     ReactiveCatalogRepository::author, bookId);
+    }
+
+    // -------- Books of an author, genre or publisher
+
+    public Flux<Book> findAuthorBooks(Integer authorId, Pageable pageable) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.book_authors ba "
+                     + "JOIN lituralia.books b ON b.book_id = ba.book_id WHERE ba.author_id = $1"
+                     + orderBy(pageable) + page(pageable),
+                     ReactiveCatalogRepository::book, authorId);
+    }
+
+    public Flux<Book> findGenreBooks(Integer genreId, Pageable pageable) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.book_genres bg "
+                     + "JOIN lituralia.books b ON b.book_id = bg.book_id WHERE bg.genre_id = $1"
+                     + orderBy(pageable) + page(pageable),
+                     ReactiveCatalogRepository::book, genreId);
+    }
+
+    public Flux<Book> findPublisherBooks(Integer publisherId, Pageable pageable) {
+        return query("SELECT " + BOOK_COLUMNS + " FROM lituralia.books b WHERE b.publisher_id = $1"
+                     + orderBy(pageable) + page(pageable),
+                     ReactiveCatalogRepository::book, publisherId);
+    }
+
+    /**
+     * Whether {@code lituralia.<table>} has a row with the given id, for the 404s of the nested listings.
+     */
+    public Mono<Boolean> exists(String table, String idColumn, Integer id) {
+        return query("SELECT 1 FROM lituralia." + table + " WHERE " + idColumn + " = $1", row -> Boolean.TRUE, id)
+            .hasElements();
+    }
+
+    // -------- Internals
+
+    private <T> Flux<T> query(String sql, Function<Row, T> mapper, Object... parameters) {
+        return Flux.usingWhen(connectionFactory.create(),
+                              connection -> {
+                                  Statement statement = connection.createStatement(sql);
+                                  for (int i = 0; i < parameters.length; i++) {
+                                      statement.bind(i, parameters[i]);
+                                  }
+                                  return Flux.from(statement.execute())
+                                             .flatMap(result -> result.map((row, metadata) -> mapper.apply(row)));
+                              },
+                              Connection::close);
+    }
+
+    static String orderBy(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        String orders = sort.stream()
+                            .map(order -> {
+                                String column = BOOK_SORTABLE.get(order.getProperty());
+                                if (column == null) {
+                                    throw new BadRequestException("Cannot sort by " + order.getProperty());
+                                }
+                                return column + (order.isDescending() ? " DESC" : " ASC");
+                            })
+                            .collect(Collectors.joining(", "));
+        // the id breaks ties, so pages never overlap
+        return " ORDER BY " + (orders.isEmpty() ? "" : orders + ", ") + "b.book_id";
+    }
+
+    static String page(Pageable pageable) {
+        return pageable.isPaged() ?
+               " LIMIT " + (pageable.getPageSize() + 1) + " OFFSET " + pageable.getOffset() :
+               "";
+    }
+
+    private static Book book(Row row) {
+        return Book.builder()
+                   .bookId(row.get("book_id", Integer.class))
+                   .version(row.get("version", Long.class))
+                   .isbn(row.get("isbn", String.class))
+                   .title(row.get("title", String.class))
+                   .synopsis(row.get("synopsis", String.class))
+                   .publishDate(row.get("publish_date", LocalDate.class))
+                   .coverHash(row.get("cover_hash", String.class))
+                   .build();
+    }
+
+    private static Publisher publisher(Row row) {
+        return Publisher.builder()
+                        .publisherId(row.get("publisher_id", Integer.class))
+                        .version(row.get("version", Long.class))
+                        .publisherName(row.get("publisher_name", String.class))
+                        .publisherDesc(row.get("publisher_desc", String.class))
+                        .publisherLogoHash(row.get("publisher_logo_hash", String.class))
+                        .build();
+    }
+
+    private static Genre genre(Row row) {
+        return Genre.builder()
+                    .genreId(row.get("genre_id", Integer.class))
+                    .version(row.get("version", Long.class))
+                    .genreName(row.get("genre_name", String.class))
+                    .genreDesc(row.get("genre_desc", String.class))
+                    .build();
+    }
+
+    private static Author author(Row row) {
+        return Author.builder()
+                     .authorId(row.get("author_id", Integer.class))
+                     .version(row.get("version", Long.class))
+                     .authorName(row.get("author_name", String.class))
+                     .authorBirth(row.get("author_birth", LocalDate.class))
+                     .authorDeath(row.get("author_death", LocalDate.class))
+                     .authorPortraitHash(row.get("author_portrait_hash", String.class))
+                     .authorBio(row.get("author_bio", String.class))
+                     .build();
+    }
+}
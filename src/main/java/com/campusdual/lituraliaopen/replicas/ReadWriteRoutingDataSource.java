@@ -0,0 +1,244 @@
+package com.campusdual.lituraliaopen.replicas;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to a replica pool, round robin, and every other connection to the
+ * primary: read-write transactions, work outside transactions, Flyway, COPY imports.
+ * <p>
+ * Reads fall back to the primary while the client must read its own writes (see {@link ReadYourWrites}) and while no
+ * replica is within {@code lituralia.replicas.max-lag} of the primary, as measured every
+ * {@code lituralia.replicas.lag-check-interval}. A replica that cannot be reached counts as lagging.
+ * <p>
+ * The decision is taken when the connection is first used, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the JPA transaction manager asks for the
+ * connection before the transaction is marked read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    /**
+     * Seconds the replica is behind the primary: none when it has replayed everything it received, so an idle
+     * primary does not look like lag.
+     */
+    static final String LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+        + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final double maxLagSeconds;
+    private final Duration lagCheckInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+    private ScheduledExecutorService lagChecks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<Replica> replicas, ReadYourWrites readYourWrites,
+                                      Duration maxLag, Duration lagCheckInterval) {
+        this.primary          = primary;
+        this.replicas         = replicas;
+        this.readYourWrites   = readYourWrites;
+        this.maxLagSeconds    = maxLag.toMillis() / 1000.0;
+        this.lagCheckInterval = lagCheckInterval;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecks.scheduleWithFixedDelay(this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (lagChecks != null) {
+            lagChecks.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.getDataSource().close());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                stickAfterCommit();
+            }
+            writes.increment();
+            return PRIMARY;
+        }
+        if (readYourWrites.isSticky()) {
+            stickyReads.increment();
+            return PRIMARY;
+        }
+        Replica replica = nextHealthy();
+        if (replica == null) {
+            fallbackReads.increment();
+            return PRIMARY;
+        }
+        replica.reads.increment();
+        return replica.getName();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<Replica> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getStickyReads() {
+        return stickyReads.sum();
+    }
+
+    public long getFallbackReads() {
+        return fallbackReads.sum();
+    }
+
+    /**
+     * Measures how far behind every replica is, marking those beyond the maximum lag as unhealthy.
+     */
+    void checkLag() {
+        for (Replica replica : replicas) {
+            double lag;
+            try (Connection connection = replica.getDataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                lag = resultSet.getDouble(1);
+                if (resultSet.wasNull()) {
+                    lag = Double.POSITIVE_INFINITY;
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.debug("Lag check of {} failed", replica.getName(), e);
+                lag = Double.NaN;
+            }
+            boolean healthy = lag <= maxLagSeconds;
+            if (healthy != replica.healthy) {
+                if (healthy) {
+                    log.info("Replica {} is back within {} s of the primary, serving reads", replica.getName(),
+                             maxLagSeconds);
+                } else {
+                    log.warn("Replica {} is {}, reads fall back to other replicas or the primary", replica.getName(),
+                             Double.isNaN(lag) ? "unreachable" : "behind the primary by " + lag + " s");
+                }
+            }
+            replica.lagSeconds = lag;
+            replica.healthy    = healthy;
+        }
+    }
+
+    // -------- Internals
+
+    private Replica nextHealthy() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, size));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes the client's reads sticky once the current read-write transaction commits; registered once per
+     * transaction, whichever its first connection is.
+     */
+    private void stickAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+            || TransactionSynchronizationManager.hasResource(readYourWrites)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(readYourWrites, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                readYourWrites.wrote();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(readYourWrites);
+            }
+        });
+    }
+
+    /**
+     * A replica pool and what the last lag check found; unhealthy until the first check.
+     */
+    public static class Replica {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean healthy;
+
+        public Replica(String name, HikariDataSource dataSource) {
+            this.name       = name;
+            this.dataSource = dataSource;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public HikariDataSource getDataSource() {
+            return dataSource;
+        }
+
+        public long getReads() {
+            return reads.sum();
+        }
+
+        public double getLagSeconds() {
+            return lagSeconds;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.campusdual.lituraliaopen.replicas;
+
+import java.time.Duration;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Keeps the reads of a client on the primary for {@code lituralia.replicas.sticky-for} after it commits a write, so
+ * it never reads from a replica that has not replayed that write yet.
+ * <p>
+ * The deadline, in epoch milliseconds, is sent back in the {@value #HEADER} response header, which cross-origin
+ * clients like the frontend echo on their next requests, and in a cookie, which browsers only return to same-origin
+ * callers. A request attribute covers the rest of the request that wrote. Work outside a request (imports, warm-up)
+ * is never sticky.
+ * <p>
+ * The deadline is not signed: a client can keep its own reads on the primary by echoing it, but a deadline further
+ * than {@code sticky-for} ahead was not issued by any instance and is ignored.
+ */
+public class ReadYourWrites {
+
+    public static final String HEADER = "Lituralia-Primary-Until";
+
+    static final String COOKIE = "lituralia-primary-until";
+
+    private final long stickyMillis;
+
+    public ReadYourWrites(Duration stickyFor) {
+        this.stickyMillis = stickyFor.toMillis();
+    }
+
+    /**
+     * Whether the current request must read from the primary.
+     */
+    public boolean isSticky() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || stickyMillis <= 0) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(COOKIE) != null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (isPending(request.getHeader(HEADER), now)) {
+            return true;
+        }
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName()) && isPending(cookie.getValue(), now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called once a read-write transaction of the current request has committed.
+     */
+    public void wrote() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || stickyMillis <= 0) {
+            return;
+        }
+        attributes.getRequest().setAttribute(COOKIE, Boolean.TRUE);
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            String until = String.valueOf(System.currentTimeMillis() + stickyMillis);
+            response.setHeader(HEADER, until);
+            Cookie cookie = new Cookie(COOKIE, until);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (stickyMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    // -------- Internals
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+
+    private boolean isPending(String value, long now) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            long until = Long.parseLong(value.trim());
+            return until > now && until <= now + stickyMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
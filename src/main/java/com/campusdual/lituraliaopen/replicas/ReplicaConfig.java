@@ -0,0 +1,119 @@
+package com.campusdual.lituraliaopen.replicas;
+
+import com.campusdual.lituraliaopen.replicas.ReadWriteRoutingDataSource.Replica;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Opt-in read replicas, {@code lituralia.replicas.enabled=true}: one Hikari pool per URL of
+ * {@code lituralia.replicas.urls}, with the settings and credentials of the primary pool ({@code spring.datasource.*}),
+ * serving the read-only transactions, see {@link ReadWriteRoutingDataSource}.
+ * <p>
+ * Pools are metered as {@code hikaricp.*} tagged {@code pool=primary|replica-N}; routing decisions as
+ * {@code lituralia.db.routes} tagged with the pool and the reason, and replica lag as {@code lituralia.db.replica.lag}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lituralia.replicas.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public DataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                                                       .type(HikariDataSource.class)
+                                                       .build();
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        return primary;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                                        ObjectProvider<MeterRegistry> meterRegistry,
+                                                        @Value("${lituralia.replicas.urls}") List<String> urls,
+                                                        @Value("${lituralia.replicas.max-lag:5s}") Duration maxLag,
+                                                        @Value("${lituralia.replicas.lag-check-interval:1s}")
+                                                            Duration lagCheckInterval,
+                                                        @Value("${lituralia.replicas.sticky-for:5s}")
+                                                            Duration stickyFor) throws SQLException {
+        HikariDataSource primary = primaryDataSource.unwrap(HikariDataSource.class);
+        List<Replica> replicas = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(url.trim());
+            config.setPoolName("replica-" + (replicas.size() + 1));
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(null);
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(
+                new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(new Replica(config.getPoolName(), new HikariDataSource(config)));
+        }
+        log.info("Routing read-only transactions to {} replica(s), at most {} behind the primary", replicas.size(),
+                 maxLag);
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, new ReadYourWrites(stickyFor), maxLag,
+                                              lagCheckInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReadWriteRoutingDataSource routingDataSource) {
+        return registry -> {
+            route(registry, routingDataSource, ReadWriteRoutingDataSource.PRIMARY, "write",
+                  ReadWriteRoutingDataSource::getWrites);
+            route(registry, routingDataSource, ReadWriteRoutingDataSource.PRIMARY, "sticky",
+                  ReadWriteRoutingDataSource::getStickyReads);
+            route(registry, routingDataSource, ReadWriteRoutingDataSource.PRIMARY, "fallback",
+                  ReadWriteRoutingDataSource::getFallbackReads);
+            for (Replica replica : routingDataSource.getReplicas()) {
+                route(registry, replica, replica.getName(), "read", Replica::getReads);
+                Gauge.builder("lituralia.db.replica.lag", replica, Replica::getLagSeconds)
+                     .tag("pool", replica.getName())
+                     .baseUnit("seconds")
+                     .register(registry);
+                Gauge.builder("lituralia.db.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                     .tag("pool", replica.getName())
+                     .register(registry);
+            }
+        };
+    }
+
+    // -------- Internals
+
+    private static <T> void route(MeterRegistry registry, T source, String pool, String reason,
+                                  ToDoubleFunction<T> count) {
+        FunctionCounter.builder("lituralia.db.routes", source, count)
+                       .tag("pool", pool)
+                       .tag("reason", reason)
+                       .register(registry);
+    }
+}
@@ -1,16 +1,63 @@
 package com.campusdual.lituraliaopen.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.campusdual.lituraliaopen.domain.Author;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface AuthorRepository extends JpaRepository<Author, Integer> {
+public interface AuthorRepository extends KeysetJpaRepository<Author, Integer> {
 
     Optional<Author> findByAuthorName(String authorName);
 
-    Page<Author> findByAuthorNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+    /**
+     * Listing pages without a count query; totals are looked up separately, see {@code CountedPage}.
+     */
+    Slice<Author> findAllBy(Pageable pageable);
+
+    Slice<Author> findByAuthorNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+
+    long countByAuthorNameContainingIgnoreCase(String searchTerm);
+
+    @Query("select a.authorPortraitHash from authors a where a.authorId = :authorId")
+    Optional<String> findAuthorPortraitHashByAuthorId(@Param("authorId") Integer authorId);
+
+    @Transactional
+    @Modifying
+    @Query("update authors a set a.authorPortraitHash = :authorPortraitHash, a.version = a.version + 1 where a.authorId = :authorId")
+    int updateAuthorPortraitHash(@Param("authorId") Integer authorId, @Param("authorPortraitHash") String authorPortraitHash);
+
+    /**
+     * Every author in id order through a server-side cursor, for exports. Must be consumed and closed inside a
+     * transaction; the entities bypass the second-level cache and should be detached once written.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READONLY, value = "true"),
+                 @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select a from authors a order by a.authorId")
+    Stream<Author> streamAll();
+
+    // -------- Versions, for ETags
+
+    @Query("select a.version from authors a where a.authorId = :authorId")
+    Optional<Long> findVersionByAuthorId(@Param("authorId") Integer authorId);
+
+    /**
+     * Book versions go up whenever a book joins or leaves the author, so their sum and count move on every change.
+     */
+    @Query("select concat(str(a.version), '.', str(count(b)), '.', str(coalesce(sum(b.version), 0))) from authors a "
+           + "left join a.books b where a.authorId = :authorId group by a.authorId, a.version")
+    Optional<String> findBooksVersionByAuthorId(@Param("authorId") Integer authorId);
 }
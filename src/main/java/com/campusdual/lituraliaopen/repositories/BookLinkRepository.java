@@ -0,0 +1,271 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes the links between books and their genres, authors and publisher as set based SQL, never loading the
+ * association collections. Every book whose links change gets its version incremented and its cached entity and
+ * collections evicted, so ETags and the second-level cache stay correct; cached book counts are dropped.
+ */
+@Repository
+public class BookLinkRepository {
+
+    /**
+     * Longest id list a single call accepts.
+     */
+    public static final int MAX_IDS = 1000;
+
+    public enum Link {
+        GENRES("book_genres", "genres", "genre_id"),
+        AUTHORS("book_authors", "authors", "author_id");
+
+        final String joinTable;
+        final String targetTable;
+        final String targetColumn;
+
+        Link(String joinTable, String targetTable, String targetColumn) {
+            this.joinTable    = joinTable;
+            this.targetTable  = targetTable;
+            this.targetColumn = targetColumn;
+        }
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CatalogCache catalogCache;
+
+    public BookLinkRepository(NamedParameterJdbcTemplate jdbcTemplate, CatalogCache catalogCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Links every given book to every given target, skipping the pairs already linked.
+     *
+     * @return the number of links added
+     */
+    @Transactional
+    public int link(Link link, Collection<Integer> bookIds, Collection<Integer> targetIds)
+        throws ResourceNotFoundException {
+        Set<Integer> books = distinct(bookIds);
+        Set<Integer> targets = distinct(targetIds);
+        requireExisting("books", "book_id", books);
+        requireExisting(link.targetTable, link.targetColumn, targets);
+        List<SqlParameterSource> batch = new ArrayList<>(books.size() * targets.size());
+        for (Integer bookId : books) {
+            for (Integer targetId : targets) {
+                batch.add(new MapSqlParameterSource("bookId", bookId).addValue("targetId", targetId));
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+            "INSERT INTO lituralia." + link.joinTable + " (book_id, " + link.targetColumn + ") "
+            + "VALUES (:bookId, :targetId) ON CONFLICT DO NOTHING",
+            batch.toArray(new SqlParameterSource[0]));
+        Set<Integer> changed = new LinkedHashSet<>();
+        int added = 0;
+        for (int i = 0; i < counts.length; i++) {
+            // drivers may report a batched statement as SUCCESS_NO_INFO, treat it as a change
+            if (counts[i] != 0) {
+                changed.add((Integer) batch.get(i).getValue("bookId"));
+                added += Math.max(counts[i], 1);
+            }
+        }
+        touch(link, changed);
+        return added;
+    }
+
+    /**
+     * Removes the links between the given books and targets.
+     *
+     * @return the number of links removed
+     */
+    @Transactional
+    public int unlink(Link link, Collection<Integer> bookIds, Collection<Integer> targetIds) {
+        Set<Integer> books = distinct(bookIds);
+        Set<Integer> targets = distinct(targetIds);
+        if (books.isEmpty() || targets.isEmpty()) {
+            return 0;
+        }
+        List<Integer> unlinked = jdbcTemplate.queryForList(
+            "DELETE FROM lituralia." + link.joinTable + " WHERE book_id IN (:bookIds) "
+            + "AND " + link.targetColumn + " IN (:targetIds) RETURNING book_id",
+            new MapSqlParameterSource("bookIds", books).addValue("targetIds", targets),
+            Integer.class);
+        touch(link, new LinkedHashSet<>(unlinked));
+        return unlinked.size();
+    }
+
+    /**
+     * Leaves the book linked to exactly the given targets.
+     */
+    @Transactional
+    public void replaceTargets(Link link, Integer bookId, Collection<Integer> targetIds)
+        throws ResourceNotFoundException {
+        Set<Integer> targets = distinct(targetIds);
+        requireExisting("books", "book_id", Collections.singleton(bookId));
+        MapSqlParameterSource params = new MapSqlParameterSource("bookId", bookId).addValue("targetIds", targets);
+        List<Integer> unlinked = jdbcTemplate.queryForList(
+            "DELETE FROM lituralia." + link.joinTable + " WHERE book_id = :bookId"
+            + (targets.isEmpty() ? "" : " AND " + link.targetColumn + " NOT IN (:targetIds)")
+            + " RETURNING book_id",
+            params, Integer.class);
+        touch(link, new LinkedHashSet<>(unlinked));
+        link(link, Collections.singleton(bookId), targets);
+    }
+
+    /**
+     * Leaves the target linked to exactly the given books.
+     */
+    @Transactional
+    public void replaceBooks(Link link, Integer targetId, Collection<Integer> bookIds)
+        throws ResourceNotFoundException {
+        Set<Integer> books = distinct(bookIds);
+        requireExisting(link.targetTable, link.targetColumn, Collections.singleton(targetId));
+        MapSqlParameterSource params = new MapSqlParameterSource("targetId", targetId).addValue("bookIds", books);
+        List<Integer> unlinked = jdbcTemplate.queryForList(
+            "DELETE FROM lituralia." + link.joinTable + " WHERE " + link.targetColumn + " = :targetId"
+            + (books.isEmpty() ? "" : " AND book_id NOT IN (:bookIds)")
+            + " RETURNING book_id",
+            params, Integer.class);
+        touch(link, new LinkedHashSet<>(unlinked));
+        link(link, books, Collections.singleton(targetId));
+    }
+
+    // -------- Publisher
+
+    /**
+     * Moves the given books to the publisher.
+     *
+     * @return the number of books moved
+     */
+    @Transactional
+    public int setPublisher(Integer publisherId, Collection<Integer> bookIds) throws ResourceNotFoundException {
+        Set<Integer> books = distinct(bookIds);
+        requireExisting("publishers", "publisher_id", Collections.singleton(publisherId));
+        requireExisting("books", "book_id", books);
+        if (books.isEmpty()) {
+            return 0;
+        }
+        List<Integer> moved = jdbcTemplate.queryForList(
+            "UPDATE lituralia.books SET publisher_id = :publisherId, version = version + 1 "
+            + "WHERE book_id IN (:bookIds) AND publisher_id IS DISTINCT FROM :publisherId RETURNING book_id",
+            new MapSqlParameterSource("publisherId", publisherId).addValue("bookIds", books),
+            Integer.class);
+        evict(null, moved);
+        return moved.size();
+    }
+
+    /**
+     * Removes the publisher from those of the given books it is set on.
+     *
+     * @return the number of books left without publisher
+     */
+    @Transactional
+    public int clearPublisher(Integer publisherId, Collection<Integer> bookIds) {
+        Set<Integer> books = distinct(bookIds);
+        if (books.isEmpty()) {
+            return 0;
+        }
+        List<Integer> cleared = jdbcTemplate.queryForList(
+            "UPDATE lituralia.books SET publisher_id = NULL, version = version + 1 "
+            + "WHERE publisher_id = :publisherId AND book_id IN (:bookIds) RETURNING book_id",
+            new MapSqlParameterSource("publisherId", publisherId).addValue("bookIds", books),
+            Integer.class);
+        evict(null, cleared);
+        return cleared.size();
+    }
+
+    /**
+     * Leaves the publisher set on exactly the given books.
+     */
+    @Transactional
+    public void replacePublisherBooks(Integer publisherId, Collection<Integer> bookIds)
+        throws ResourceNotFoundException {
+        Set<Integer> books = distinct(bookIds);
+        requireExisting("publishers", "publisher_id", Collections.singleton(publisherId));
+        List<Integer> cleared = jdbcTemplate.queryForList(
+            "UPDATE lituralia.books SET publisher_id = NULL, version = version + 1 WHERE publisher_id = :publisherId"
+            + (books.isEmpty() ? "" : " AND book_id NOT IN (:bookIds)")
+            + " RETURNING book_id",
+            new MapSqlParameterSource("publisherId", publisherId).addValue("bookIds", books),
+            Integer.class);
+        evict(null, cleared);
+        setPublisher(publisherId, books);
+    }
+
+    // -------- Helpers
+
+    static Set<Integer> distinct(Collection<Integer> ids) {
+        if (ids == null) {
+            return Collections.emptySet();
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new BadRequestException("At most " + MAX_IDS + " ids per request");
+        }
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        if (distinct.contains(null)) {
+            throw new BadRequestException("Null id");
+        }
+        return distinct;
+    }
+
+    private void requireExisting(String table, String idColumn, Set<Integer> ids) throws ResourceNotFoundException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Integer found = jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM lituralia." + table + " WHERE " + idColumn + " IN (:ids)",
+            new MapSqlParameterSource("ids", ids), Integer.class);
+        if (found == null || found != ids.size()) {
+            throw new ResourceNotFoundException();
+        }
+    }
+
+    /**
+     * Increments the version of the books whose links changed and evicts them.
+     */
+    private void touch(Link link, Set<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE lituralia.books SET version = version + 1 WHERE book_id IN (:bookIds)",
+                            new MapSqlParameterSource("bookIds", bookIds));
+        evict(link, bookIds);
+    }
+
+    /**
+     * Evicts the books and their changed links, see {@link CatalogCache#evictNowAndAfterCommit(Runnable)}.
+     */
+    private void evict(Link link, Collection<Integer> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        List<Integer> evicted = new ArrayList<>(bookIds);
+        catalogCache.evictNowAndAfterCommit(() -> {
+            evicted.forEach(bookId -> {
+                catalogCache.evictBook(bookId);
+                if (link == Link.GENRES) {
+                    catalogCache.evictBookGenres(bookId);
+                } else if (link == Link.AUTHORS) {
+                    catalogCache.evictBookAuthors(bookId);
+                }
+            });
+            catalogCache.evictBookCounts();
+        });
+    }
+}
@@ -1,17 +1,98 @@
 package com.campusdual.lituraliaopen.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.campusdual.lituraliaopen.domain.Book;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Integer> {
+public interface BookRepository extends KeysetJpaRepository<Book, Integer> {
 
     Optional<Book> findByTitle(String title);
 
-    Page<Book> findByTitleContainingIgnoreCase(String searchTerm, Pageable pageable);
+    /**
+     * Loads the book with its publisher, genres and authors joined in, in a single statement.
+     */
+    @EntityGraph(attributePaths = {"publisher", "genres", "authors"})
+    Optional<Book> findWithAssociationsByBookId(Integer bookId);
+
+    /**
+     * Listing pages without a count query; totals are looked up separately, see {@code CountedPage}.
+     */
+    Slice<Book> findAllBy(Pageable pageable);
+
+    Slice<Book> findByTitleContainingIgnoreCase(String searchTerm, Pageable pageable);
+
+    long countByTitleContainingIgnoreCase(String searchTerm);
+
+    List<Book> findByBookIdIn(Collection<Integer> bookIds, Pageable pageable);
+
+    @Query("select b.coverHash from books b where b.bookId = :bookId")
+    Optional<String> findCoverHashByBookId(@Param("bookId") Integer bookId);
+
+    @Transactional
+    @Modifying
+    @Query("update books b set b.coverHash = :coverHash, b.version = b.version + 1 where b.bookId = :bookId")
+    int updateCoverHash(@Param("bookId") Integer bookId, @Param("coverHash") String coverHash);
+
+    // -------- Inverse associations, read through the join tables rather than the Genre, Author and Publisher
+    // collections, which would all be loaded into the persistence context
+
+    @Query("select b from books b join b.genres g where g.genreId = :genreId")
+    Slice<Book> findByGenreId(@Param("genreId") Integer genreId, Pageable pageable);
+
+    @Query("select count(b) from books b join b.genres g where g.genreId = :genreId")
+    long countByGenreId(@Param("genreId") Integer genreId);
+
+    @Query("select b from books b join b.authors a where a.authorId = :authorId")
+    Slice<Book> findByAuthorId(@Param("authorId") Integer authorId, Pageable pageable);
+
+    @Query("select count(b) from books b join b.authors a where a.authorId = :authorId")
+    long countByAuthorId(@Param("authorId") Integer authorId);
+
+    Slice<Book> findByPublisherPublisherId(Integer publisherId, Pageable pageable);
+
+    long countByPublisherPublisherId(Integer publisherId);
+
+    /**
+     * Every book in id order through a server-side cursor, for exports. Must be consumed and closed inside a
+     * transaction; the entities bypass the second-level cache and should be detached once written.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READONLY, value = "true"),
+                 @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select b from books b order by b.bookId")
+    Stream<Book> streamAll();
+
+    // -------- Versions, for ETags
+
+    @Query("select b.version from books b where b.bookId = :bookId")
+    Optional<Long> findVersionByBookId(@Param("bookId") Integer bookId);
+
+    @Query("select concat(str(b.version), '.', str(coalesce(p.version, -1))) from books b left join b.publisher p "
+           + "where b.bookId = :bookId")
+    Optional<String> findPublisherVersionByBookId(@Param("bookId") Integer bookId);
+
+    @Query("select concat(str(b.version), '.', str(count(g)), '.', str(coalesce(sum(g.version), 0))) "
+           + "from books b left join b.genres g where b.bookId = :bookId group by b.bookId, b.version")
+    Optional<String> findGenresVersionByBookId(@Param("bookId") Integer bookId);
 
+    @Query("select concat(str(b.version), '.', str(count(a)), '.', str(coalesce(sum(a.version), 0))) "
+           + "from books b left join b.authors a where b.bookId = :bookId group by b.bookId, b.version")
+    Optional<String> findAuthorsVersionByBookId(@Param("bookId") Integer bookId);
 }
@@ -0,0 +1,26 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import com.campusdual.lituraliaopen.domain.Book;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications behind the cursor paginated {@code /{id}/books} endpoints of authors, genres and publishers. They
+ * join from the book side, so the association collections are never loaded.
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    public static Specification<Book> byAuthor(Integer authorId) {
+        return (root, query, cb) -> cb.equal(root.join("authors").get("authorId"), authorId);
+    }
+
+    public static Specification<Book> inGenre(Integer genreId) {
+        return (root, query, cb) -> cb.equal(root.join("genres").get("genreId"), genreId);
+    }
+
+    public static Specification<Book> byPublisher(Integer publisherId) {
+        return (root, query, cb) -> cb.equal(root.get("publisher").get("publisherId"), publisherId);
+    }
+}
@@ -1,16 +1,53 @@
 package com.campusdual.lituraliaopen.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.campusdual.lituraliaopen.domain.Genre;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GenreRepository extends JpaRepository<Genre, Integer> {
+public interface GenreRepository extends KeysetJpaRepository<Genre, Integer> {
 
     Optional<Genre> findByGenreName(String genreName);
 
-    Page<Genre> findByGenreNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+    /**
+     * Listing pages without a count query; totals are looked up separately, see {@code CountedPage}.
+     */
+    Slice<Genre> findAllBy(Pageable pageable);
+
+    Slice<Genre> findByGenreNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+
+    long countByGenreNameContainingIgnoreCase(String searchTerm);
+
+    /**
+     * Every genre in id order through a server-side cursor, for exports. Must be consumed and closed inside a
+     * transaction; the entities bypass the second-level cache and should be detached once written.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READONLY, value = "true"),
+                 @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select g from genres g order by g.genreId")
+    Stream<Genre> streamAll();
+
+    // -------- Versions, for ETags
+
+    @Query("select g.version from genres g where g.genreId = :genreId")
+    Optional<Long> findVersionByGenreId(@Param("genreId") Integer genreId);
+
+    /**
+     * Book versions go up whenever a book joins or leaves the genre, so their sum and count move on every change.
+     */
+    @Query("select concat(str(g.version), '.', str(count(b)), '.', str(coalesce(sum(b.version), 0))) from genres g "
+           + "left join g.books b where g.genreId = :genreId group by g.genreId, g.version")
+    Optional<String> findBooksVersionByGenreId(@Param("genreId") Integer genreId);
 }
@@ -0,0 +1,10 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import com.campusdual.lituraliaopen.domain.Image;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageRepository extends JpaRepository<Image, String> {
+
+}
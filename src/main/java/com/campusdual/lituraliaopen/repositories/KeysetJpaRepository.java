@@ -0,0 +1,31 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * {@link JpaRepository} with keyset (seek) pagination: slices are found with a predicate on the sort key instead of
+ * an OFFSET, and without a count query, so every slice costs the same however deep it is. Also reads slices of
+ * partially loaded entities, for sparse fieldsets.
+ */
+@NoRepositoryBean
+public interface KeysetJpaRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+    /**
+     * Returns the rows matching {@code spec} (all of them when {@code null}) that come after the request's cursor.
+     */
+    CursorSlice<T> findAllAfter(Specification<T> spec, KeysetRequest request);
+
+    /**
+     * Returns a slice of the rows matching {@code spec} (all of them when {@code null}) selecting only the given
+     * basic attributes. The entities are detached and have every other attribute left empty.
+     */
+    Slice<T> findAllProjected(Specification<T> spec, Pageable pageable, List<String> attributes);
+}
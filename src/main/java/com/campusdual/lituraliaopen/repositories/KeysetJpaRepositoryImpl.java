@@ -0,0 +1,186 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.KeysetCursor;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Base class of every repository, see {@link KeysetJpaRepository}.
+ * <p>
+ * Null sort keys are placed the way PostgreSQL orders them by default: last ascending, first descending.
+ */
+@Transactional(readOnly = true)
+public class KeysetJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements KeysetJpaRepository<T, ID> {
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+
+    public KeysetJpaRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager     = entityManager;
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public CursorSlice<T> findAllAfter(Specification<T> spec, KeysetRequest request) {
+        String idProperty = entityInformation.getIdAttribute().getName();
+        Sort.Order order = request.getOrder();
+        boolean ascending = order.isAscending();
+        boolean byId = order.getProperty().equals(idProperty);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(getDomainClass());
+        Root<T> root = query.from(getDomainClass());
+        Path<Comparable> key = root.get(order.getProperty());
+        Path<Comparable> id = root.get(idProperty);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        KeysetCursor after = request.getAfter();
+        if (after != null) {
+            Comparable lastId = convert(after.getId(), id.getJavaType());
+            Predicate idAfter = ascending ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+            predicates.add(byId ? idAfter : seek(cb, key, ascending, convert(after.getValue(), key.getJavaType()), idAfter));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        List<Order> orderBy = byId ?
+                              Collections.singletonList(ascending ? cb.asc(id) : cb.desc(id)) :
+                              Arrays.asList(ascending ? cb.asc(key) : cb.desc(key), ascending ? cb.asc(id) : cb.desc(id));
+        query.orderBy(orderBy);
+
+        int size = request.getSize();
+        List<T> rows = entityManager.createQuery(query)
+                                    .setMaxResults(size + 1)
+                                    .getResultList();
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? cursorAt(content.get(size - 1), order).encode() : null;
+        return new CursorSlice<>(content, PageRequest.of(0, size, request.getSort()), hasNext, nextCursor);
+    }
+
+    @Override
+    public Slice<T> findAllProjected(Specification<T> spec, Pageable pageable, List<String> attributes) {
+        EntityType<T> entityType = entityManager.getMetamodel().entity(getDomainClass());
+        for (String attribute : attributes) {
+            Attribute<? super T, ?> found;
+            try {
+                found = entityType.getAttribute(attribute);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown attribute: " + attribute);
+            }
+            if (found.isAssociation() || found.isCollection()) {
+                throw new BadRequestException("Cannot select " + attribute + " alone");
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(getDomainClass());
+        List<Selection<?>> selections = attributes.stream()
+                                                  .map(attribute -> root.get(attribute).alias(attribute))
+                                                  .collect(Collectors.toList());
+        query.multiselect(selections);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            // one row more than the page tells whether another one follows
+            typed.setFirstResult((int) pageable.getOffset())
+                 .setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<Tuple> rows = typed.getResultList();
+        boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+        List<T> content = new ArrayList<>(rows.size());
+        for (Tuple row : hasNext ? rows.subList(0, pageable.getPageSize()) : rows) {
+            T entity = BeanUtils.instantiateClass(getDomainClass());
+            BeanWrapper wrapper = new BeanWrapperImpl(entity);
+            for (String attribute : attributes) {
+                wrapper.setPropertyValue(attribute, row.get(attribute));
+            }
+            content.add(entity);
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Predicate seek(CriteriaBuilder cb, Path<Comparable> key, boolean ascending, Comparable value,
+                                  Predicate idAfter) {
+        if (value == null) {
+            return ascending ?
+                   cb.and(cb.isNull(key), idAfter) :
+                   cb.or(cb.and(cb.isNull(key), idAfter), cb.isNotNull(key));
+        }
+        Predicate keyAfter = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate tie = cb.and(cb.equal(key, value), idAfter);
+        return ascending ? cb.or(keyAfter, tie, cb.isNull(key)) : cb.or(keyAfter, tie);
+    }
+
+    private KeysetCursor cursorAt(T last, Sort.Order order) {
+        Object value = new BeanWrapperImpl(last).getPropertyValue(order.getProperty());
+        return KeysetCursor.builder()
+                           .property(order.getProperty())
+                           .direction(order.getDirection())
+                           .value(value == null ? null : value.toString())
+                           .id(String.valueOf(entityInformation.getId(last)))
+                           .build();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparable convert(String value, Class<?> type) throws BadRequestException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return type == LocalDate.class ?
+                   LocalDate.parse(value) :
+                   (Comparable) DefaultConversionService.getSharedInstance().convert(value, type);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Malformed cursor");
+        }
+    }
+}
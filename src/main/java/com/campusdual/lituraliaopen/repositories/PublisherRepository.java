@@ -1,17 +1,64 @@
 package com.campusdual.lituraliaopen.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.campusdual.lituraliaopen.domain.Publisher;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface PublisherRepository extends JpaRepository<Publisher, Integer> {
+public interface PublisherRepository extends KeysetJpaRepository<Publisher, Integer> {
 
     Optional<Publisher> findByPublisherName(String publisherName);
 
 
-    Page<Publisher> findByPublisherNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+    /**
+     * Listing pages without a count query; totals are looked up separately, see {@code CountedPage}.
+     */
+    Slice<Publisher> findAllBy(Pageable pageable);
+
+    Slice<Publisher> findByPublisherNameContainingIgnoreCase(String searchTerm, Pageable pageable);
+
+    long countByPublisherNameContainingIgnoreCase(String searchTerm);
+
+    @Query("select p.publisherLogoHash from publishers p where p.publisherId = :publisherId")
+    Optional<String> findPublisherLogoHashByPublisherId(@Param("publisherId") Integer publisherId);
+
+    @Transactional
+    @Modifying
+    @Query("update publishers p set p.publisherLogoHash = :publisherLogoHash, p.version = p.version + 1 where p.publisherId = :publisherId")
+    int updatePublisherLogoHash(@Param("publisherId") Integer publisherId, @Param("publisherLogoHash") String publisherLogoHash);
+
+    /**
+     * Every publisher in id order through a server-side cursor, for exports. Must be consumed and closed inside a
+     * transaction; the entities bypass the second-level cache and should be detached once written.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READONLY, value = "true"),
+                 @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select p from publishers p order by p.publisherId")
+    Stream<Publisher> streamAll();
+
+    // -------- Versions, for ETags
+
+    @Query("select p.version from publishers p where p.publisherId = :publisherId")
+    Optional<Long> findVersionByPublisherId(@Param("publisherId") Integer publisherId);
+
+    /**
+     * Book versions go up whenever a book joins or leaves the publisher, so their sum and count move on every change.
+     */
+    @Query("select concat(str(p.version), '.', str(count(b)), '.', str(coalesce(sum(b.version), 0))) from publishers p "
+           + "left join p.books b where p.publisherId = :publisherId group by p.publisherId, p.version")
+    Optional<String> findBooksVersionByPublisherId(@Param("publisherId") Integer publisherId);
 }
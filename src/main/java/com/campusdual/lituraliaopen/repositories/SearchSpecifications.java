@@ -0,0 +1,31 @@
+package com.campusdual.lituraliaopen.repositories;
+
+import java.util.Locale;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications behind the {@code /search} endpoints when they are paginated by cursor.
+ */
+public final class SearchSpecifications {
+
+    private SearchSpecifications() {
+    }
+
+    /**
+     * Same match as the derived {@code findByXContainingIgnoreCase} queries.
+     */
+    public static <T> Specification<T> containsIgnoreCase(String attribute, String term) {
+        String pattern = containsPattern(term);
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), pattern, '\\');
+    }
+
+    /**
+     * {@code LIKE} pattern, escaped with backslashes, matching lower cased values that contain {@code term}.
+     */
+    public static String containsPattern(String term) {
+        return "%" + term.toLowerCase(Locale.ROOT)
+                         .replace("\\", "\\\\")
+                         .replace("%", "\\%")
+                         .replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,358 @@
+package com.campusdual.lituraliaopen.search;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Change;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.event.CatalogImportedEvent;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import lombok.EqualsAndHashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps a {@link TrigramIndex} over book titles so title searches never scan the books table.
+ * <p>
+ * The index is loaded from its file when the catalog fingerprint still matches, otherwise it is rebuilt in parallel
+ * from the titles, both in the background from startup, so the warm-up can wait for it (see {@link #awaitReady}).
+ * Until then {@link #isReady()} is false and callers keep using the database. Changes published by the book service
+ * are applied incrementally.
+ * <p>
+ * The fingerprint is the number of books and the sum of their {@link #titleHash title hashes}, so it follows the
+ * titles and nothing else. The index keeps the fingerprint of its own titles in step with every change it applies:
+ * the one the database reports every minute only differs when titles changed in ways the events did not tell, such
+ * as writes of other instances, and only then is the index rebuilt from a new snapshot. The file is written from such
+ * a snapshot, and again on shutdown when local changes were applied since.
+ */
+@Component
+public class BookTitleIndex implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookTitleIndex.class);
+
+    static final String FINGERPRINT_QUERY =
+        "SELECT count(*), coalesce(sum(lituralia.title_hash(book_id, title)), 0) FROM lituralia.books";
+    static final String TITLES_QUERY = "SELECT book_id, title FROM lituralia.books";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path indexFile;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<CatalogChangedEvent> pending = new ArrayList<>();
+    private final CountDownLatch firstLoad = new CountDownLatch(1);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "book-title-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private TrigramIndex index;
+    private boolean building;
+    private volatile boolean running;
+
+    // fingerprint of the indexed titles, or null when the index could not be pinned to a snapshot; guarded by lock
+    private Fingerprint indexedFingerprint;
+    // changes applied since the file was written; guarded by lock
+    private boolean dirty;
+
+    public BookTitleIndex(JdbcTemplate jdbcTemplate,
+                          @Value("${lituralia.search.index.enabled:true}") boolean enabled,
+                          @Value("${lituralia.search.index.file:${java.io.tmpdir}/lituralia/book-titles.idx}") String indexFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled      = enabled;
+        this.indexFile    = Paths.get(indexFile);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (enabled) {
+            executor.execute(this::load);
+            executor.scheduleWithFixedDelay(this::refreshIfChanged, 1, 1, TimeUnit.MINUTES);
+        } else {
+            firstLoad.countDown();
+        }
+    }
+
+    @Override
+    public void stop() {
+        close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for the first load or build to finish, and tells whether it left the index ready.
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        firstLoad.await(timeout, unit);
+        return isReady();
+    }
+
+    /**
+     * Ids, ascending, of the books whose title contains {@code term} ignoring case. Only valid when {@link #isReady()}.
+     */
+    public int[] search(String term) {
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                throw new IllegalStateException("Book title index is not ready");
+            }
+            return index.search(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled || event.getType() != Type.BOOK || event.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                apply(event);
+            }
+            // the load or build may have read the row before the change: replayed on top of it
+            if (index == null || building) {
+                pending.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        if (event.getType() == Type.BOOK && event.getRows() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the index with one built from the database, for changes that bypass the services.
+     */
+    public void rebuild() {
+        if (enabled) {
+            executor.execute(this::build);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        boolean wasRunning = running;
+        running = false;
+        executor.shutdownNow();
+        if (wasRunning) {
+            persistIfDirty();
+        }
+    }
+
+    /**
+     * Hash of one title, the same as the {@code lituralia.title_hash} database function: the first four bytes of the
+     * MD5 of {@code bookId:title}, a missing title taken as empty.
+     */
+    public static int titleHash(int bookId, String title) {
+        try {
+            byte[] text = (bookId + ":" + (title == null ? "" : title)).getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.wrap(MessageDigest.getInstance("MD5").digest(text)).getInt();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // -------- Internals
+
+    void load() {
+        try {
+            setBuilding(true);
+            Fingerprint fingerprint = fingerprint();
+            TrigramIndex loaded = TrigramIndex.readFrom(indexFile, fingerprint.value());
+            if (loaded == null) {
+                build();
+                return;
+            }
+            install(loaded, fingerprint);
+            log.info("Book title index loaded from {}: {} titles", indexFile, loaded.size());
+        } catch (Exception e) {
+            log.warn("Book title index file unusable, rebuilding", e);
+            build();
+        } finally {
+            firstLoad.countDown();
+        }
+    }
+
+    private void build() {
+        try {
+            setBuilding(true);
+            long start = System.currentTimeMillis();
+            Fingerprint before = fingerprint();
+            List<Integer> ids = new ArrayList<>();
+            List<String> titles = new ArrayList<>();
+            jdbcTemplate.query(TITLES_QUERY, rs -> {
+                ids.add(rs.getInt(1));
+                titles.add(rs.getString(2));
+            });
+            // a write committed while reading leaves titles from both sides of it: not a snapshot worth keeping
+            Fingerprint fingerprint = before.equals(fingerprint()) ? before : null;
+            TrigramIndex built = TrigramIndex.build(ids.stream().mapToInt(Integer::intValue).toArray(),
+                                                    titles.toArray(new String[0]),
+                                                    Runtime.getRuntime().availableProcessors());
+            if (fingerprint != null) {
+                built.writeTo(indexFile, fingerprint.value());
+            }
+            install(built, fingerprint);
+            log.info("Book title index built: {} titles in {} ms", built.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Book title index build failed, searches stay on the database", e);
+            setBuilding(false);
+        }
+    }
+
+    void refreshIfChanged() {
+        try {
+            // a change committed around the query may not be applied yet: only a difference that lasts counts
+            if (!matches(fingerprint()) && !matches(fingerprint())) {
+                build();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not check the book title index fingerprint", e);
+        }
+    }
+
+    private boolean matches(Fingerprint fingerprint) {
+        lock.readLock().lock();
+        try {
+            return index != null && fingerprint.equals(indexedFingerprint);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void install(TrigramIndex built, Fingerprint fingerprint) {
+        lock.writeLock().lock();
+        try {
+            index              = built;
+            building           = false;
+            indexedFingerprint = fingerprint;
+            dirty              = false;
+            pending.forEach(this::apply);
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void persistIfDirty() {
+        lock.writeLock().lock();
+        try {
+            if (index != null && indexedFingerprint != null && dirty && !building) {
+                index.writeTo(indexFile, indexedFingerprint.value());
+                dirty = false;
+            }
+        } catch (Exception e) {
+            log.warn("Could not write the book title index file", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setBuilding(boolean value) {
+        lock.writeLock().lock();
+        try {
+            building = value;
+            if (!value && index != null) {
+                pending.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a change to the index and to its fingerprint. Replaying a change the index already holds leaves both as
+     * they are.
+     */
+    private void apply(CatalogChangedEvent event) {
+        int id = event.getId();
+        String previous = index.text(id);
+        Fingerprint fingerprint = indexedFingerprint;
+        if (previous != null && fingerprint != null) {
+            fingerprint = fingerprint.minus(titleHash(id, previous));
+        }
+        if (event.getChange() == Change.DELETED) {
+            index.remove(id);
+        } else {
+            index.put(id, event.getName());
+            if (fingerprint != null) {
+                fingerprint = fingerprint.plus(titleHash(id, event.getName()));
+            }
+        }
+        indexedFingerprint = fingerprint;
+        dirty              = true;
+    }
+
+    private Fingerprint fingerprint() {
+        return jdbcTemplate.queryForObject(FINGERPRINT_QUERY,
+                                           (rs, row) -> new Fingerprint(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Number of titles and sum of their hashes.
+     */
+    @EqualsAndHashCode
+    static final class Fingerprint {
+
+        private final long count;
+        private final long hashSum;
+
+        Fingerprint(long count, long hashSum) {
+            this.count   = count;
+            this.hashSum = hashSum;
+        }
+
+        Fingerprint plus(int titleHash) {
+            return new Fingerprint(count + 1, hashSum + titleHash);
+        }
+
+        Fingerprint minus(int titleHash) {
+            return new Fingerprint(count - 1, hashSum - titleHash);
+        }
+
+        long value() {
+            return count * 31 + hashSum;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.campusdual.lituraliaopen.search;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Change;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.event.CatalogImportedEvent;
+import com.campusdual.lituraliaopen.search.PrefixIndex.Suggestion;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps a {@link PrefixIndex} over the names of books, authors, genres and publishers for the typeahead.
+ * <p>
+ * Built in the background once the application is ready; until then {@link #isReady()} is false and callers keep
+ * using the database. Changes published by the services are applied as they commit, bulk imports rebuild it.
+ */
+@Component
+public class CatalogSuggestions {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSuggestions.class);
+
+    static final Map<Type, String> NAMES_QUERIES = new EnumMap<>(Type.class);
+
+    static {
+        NAMES_QUERIES.put(Type.BOOK, "SELECT book_id, title FROM lituralia.books");
+        NAMES_QUERIES.put(Type.AUTHOR, "SELECT author_id, author_name FROM lituralia.authors");
+        NAMES_QUERIES.put(Type.GENRE, "SELECT genre_id, genre_name FROM lituralia.genres");
+        NAMES_QUERIES.put(Type.PUBLISHER, "SELECT publisher_id, publisher_name FROM lituralia.publishers");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<CatalogChangedEvent> pending = new ArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-suggestions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PrefixIndex index;
+    private boolean building;
+
+    public CatalogSuggestions(JdbcTemplate jdbcTemplate,
+                              @Value("${lituralia.suggest.index.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled      = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Names of the given types matching {@code query}, best first. Only valid when {@link #isReady()}.
+     */
+    public List<Suggestion> suggest(String query, Set<Type> types, int limit) {
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                throw new IllegalStateException("Catalog suggestions are not ready");
+            }
+            return index.suggest(query, types, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled || event.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                apply(event);
+            }
+            // the build may have read the row before the change: replayed on top of it
+            if (building) {
+                pending.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        if (event.getRows() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the index with one built from the database, for changes that bypass the services.
+     */
+    public void rebuild() {
+        if (enabled) {
+            executor.execute(this::build);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    // -------- Internals
+
+    private void build() {
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                building = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            PrefixIndex built = new PrefixIndex();
+            NAMES_QUERIES.forEach((type, sql) -> jdbcTemplate.query(sql, rs -> {
+                built.put(type, rs.getInt(1), rs.getString(2));
+            }));
+            lock.writeLock().lock();
+            try {
+                index    = built;
+                building = false;
+                pending.forEach(this::apply);
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Catalog suggestions built: {} names in {} ms", built.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Catalog suggestions build failed, suggestions stay on the database", e);
+            lock.writeLock().lock();
+            try {
+                building = false;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void apply(CatalogChangedEvent event) {
+        if (event.getChange() == Change.DELETED) {
+            index.remove(event.getType(), event.getId());
+        } else {
+            index.put(event.getType(), event.getId(), event.getName());
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package com.campusdual.lituraliaopen.search;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Word tries over catalog names answering typeahead queries: every word of the query must start a word of the name,
+ * ignoring case and accents, so {@code "gar mar"} finds <i>Gabriel García Márquez</i>.
+ * <p>
+ * There is one trie per {@link Type}, so a lookup for genres only ever sees genres, however many books share the
+ * prefix. Each node keeps how many names sit below it and, once looked up, the best of them, up to {@value #KEPT}. Writes
+ * merge into or drop from those lists along the path of the word, and a list is only computed again when removals
+ * leave it shorter than {@value #TOP} while more names sit below.
+ * <p>
+ * In the trie of each requested type, a lookup walks down the query word with the fewest names below it and checks
+ * the other words against those few, so it costs the length of the query rather than the size of the catalog. Only
+ * when the other words leave too few does it fall back to a walk of that subtree.
+ * <p>
+ * Ranking: names starting with the query first, then shorter names, then alphabetical.
+ * <p>
+ * Not thread safe for writes: {@link CatalogSuggestions} guards it with a read/write lock. Concurrent lookups may
+ * both compute a node's best names, which is harmless as they compute the same ones.
+ */
+public class PrefixIndex {
+
+    static final int TOP = 64;
+
+    /**
+     * Best postings a node keeps, so that removing some of them rarely leaves it with fewer than {@link #TOP}.
+     */
+    static final int KEPT = TOP * 2;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Posting> RANK =
+        Comparator.<Posting>comparingInt(posting -> posting.leading ? 0 : 1)
+                  .thenComparingInt(posting -> posting.entry.folded.length())
+                  .thenComparing(posting -> posting.entry.folded)
+                  .thenComparing(posting -> posting.entry.type)
+                  .thenComparingInt(posting -> posting.entry.id);
+
+    private final Map<Type, Node> roots = new EnumMap<>(Type.class);
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public PrefixIndex() {
+        for (Type type : Type.values()) {
+            roots.put(type, new Node());
+        }
+    }
+
+    /**
+     * Lower case, without diacritics, so {@code "García"} and {@code "garcia"} fold to the same text.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static String[] words(String folded) {
+        String trimmed = NON_WORD.matcher(folded).replaceAll(" ").trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" ");
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void put(Type type, int id, String text) {
+        remove(type, id);
+        String folded = fold(text);
+        String[] words = words(folded);
+        if (words.length == 0) {
+            return;
+        }
+        Entry entry = new Entry(type, id, text, folded, words);
+        entries.put(key(type, id), entry);
+        for (int i = 0; i < words.length; i++) {
+            insert(roots.get(type), words[i], new Posting(entry, i == 0));
+        }
+    }
+
+    public void remove(Type type, int id) {
+        Entry entry = entries.remove(key(type, id));
+        if (entry == null) {
+            return;
+        }
+        for (int i = 0; i < entry.words.length; i++) {
+            delete(roots.get(type), entry.words[i], entry);
+        }
+    }
+
+    /**
+     * Up to {@code limit} names of the given types matching {@code query}, best first.
+     */
+    public List<Suggestion> suggest(String query, Set<Type> types, int limit) {
+        String[] queryWords = words(fold(query));
+        if (queryWords.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<Posting> found = new ArrayList<>();
+        for (Type type : types) {
+            found.addAll(suggest(roots.get(type), queryWords, limit));
+        }
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(found.size(), limit));
+        for (Posting posting : top(found, limit)) {
+            Entry entry = posting.entry;
+            suggestions.add(new Suggestion(entry.type, entry.id, entry.text));
+        }
+        return suggestions;
+    }
+
+    // -------- Internals
+
+    private static long key(Type type, int id) {
+        return ((long) type.ordinal() << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The best {@code limit} names of one trie matching all the query words, one posting per name, best first.
+     */
+    private static List<Posting> suggest(Node root, String[] queryWords, int limit) {
+        Node narrowest = null;
+        for (String word : queryWords) {
+            Node node = find(root, word);
+            if (node == null) {
+                return new ArrayList<>();
+            }
+            if (narrowest == null || node.count < narrowest.count) {
+                narrowest = node;
+            }
+        }
+        List<Posting> found = collect(narrowest.best(), queryWords, limit);
+        if (found.size() < limit && narrowest.count > TOP) {
+            found = collect(walk(narrowest, queryWords, limit), queryWords, limit);
+        }
+        return found;
+    }
+
+    private static void insert(Node root, String word, Posting posting) {
+        Node node = root;
+        node.added(posting);
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrCreate(word.charAt(i));
+            node.added(posting);
+        }
+        node.postings.add(posting);
+    }
+
+    private static void delete(Node root, String word, Entry entry) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(word.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        // one posting per call: a name repeating a word has one per occurrence
+        Iterator<Posting> postings = path[word.length()].postings.iterator();
+        Posting removed = null;
+        while (postings.hasNext() && removed == null) {
+            Posting posting = postings.next();
+            if (posting.entry == entry) {
+                removed = posting;
+                postings.remove();
+            }
+        }
+        if (removed == null) {
+            return;
+        }
+        for (int i = word.length(); i >= 0; i--) {
+            path[i].removed(removed);
+            if (i > 0 && path[i].count == 0) {
+                path[i - 1].removeChild(word.charAt(i - 1));
+            }
+        }
+    }
+
+    private static Node find(Node root, String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * The best {@code limit} matching postings below {@code node}, filtering before ranking.
+     */
+    private static List<Posting> walk(Node node, String[] queryWords, int limit) {
+        Map<Entry, Posting> matching = new HashMap<>();
+        node.forEach(posting -> {
+            if (posting.entry.matches(queryWords)) {
+                matching.merge(posting.entry, posting, (a, b) -> RANK.compare(a, b) <= 0 ? a : b);
+            }
+        });
+        return top(matching.values(), limit);
+    }
+
+    /**
+     * The {@code size} best postings, best first, keeping no more than that many while scanning.
+     */
+    private static List<Posting> top(Iterable<Posting> postings, int size) {
+        // worst of the kept ones at the head, evicted when a better one comes
+        PriorityQueue<Posting> kept = new PriorityQueue<>(size + 1, RANK.reversed());
+        for (Posting posting : postings) {
+            kept.add(posting);
+            if (kept.size() > size) {
+                kept.poll();
+            }
+        }
+        Posting[] ranked = new Posting[kept.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = kept.poll();
+        }
+        return Arrays.asList(ranked);
+    }
+
+    /**
+     * The first posting of each name matching the query words, up to {@code limit} names, keeping the order.
+     */
+    private static List<Posting> collect(List<Posting> ranked, String[] queryWords, int limit) {
+        Set<Entry> seen = new HashSet<>();
+        List<Posting> found = new ArrayList<>();
+        for (int i = 0; i < ranked.size() && found.size() < limit; i++) {
+            Posting posting = ranked.get(i);
+            if (posting.entry.matches(queryWords) && seen.add(posting.entry)) {
+                found.add(posting);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A name found for a query.
+     */
+    public static final class Suggestion {
+
+        private final Type type;
+        private final int id;
+        private final String text;
+
+        Suggestion(Type type, int id, String text) {
+            this.type = type;
+            this.id   = id;
+            this.text = text;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private static final class Entry {
+
+        final Type type;
+        final int id;
+        final String text;
+        final String folded;
+        final String[] words;
+
+        Entry(Type type, int id, String text, String folded, String[] words) {
+            this.type   = type;
+            this.id     = id;
+            this.text   = text;
+            this.folded = folded;
+            this.words  = words;
+        }
+
+        boolean matches(String[] queryWords) {
+            for (String queryWord : queryWords) {
+                boolean found = false;
+                for (int i = 0; i < words.length && !found; i++) {
+                    found = words[i].startsWith(queryWord);
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A name under one of its words, leading when it is the first one.
+     */
+    private static final class Posting {
+
+        final Entry entry;
+        final boolean leading;
+
+        Posting(Entry entry, boolean leading) {
+            this.entry   = entry;
+            this.leading = leading;
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // children sorted by label, searched by bisection
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        final List<Posting> postings = new ArrayList<>(1);
+        int count;
+        volatile List<Posting> best;
+
+        Node child(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            return at >= 0 ? children[at] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at >= 0) {
+                return children[at];
+            }
+            int insertAt = -at - 1;
+            char[] grownLabels = new char[labels.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, grownLabels, 0, insertAt);
+            System.arraycopy(children, 0, grownChildren, 0, insertAt);
+            grownLabels[insertAt]   = label;
+            grownChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, grownLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, grownChildren, insertAt + 1, children.length - insertAt);
+            labels   = grownLabels;
+            children = grownChildren;
+            return children[insertAt];
+        }
+
+        void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            char[] shrunkLabels = new char[labels.length - 1];
+            Node[] shrunkChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, shrunkLabels, 0, at);
+            System.arraycopy(children, 0, shrunkChildren, 0, at);
+            System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, shrunkChildren, at, children.length - at - 1);
+            labels   = shrunkLabels;
+            children = shrunkChildren;
+        }
+
+        /**
+         * Counts a posting added below, and merges it into the best ones when it ranks among them.
+         */
+        void added(Posting posting) {
+            List<Posting> cached = best;
+            boolean complete = cached != null && cached.size() == count;
+            count++;
+            if (cached == null) {
+                return;
+            }
+            int at = Collections.binarySearch(cached, posting, RANK);
+            int insertAt = at >= 0 ? at : -at - 1;
+            if (insertAt >= KEPT || insertAt == cached.size() && !complete) {
+                // ranks below all the kept ones, but maybe not below the ones left out
+                return;
+            }
+            List<Posting> merged = new ArrayList<>(Math.min(cached.size() + 1, KEPT));
+            merged.addAll(cached.subList(0, insertAt));
+            merged.add(posting);
+            merged.addAll(cached.subList(insertAt, Math.min(cached.size(), KEPT - 1)));
+            best = merged;
+        }
+
+        /**
+         * Counts a posting removed from below, and drops it from the best ones.
+         */
+        void removed(Posting posting) {
+            count--;
+            List<Posting> cached = best;
+            if (cached == null) {
+                return;
+            }
+            for (int i = 0; i < cached.size(); i++) {
+                if (cached.get(i) == posting) {
+                    List<Posting> shrunk = new ArrayList<>(cached);
+                    shrunk.remove(i);
+                    best = shrunk;
+                    return;
+                }
+            }
+        }
+
+        void forEach(Consumer<Posting> action) {
+            postings.forEach(action);
+            for (Node child : children) {
+                child.forEach(action);
+            }
+        }
+
+        /**
+         * The best postings below this node, best first: at least {@value #TOP} of them, or all when there are fewer.
+         */
+        List<Posting> best() {
+            List<Posting> cached = best;
+            if (cached != null && (cached.size() >= TOP || cached.size() == count)) {
+                return cached;
+            }
+            List<Posting> postings = new ArrayList<>();
+            forEach(postings::add);
+            cached = top(postings, KEPT);
+            best   = cached;
+            return cached;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.campusdual.lituraliaopen.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted trigram index answering case insensitive substring queries, the same ones a
+ * {@code lower(column) like %term%} scan answers.
+ * <p>
+ * Every document is split into its overlapping three character windows and each window keeps the sorted ids of the
+ * documents containing it. A query intersects the posting lists of its own trigrams and then verifies the
+ * candidates against the stored text, so results are exact. Texts are kept as given and only normalized to match. Terms shorter than three characters fall back to a
+ * scan of the in-memory texts.
+ * <p>
+ * Not thread safe: {@link BookTitleIndex} guards it with a read/write lock.
+ */
+public class TrigramIndex {
+
+    private static final int MAGIC = 0x4C545849;
+    private static final int FORMAT_VERSION = 2;
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Integer, String> documents;
+    private final Map<Long, int[]> postings;
+
+    public TrigramIndex() {
+        this(new HashMap<>(), new HashMap<>());
+    }
+
+    private TrigramIndex(Map<Integer, String> documents, Map<Long, int[]> postings) {
+        this.documents = documents;
+        this.postings  = postings;
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds an index over {@code ids[i] -> texts[i]}, tokenizing slices of the input in parallel.
+     */
+    public static TrigramIndex build(int[] ids, String[] texts, int parallelism) {
+        int slices = Math.max(1, Math.min(parallelism, ids.length / 1024 + 1));
+        int sliceSize = (ids.length + slices - 1) / slices;
+        List<Map<Long, IntList>> partials = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            partials.add(null);
+        }
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            Map<Long, IntList> partial = new HashMap<>();
+            int to = Math.min(ids.length, (slice + 1) * sliceSize);
+            for (int i = slice * sliceSize; i < to; i++) {
+                for (long gram : trigrams(normalize(texts[i]))) {
+                    partial.computeIfAbsent(gram, g -> new IntList()).add(ids[i]);
+                }
+            }
+            partials.set(slice, partial);
+        });
+
+        Map<Long, IntList> merged = new HashMap<>();
+        for (Map<Long, IntList> partial : partials) {
+            partial.forEach((gram, list) -> merged.computeIfAbsent(gram, g -> new IntList()).addAll(list));
+        }
+        Map<Long, int[]> postings = new HashMap<>(merged.size() * 2);
+        merged.forEach((gram, list) -> postings.put(gram, list.toSortedDistinctArray()));
+
+        Map<Integer, String> documents = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            documents.put(ids[i], texts[i] == null ? "" : texts[i]);
+        }
+        return new TrigramIndex(documents, postings);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * The text indexed under {@code id}, as given, or {@code null}.
+     */
+    public String text(int id) {
+        return documents.get(id);
+    }
+
+    public void put(int id, String text) {
+        remove(id);
+        documents.put(id, text == null ? "" : text);
+        for (long gram : trigrams(normalize(text))) {
+            int[] ids = postings.getOrDefault(gram, NO_IDS);
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0) {
+                int insertAt = -at - 1;
+                int[] grown = new int[ids.length + 1];
+                System.arraycopy(ids, 0, grown, 0, insertAt);
+                grown[insertAt] = id;
+                System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+                postings.put(gram, grown);
+            }
+        }
+    }
+
+    public void remove(int id) {
+        String previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : trigrams(normalize(previous))) {
+            int[] ids = postings.get(gram);
+            int at = ids == null ? -1 : Arrays.binarySearch(ids, id);
+            if (at >= 0) {
+                if (ids.length == 1) {
+                    postings.remove(gram);
+                } else {
+                    int[] shrunk = new int[ids.length - 1];
+                    System.arraycopy(ids, 0, shrunk, 0, at);
+                    System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+                    postings.put(gram, shrunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns, in ascending order, the ids of every document containing {@code term}, ignoring case.
+     */
+    public int[] search(String term) {
+        String needle = normalize(term);
+        if (needle.length() < 3) {
+            return documents.entrySet().stream()
+                            .filter(document -> normalize(document.getValue()).contains(needle))
+                            .mapToInt(Map.Entry::getKey)
+                            .sorted()
+                            .toArray();
+        }
+        long[] grams = trigrams(needle);
+        int[][] lists = new int[grams.length][];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return NO_IDS;
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i]);
+        }
+        // trigrams only prove the windows exist somewhere in the text, not that they are contiguous
+        return Arrays.stream(candidates)
+                     .filter(id -> normalize(documents.get(id)).contains(needle))
+                     .toArray();
+    }
+
+    // -------- Persistence
+
+    public void writeTo(Path file, long fingerprint) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(documents.size());
+            for (Map.Entry<Integer, String> document : documents.entrySet()) {
+                byte[] text = document.getValue().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(document.getKey());
+                out.writeInt(text.length);
+                out.write(text);
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<Long, int[]> posting : postings.entrySet()) {
+                out.writeLong(posting.getKey());
+                out.writeInt(posting.getValue().length);
+                for (int id : posting.getValue()) {
+                    out.writeInt(id);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a file written by {@link #writeTo} and returns its index, or {@code null} when the file is missing, from
+     * another format version, or was written for a different catalog fingerprint.
+     */
+    public static TrigramIndex readFrom(Path file, long fingerprint) throws IOException {
+        if (!Files.isReadable(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getLong() != fingerprint) {
+                return null;
+            }
+            int documentCount = buffer.getInt();
+            Map<Integer, String> documents = new HashMap<>(documentCount * 2);
+            byte[] text = new byte[256];
+            for (int i = 0; i < documentCount; i++) {
+                int id = buffer.getInt();
+                int length = buffer.getInt();
+                if (text.length < length) {
+                    text = new byte[length];
+                }
+                buffer.get(text, 0, length);
+                documents.put(id, new String(text, 0, length, StandardCharsets.UTF_8));
+            }
+            int gramCount = buffer.getInt();
+            Map<Long, int[]> postings = new HashMap<>(gramCount * 2);
+            for (int i = 0; i < gramCount; i++) {
+                long gram = buffer.getLong();
+                int[] ids = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(ids);
+                ((Buffer) buffer).position(buffer.position() + ids.length * Integer.BYTES);
+                postings.put(gram, ids);
+            }
+            return new TrigramIndex(documents, postings);
+        }
+    }
+
+    // -------- Internals
+
+    static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        int[] toSortedDistinctArray() {
+            return Arrays.stream(values, 0, size).sorted().distinct().toArray();
+        }
+    }
+}
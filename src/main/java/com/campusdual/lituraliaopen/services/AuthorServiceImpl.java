@@ -1,48 +1,143 @@
 package com.campusdual.lituraliaopen.services;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CountedPage;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import com.campusdual.lituraliaopen.api.MergePatch;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
 import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.service.AuthorService;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Author;
-import com.campusdual.lituraliaopen.domain.Book;
 import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository.Link;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
-import java.util.stream.Collectors;
-import org.springframework.data.domain.Page;
+import com.campusdual.lituraliaopen.repositories.BookSpecifications;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
-import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class AuthorServiceImpl implements AuthorService {
 
+    /**
+     * Properties, besides the id, that cursor paginated listings can be sorted by.
+     */
+    static final List<String> KEYSET_SORTABLE = Arrays.asList("authorName", "authorBirth", "authorDeath");
+
+    /**
+     * What link and unlink calls answer with: the first page of books, as {@code GET /{id}/books} returns by default.
+     */
+    static final Pageable FIRST_BOOKS = PageRequest.of(0, 10, Sort.by("bookId"));
+
+    /**
+     * Entity attributes behind the {@link AuthorDTO} fields that are not attributes themselves.
+     */
+    static final Map<String, String> DERIVED_FIELDS =
+        Collections.singletonMap("authorPortraitUrl", "authorPortraitHash");
+
     private final AuthorMapper authorMapper;
     private final AuthorRepository authorRepository;
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
 
+    private final BookLinkRepository bookLinkRepository;
+
+    private final CatalogCache catalogCache;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BatchRunner batchRunner;
+
     public AuthorServiceImpl(AuthorRepository authorRepository, AuthorMapper authorMapper,
-                             BookRepository bookRepository, BookMapper bookMapper) {
-        this.authorMapper     = authorMapper;
-        this.authorRepository = authorRepository;
-        this.bookRepository   = bookRepository;
-        this.bookMapper       = bookMapper;
+                             BookRepository bookRepository, BookMapper bookMapper,
+                             CatalogCache catalogCache, BookLinkRepository bookLinkRepository,
+                             CatalogCounts catalogCounts, ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper, BatchRunner batchRunner) {
+        this.authorMapper       = authorMapper;
+        this.authorRepository   = authorRepository;
+        this.bookRepository     = bookRepository;
+        this.bookMapper         = bookMapper;
+        this.catalogCache       = catalogCache;
+        this.bookLinkRepository = bookLinkRepository;
+        this.catalogCounts      = catalogCounts;
+        this.eventPublisher     = eventPublisher;
+        this.objectMapper       = objectMapper;
+        this.batchRunner        = batchRunner;
     }
 
     @Override
-    public Page<AuthorDTO> getAllAuthors(Pageable pageable) {
-        return authorRepository.findAll(pageable)
+    public Slice<AuthorDTO> getAllAuthors(Pageable pageable, CountMode countMode, FieldSet fields) {
+        Slice<AuthorDTO> authors = findAuthors(null, pageable, fields).map(authorMapper::authorToAuthorDTO);
+        return CountedPage.of(authors, countMode,
+                              () -> catalogCounts.exact(Type.AUTHOR),
+                              () -> catalogCounts.estimate(Type.AUTHOR));
+    }
+
+    @Override
+    public Slice<AuthorDTO> searchAuthors(String searchTerm, Pageable pageable, CountMode countMode,
+                                          FieldSet fields) {
+        Slice<AuthorDTO> authors = findAuthors(searchTerm, pageable, fields).map(authorMapper::authorToAuthorDTO);
+        LongSupplier count = () -> authorRepository.countByAuthorNameContainingIgnoreCase(searchTerm);
+        return CountedPage.of(authors, countMode,
+                              () -> catalogCounts.exactSearch(Type.AUTHOR, searchTerm, count),
+                              () -> catalogCounts.estimateSearch(Type.AUTHOR, "author_name", searchTerm));
+    }
+
+    /**
+     * A slice of authors, those whose name contains {@code searchTerm} unless it is null, reading only the columns
+     * {@code fields} need.
+     */
+    private Slice<Author> findAuthors(String searchTerm, Pageable pageable, FieldSet fields) {
+        if (fields.isAll()) {
+            return searchTerm == null ?
+                   authorRepository.findAllBy(pageable) :
+                   authorRepository.findByAuthorNameContainingIgnoreCase(searchTerm, pageable);
+        }
+        Specification<Author> spec = searchTerm == null ?
+                                     null :
+                                     SearchSpecifications.containsIgnoreCase("authorName", searchTerm);
+        return authorRepository.findAllProjected(spec, pageable, fields.attributes("authorId", DERIVED_FIELDS));
+    }
+
+    @Override
+    public CursorSlice<AuthorDTO> getAllAuthors(String after, Pageable pageable) {
+        return authorRepository.findAllAfter(null, KeysetRequest.of(pageable, after, "authorId", KEYSET_SORTABLE))
                                .map(authorMapper::authorToAuthorDTO);
     }
 
     @Override
-    public Page<AuthorDTO> searchAuthors(String searchTerm, Pageable pageable) throws ResourceNotFoundException {
-        return authorRepository.findByAuthorNameContainingIgnoreCase(searchTerm, pageable)
+    public CursorSlice<AuthorDTO> searchAuthors(String searchTerm, String after, Pageable pageable) {
+        return authorRepository.findAllAfter(SearchSpecifications.containsIgnoreCase("authorName", searchTerm),
+                                             KeysetRequest.of(pageable, after, "authorId", KEYSET_SORTABLE))
                                .map(authorMapper::authorToAuthorDTO);
     }
 
@@ -54,69 +149,202 @@ public class AuthorServiceImpl implements AuthorService {
     }
 
     @Override
+    public Long getAuthorVersion(Integer author_id) throws ResourceNotFoundException {
+        return authorRepository.findVersionByAuthorId(author_id)
+                               .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public AuthorDTO createAuthor(AuthorDTO authorDto) {
-        Author entity = authorRepository.save(authorMapper.authorDTOToAuthor(authorDto));
-        return authorMapper.authorToAuthorDTO(entity);
+        return authorMapper.authorToAuthorDTO(insertAuthor(authorDto));
     }
 
     @Override
+    @Transactional
     public AuthorDTO updateAuthor(Integer author_id, AuthorDTO authorDto) {
-        Author author = authorMapper.authorDTOToAuthor(authorDto);
-        author.setAuthorId(author_id);
-        Author entity = authorRepository.save(author);
+        Author entity = authorRepository.saveAndFlush(modifyAuthor(author_id, authorDto));
         return authorMapper.authorToAuthorDTO(entity);
     }
 
     @Override
+    @Transactional
     public AuthorDTO updateAuthor(AuthorDTO authorDto) {
         return updateAuthor(authorDto.getAuthorId(), authorDto);
     }
 
+    /**
+     * Applies a merge patch to the loaded author. Only the columns it changes are updated, the associations are left
+     * alone, and {@code version}, or else a version in the patch, must be the current one.
+     */
     @Override
+    @Transactional
+    public AuthorDTO patchAuthor(Integer authorId, JsonNode patch, Long version) throws ResourceNotFoundException {
+        Author author = authorRepository.findById(authorId)
+                                        .orElseThrow(ResourceNotFoundException::new);
+        AuthorDTO authorDto = MergePatch.apply(objectMapper, authorMapper.authorToAuthorDTO(author), patch);
+        Versions.check(Author.class, authorId, author.getVersion(), version != null ? version : authorDto.getVersion());
+        authorMapper.updateAuthorFromAuthorDTO(authorDto, author);
+        Author entity = authorRepository.saveAndFlush(author);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.AUTHOR, entity.getAuthorId(),
+                                                                entity.getAuthorName()));
+        return authorMapper.authorToAuthorDTO(entity);
+    }
+
+    @Override
+    @Transactional
     public void deleteAuthorById(Integer author_id) throws ResourceNotFoundException {
         authorRepository.deleteById(author_id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.AUTHOR, author_id));
+        // cached Book.authors collections may still list the deleted author
+        catalogCache.evictNowAndAfterCommit(catalogCache::evictBookAuthors);
+    }
+
+    // -------- Batches
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<AuthorDTO> createAuthors(List<AuthorDTO> authorDtos) {
+        return batchRunner.run(authorDtos, HttpStatus.CREATED, null, this::insertAuthor,
+                               authorMapper::authorToAuthorDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<AuthorDTO> updateAuthors(List<AuthorDTO> authorDtos) {
+        return batchRunner.run(authorDtos, HttpStatus.OK,
+                               chunk -> authorRepository.findAllById(BatchRunner.ids(chunk, AuthorDTO::getAuthorId)),
+                               authorDto -> modifyAuthor(BatchRunner.requireId(authorDto.getAuthorId()), authorDto),
+                               authorMapper::authorToAuthorDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<Integer> deleteAuthors(List<Integer> authorIds) {
+        BatchResult<Integer> result =
+            batchRunner.run(authorIds, HttpStatus.OK,
+                            chunk -> authorRepository.findAllById(BatchRunner.ids(chunk, id -> id)),
+                            this::removeAuthor, Author::getAuthorId);
+        if (result.getSucceeded() > 0) {
+            catalogCache.evictBookAuthors();
+        }
+        return result;
+    }
+
+    private Author insertAuthor(AuthorDTO authorDto) {
+        Author author = authorMapper.authorDTOToAuthor(authorDto);
+        // POST always creates; a stray id would turn persist into a detached entity error
+        author.setAuthorId(null);
+        Author entity = authorRepository.save(author);
+        eventPublisher.publishEvent(CatalogChangedEvent.created(Type.AUTHOR, entity.getAuthorId(),
+                                                                entity.getAuthorName()));
+        return entity;
+    }
+
+    /**
+     * Applies an update to the loaded author, leaving the flush to the caller.
+     */
+    private Author modifyAuthor(Integer author_id, AuthorDTO authorDto) {
+        Author author = authorRepository.findById(author_id)
+                                        .orElseThrow(ResourceNotFoundException::new);
+        Versions.check(Author.class, author_id, author.getVersion(), authorDto.getVersion());
+        authorMapper.updateAuthorFromAuthorDTO(authorDto, author);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.AUTHOR, author.getAuthorId(),
+                                                                author.getAuthorName()));
+        return author;
+    }
+
+    private Author removeAuthor(Integer authorId) {
+        Author author = authorRepository.findById(BatchRunner.requireId(authorId))
+                                        .orElseThrow(ResourceNotFoundException::new);
+        authorRepository.delete(author);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.AUTHOR, authorId));
+        return author;
+    }
+
+    // -------- Author's Portrait
+
+    @Override
+    public String getAuthorPortraitHash(Integer authorId) throws ResourceNotFoundException {
+        return authorRepository.findAuthorPortraitHashByAuthorId(authorId)
+                               .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
+    public AuthorDTO setAuthorPortrait(Integer authorId, String portraitHash) throws ResourceNotFoundException {
+        if (authorRepository.updateAuthorPortraitHash(authorId, portraitHash) == 0) {
+            throw new ResourceNotFoundException();
+        }
+        return getAuthorById(authorId);
     }
 
     // -------- Author's Books
 
     @Override
-    public Slice<BookDTO> getAuthorBooks(Integer authorId) throws ResourceNotFoundException {
-        return new SliceImpl<>(authorRepository.findById(authorId)
-                                               .map(author -> {
-                                                   return author.getBooks().stream()
-                                                                .map(bookMapper::bookToBookDTO)
-                                                                .collect(Collectors.toList());
-                                               })
-                                               .orElseThrow(ResourceNotFoundException::new));
+    public Slice<BookDTO> getAuthorBooks(Integer authorId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException {
+        requireAuthor(authorId);
+        Slice<BookDTO> books = bookRepository.findByAuthorId(authorId, pageable)
+                                             .map(bookMapper::bookToBookDTO);
+        if (countMode == CountMode.NONE) {
+            return books;
+        }
+        long total = catalogCache.countBooks("author", authorId, () -> bookRepository.countByAuthorId(authorId));
+        return new PageImpl<>(books.getContent(), pageable, total);
+    }
+
+    @Override
+    public CursorSlice<BookDTO> getAuthorBooks(Integer authorId, String after, Pageable pageable)
+        throws ResourceNotFoundException {
+        requireAuthor(authorId);
+        return bookRepository.findAllAfter(BookSpecifications.byAuthor(authorId),
+                                           KeysetRequest.of(pageable, after, "bookId", BookServiceImpl.KEYSET_SORTABLE))
+                             .map(bookMapper::bookToBookDTO);
+    }
+
+    private void requireAuthor(Integer authorId) throws ResourceNotFoundException {
+        if (!authorRepository.existsById(authorId)) {
+            throw new ResourceNotFoundException();
+        }
     }
 
     @Override
+    public String getAuthorBooksVersion(Integer authorId) throws ResourceNotFoundException {
+        return authorRepository.findBooksVersionByAuthorId(authorId)
+                               .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public Slice<BookDTO> setAuthorBook(Integer authorId, Integer bookId) throws ResourceNotFoundException {
-        return new SliceImpl<>(authorRepository.findById(authorId)
-                                               .map(author -> {
-                                                   Book book = bookRepository.findById(bookId)
-                                                                             .orElseThrow(ResourceNotFoundException::new);
-                                                   book.getAuthors().add(author);
-                                                   bookRepository.saveAndFlush(book);//TODO: check if added book ins in returned slice
-                                                   return author.getBooks().stream()
-                                                                .map(bookMapper::bookToBookDTO)
-                                                                .collect(Collectors.toList());
-                                               })
-                                               .orElseThrow(ResourceNotFoundException::new));
+        return addAuthorBooks(authorId, Collections.singletonList(bookId));
     }
 
     @Override
+    @Transactional
     public Slice<BookDTO> deleteAuthorBook(Integer authorId, Integer bookId) throws ResourceNotFoundException {
-        return new SliceImpl<>(authorRepository.findById(authorId)
-                                               .map(author -> {
-                                                   Book book = bookRepository.findById(bookId)
-                                                                             .orElseThrow(ResourceNotFoundException::new);
-                                                   book.getAuthors().remove(author);
-                                                   bookRepository.saveAndFlush(book);
-                                                   return author.getBooks().stream()
-                                                                .map(bookMapper::bookToBookDTO)
-                                                                .collect(Collectors.toList());
-                                               })
-                                               .orElseThrow(ResourceNotFoundException::new));
+        return deleteAuthorBooks(authorId, Collections.singletonList(bookId));
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> addAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.link(Link.AUTHORS, bookIds, Collections.singleton(authorId));
+        return getAuthorBooks(authorId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> setAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.replaceBooks(Link.AUTHORS, authorId, bookIds);
+        return getAuthorBooks(authorId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> deleteAuthorBooks(Integer authorId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.unlink(Link.AUTHORS, bookIds, Collections.singleton(authorId));
+        return getAuthorBooks(authorId, FIRST_BOOKS, CountMode.NONE);
     }
 }
@@ -0,0 +1,182 @@
+package com.campusdual.lituraliaopen.services;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.BatchResult.Item;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the items of a batch request in chunks of {@code lituralia.batch.chunk-size}, one transaction per chunk,
+ * flushing once per chunk so Hibernate sends its INSERTs, UPDATEs and DELETEs as JDBC batches.
+ * <p>
+ * An item rejected before the flush (not found, stale version, bad input) fails alone and the rest of its chunk goes
+ * on. When the flush or the commit of a chunk fails the chunk is rolled back and its items run again one per
+ * transaction, so only the offending ones fail.
+ */
+@Component
+public class BatchRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public BatchRunner(EntityManager entityManager, PlatformTransactionManager transactionManager,
+                       @Value("${lituralia.batch.chunk-size:50}") int chunkSize,
+                       @Value("${lituralia.batch.max-items:1000}") int maxItems) {
+        this.entityManager = entityManager;
+        this.transaction   = new TransactionTemplate(transactionManager);
+        this.chunkSize     = Math.max(1, chunkSize);
+        this.maxItems      = maxItems;
+    }
+
+    /**
+     * Applies {@code operation} to every item and reports each one.
+     *
+     * @param success   status of the items that succeed
+     * @param prefetch  loads what the operations of a chunk will look up, in one query; may be null
+     * @param operation changes the persistence context for one item, returning the entity it touched
+     * @param result    what a successful item reports, from its entity once flushed
+     */
+    public <I, E, R> BatchResult<R> run(List<I> items, HttpStatus success, Consumer<List<I>> prefetch,
+                                        Function<I, E> operation, Function<E, R> result) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("A batch needs at least one item");
+        }
+        if (items.size() > maxItems) {
+            throw new BadRequestException("A batch takes at most " + maxItems + " items");
+        }
+        Chunks<I, E, R> chunks = new Chunks<>(items, success, prefetch, operation, result);
+        List<Item<R>> outcomes = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            outcomes.addAll(chunks.run(from, Math.min(items.size(), from + chunkSize)));
+        }
+        return new BatchResult<>(outcomes);
+    }
+
+    /**
+     * The ids of the items that have one, for a prefetch.
+     */
+    static <I> List<Integer> ids(List<I> items, Function<I, Integer> id) {
+        return items.stream()
+                    .map(id)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * The id an update or delete item must carry.
+     */
+    static Integer requireId(Integer id) {
+        if (id == null) {
+            throw new BadRequestException("Missing id");
+        }
+        return id;
+    }
+
+    // -------- Internals
+
+    private final class Chunks<I, E, R> {
+
+        final List<I> items;
+        final HttpStatus success;
+        final Consumer<List<I>> prefetch;
+        final Function<I, E> operation;
+        final Function<E, R> result;
+
+        Chunks(List<I> items, HttpStatus success, Consumer<List<I>> prefetch, Function<I, E> operation,
+               Function<E, R> result) {
+            this.items     = items;
+            this.success   = success;
+            this.prefetch  = prefetch;
+            this.operation = operation;
+            this.result    = result;
+        }
+
+        List<Item<R>> run(int from, int to) {
+            try {
+                return transaction.execute(status -> attempt(from, to));
+            } catch (RuntimeException e) {
+                if (to - from == 1) {
+                    return Collections.singletonList(failure(from, e));
+                }
+                log.debug("Batch items {} to {} failed together, running them one by one", from, to - 1, e);
+                List<Item<R>> outcomes = new ArrayList<>(to - from);
+                for (int index = from; index < to; index++) {
+                    outcomes.addAll(run(index, index + 1));
+                }
+                return outcomes;
+            }
+        }
+
+        private List<Item<R>> attempt(int from, int to) {
+            List<I> chunk = items.subList(from, to);
+            if (prefetch != null) {
+                prefetch.accept(chunk);
+            }
+            List<E> entities = new ArrayList<>(chunk.size());
+            List<Item<R>> failures = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                E entity = null;
+                Item<R> failure = null;
+                try {
+                    entity = operation.apply(chunk.get(i));
+                } catch (ResourceNotFoundException | BadRequestException | ObjectOptimisticLockingFailureException e) {
+                    failure = failure(from + i, e);
+                }
+                entities.add(entity);
+                failures.add(failure);
+            }
+            entityManager.flush();
+            List<Item<R>> outcomes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                outcomes.add(failures.get(i) != null ?
+                             failures.get(i) :
+                             Item.success(from + i, success.value(), result.apply(entities.get(i))));
+            }
+            return outcomes;
+        }
+    }
+
+    private static <R> Item<R> failure(int index, RuntimeException e) {
+        if (e instanceof ResourceNotFoundException) {
+            return Item.failure(index, HttpStatus.NOT_FOUND.value(), "Resource Not Found");
+        }
+        if (e instanceof BadRequestException) {
+            return Item.failure(index, HttpStatus.BAD_REQUEST.value(), e.getMessage());
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ObjectOptimisticLockingFailureException || cause instanceof OptimisticLockException
+                || cause instanceof StaleStateException) {
+                return Item.failure(index, HttpStatus.CONFLICT.value(), "Resource was modified concurrently");
+            }
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return Item.failure(index, HttpStatus.CONFLICT.value(), "Conflicts with the stored data");
+            }
+        }
+        log.warn("Batch item {} failed", index, e);
+        return Item.failure(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal error");
+    }
+}
@@ -1,33 +1,80 @@
 package com.campusdual.lituraliaopen.services;
 
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CountedPage;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.KeysetCursor;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import com.campusdual.lituraliaopen.api.MergePatch;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
 import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
 import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
 import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Author;
 import com.campusdual.lituraliaopen.domain.Book;
-import com.campusdual.lituraliaopen.domain.Genre;
 import com.campusdual.lituraliaopen.domain.Publisher;
 import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository.Link;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
 import com.campusdual.lituraliaopen.repositories.GenreRepository;
 import com.campusdual.lituraliaopen.repositories.PublisherRepository;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class BookServiceImpl implements BookService {
 
+    /**
+     * Above this many matches a sorted page is cheaper to get from the LIKE query than from an id list.
+     */
+    static final int MAX_INDEXED_SORT_IDS = 10_000;
+
+    /**
+     * Properties, besides the id, that cursor paginated listings can be sorted by.
+     */
+    static final List<String> KEYSET_SORTABLE = Arrays.asList("title", "isbn", "publishDate");
+
+    /**
+     * Entity attributes behind the {@link BookDTO} fields that are not attributes themselves.
+     */
+    static final Map<String, String> DERIVED_FIELDS = Collections.singletonMap("coverUrl", "coverHash");
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
@@ -41,11 +88,22 @@ public class BookServiceImpl implements BookService {
     private final AuthorRepository authorRepository;
     private final AuthorMapper authorMapper;
 
+    private final BookLinkRepository bookLinkRepository;
+
+    private final BookTitleIndex bookTitleIndex;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BatchRunner batchRunner;
 
     public BookServiceImpl(BookRepository bookRepository, BookMapper bookMapper,
                            PublisherRepository publisherRepository, PublisherMapper publisherMapper,
                            GenreRepository genreRepository, GenreMapper genreMapper,
-                           AuthorRepository authorRepository, AuthorMapper authorMapper) {
+                           AuthorRepository authorRepository, AuthorMapper authorMapper,
+                           BookLinkRepository bookLinkRepository,
+                           BookTitleIndex bookTitleIndex, CatalogCounts catalogCounts,
+                           ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                           BatchRunner batchRunner) {
         this.bookRepository      = bookRepository;
         this.publisherRepository = publisherRepository;
         this.bookMapper          = bookMapper;
@@ -54,21 +112,160 @@ public class BookServiceImpl implements BookService {
         this.genreMapper         = genreMapper;
         this.authorRepository    = authorRepository;
         this.authorMapper        = authorMapper;
+        this.bookLinkRepository  = bookLinkRepository;
+        this.bookTitleIndex      = bookTitleIndex;
+        this.catalogCounts       = catalogCounts;
+        this.eventPublisher      = eventPublisher;
+        this.objectMapper        = objectMapper;
+        this.batchRunner         = batchRunner;
     }
 
 
     @Override
-    public Page<BookDTO> getAllBooks(Pageable pageable) {
-        return bookRepository.findAll(pageable)
+    public Slice<BookDTO> getAllBooks(Pageable pageable, CountMode countMode, FieldSet fields) {
+        Slice<BookDTO> books = findBooks(null, pageable, fields).map(bookMapper::bookToBookDTO);
+        return CountedPage.of(books, countMode,
+                              () -> catalogCounts.exact(Type.BOOK),
+                              () -> catalogCounts.estimate(Type.BOOK));
+    }
+
+    @Override
+    public Slice<BookDTO> searchBooks(String searchTerm, Pageable pageable, CountMode countMode, FieldSet fields) {
+        if (!bookTitleIndex.isReady()) {
+            return searchBooksByTitle(searchTerm, pageable, countMode, fields);
+        }
+        int[] ids = bookTitleIndex.search(searchTerm);
+        List<Book> books;
+        if (ids.length == 0 || (pageable.isPaged() && pageable.getOffset() >= ids.length)) {
+            books = Collections.emptyList();
+        } else if (isSortedByBookId(pageable.getSort())) {
+            books = findPageOfIds(ids, pageable);
+        } else if (ids.length <= MAX_INDEXED_SORT_IDS) {
+            books = bookRepository.findByBookIdIn(Arrays.stream(ids).boxed().collect(Collectors.toList()), pageable);
+        } else {
+            return searchBooksByTitle(searchTerm, pageable, countMode, fields);
+        }
+        List<BookDTO> content = books.stream()
+                                     .map(bookMapper::bookToBookDTO)
+                                     .collect(Collectors.toList());
+        // the index already knows every match: its total is exact and free
+        if (countMode == CountMode.NONE) {
+            boolean hasNext = pageable.isPaged() && pageable.getOffset() + content.size() < ids.length;
+            return new SliceImpl<>(content, pageable, hasNext);
+        }
+        return new CountedPage<>(content, pageable, ids.length, true);
+    }
+
+    private Slice<BookDTO> searchBooksByTitle(String searchTerm, Pageable pageable, CountMode countMode,
+                                              FieldSet fields) {
+        Slice<BookDTO> books = findBooks(searchTerm, pageable, fields).map(bookMapper::bookToBookDTO);
+        LongSupplier count = () -> bookRepository.countByTitleContainingIgnoreCase(searchTerm);
+        return CountedPage.of(books, countMode,
+                              () -> catalogCounts.exactSearch(Type.BOOK, searchTerm, count),
+                              () -> catalogCounts.estimateSearch(Type.BOOK, "title", searchTerm));
+    }
+
+    /**
+     * A slice of books, those whose title contains {@code searchTerm} unless it is null, reading only the columns
+     * {@code fields} need.
+     */
+    private Slice<Book> findBooks(String searchTerm, Pageable pageable, FieldSet fields) {
+        if (fields.isAll()) {
+            return searchTerm == null ?
+                   bookRepository.findAllBy(pageable) :
+                   bookRepository.findByTitleContainingIgnoreCase(searchTerm, pageable);
+        }
+        Specification<Book> spec = searchTerm == null ?
+                                   null :
+                                   SearchSpecifications.containsIgnoreCase("title", searchTerm);
+        return bookRepository.findAllProjected(spec, pageable, fields.attributes("bookId", DERIVED_FIELDS));
+    }
+
+    @Override
+    public CursorSlice<BookDTO> getAllBooks(String after, Pageable pageable) {
+        return bookRepository.findAllAfter(null, KeysetRequest.of(pageable, after, "bookId", KEYSET_SORTABLE))
                              .map(bookMapper::bookToBookDTO);
     }
 
     @Override
-    public Page<BookDTO> searchBooks(String searchTerm, Pageable pageable) throws ResourceNotFoundException {
-        return bookRepository.findByTitleContainingIgnoreCase(searchTerm, pageable)
+    public CursorSlice<BookDTO> searchBooks(String searchTerm, String after, Pageable pageable) {
+        KeysetRequest request = KeysetRequest.of(pageable, after, "bookId", KEYSET_SORTABLE);
+        if (bookTitleIndex.isReady() && request.getOrder().getProperty().equals("bookId")) {
+            return seekIndexedIds(bookTitleIndex.search(searchTerm), request)
+                .map(bookMapper::bookToBookDTO);
+        }
+        return bookRepository.findAllAfter(SearchSpecifications.containsIgnoreCase("title", searchTerm), request)
                              .map(bookMapper::bookToBookDTO);
     }
 
+    /**
+     * Keyset slice over the ascending ids matched by the title index, seeking with a binary search.
+     */
+    private CursorSlice<Book> seekIndexedIds(int[] ids, KeysetRequest request) {
+        boolean descending = request.getOrder().isDescending();
+        int start = 0;
+        if (request.getAfter() != null) {
+            int lastId;
+            try {
+                lastId = Integer.parseInt(request.getAfter().getId());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Malformed cursor");
+            }
+            int at = Arrays.binarySearch(ids, lastId);
+            int insertAt = at >= 0 ? at : -at - 1;
+            // ascending continues after lastId, descending continues below it
+            start = descending ? ids.length - insertAt : (at >= 0 ? at + 1 : insertAt);
+        }
+        int end = Math.min(ids.length, start + request.getSize());
+        List<Integer> sliceIds = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            sliceIds.add(descending ? ids[ids.length - 1 - i] : ids[i]);
+        }
+        boolean hasNext = end < ids.length;
+        String nextCursor = hasNext ?
+                            KeysetCursor.builder()
+                                        .property("bookId")
+                                        .direction(request.getOrder().getDirection())
+                                        .id(String.valueOf(sliceIds.get(sliceIds.size() - 1)))
+                                        .build()
+                                        .encode() :
+                            null;
+        return new CursorSlice<>(findAllInOrder(sliceIds), PageRequest.of(0, request.getSize(), request.getSort()),
+                                 hasNext, nextCursor);
+    }
+
+    private static boolean isSortedByBookId(Sort sort) {
+        return sort.isUnsorted()
+               || sort.stream().allMatch(order -> order.getProperty().equals("bookId"));
+    }
+
+    /**
+     * Cuts the page straight out of the ascending id list and loads just those rows.
+     */
+    private List<Book> findPageOfIds(int[] ids, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("bookId");
+        boolean descending = order != null && order.isDescending();
+        int from = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        int to = pageable.isPaged() ? Math.min(ids.length, from + pageable.getPageSize()) : ids.length;
+        List<Integer> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(descending ? ids[ids.length - 1 - i] : ids[i]);
+        }
+        return findAllInOrder(pageIds);
+    }
+
+    private List<Book> findAllInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, Book> byId = bookRepository.findAllById(ids).stream()
+                                                .collect(Collectors.toMap(Book::getBookId, Function.identity()));
+        return ids.stream()
+                  .map(byId::get)
+                  .filter(book -> book != null)
+                  .collect(Collectors.toList());
+    }
+
     @Override
     public BookDTO getBookById(Integer bookId) {
         return bookRepository.findById(bookId)
@@ -77,27 +274,139 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    public BookDetailDTO getBookDetailById(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findWithAssociationsByBookId(bookId)
+                             .map(bookMapper::bookToBookDetailDTO)
+                             .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    public Long getBookVersion(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findVersionByBookId(bookId)
+                             .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    /**
+     * Covers everything the detail aggregate shows: the book, its publisher and each genre and author.
+     */
+    @Override
+    public String getBookDetailVersion(Integer bookId) throws ResourceNotFoundException {
+        return getBookPublisherVersion(bookId) + '-' + getBookGenresVersion(bookId)
+               + '-' + getBookAuthorsVersion(bookId);
+    }
+
+    @Override
+    @Transactional
     public BookDTO createBook(BookDTO bookDto) {
-        Book entity = bookRepository.save(bookMapper.bookDTOToBook(bookDto));
-        return bookMapper.bookToBookDTO(entity);
+        return bookMapper.bookToBookDTO(insertBook(bookDto));
     }
 
     @Override
+    @Transactional
     public BookDTO updateBook(Integer bookId, BookDTO bookDto) {
-        Book book = bookMapper.bookDTOToBook(bookDto);
-        book.setBookId(bookId);
-        Book entity = bookRepository.save(book);
+        Book entity = bookRepository.saveAndFlush(modifyBook(bookId, bookDto));
         return bookMapper.bookToBookDTO(entity);
     }
 
     @Override
+    @Transactional
     public BookDTO updateBook(BookDTO bookDto) {
         return updateBook(bookDto.getBookId(), bookDto);
     }
 
+    /**
+     * Applies a merge patch to the loaded book. Only the columns it changes are updated, the associations are left
+     * alone, and {@code version}, or else a version in the patch, must be the current one.
+     */
+    @Override
+    @Transactional
+    public BookDTO patchBook(Integer bookId, JsonNode patch, Long version) throws ResourceNotFoundException {
+        Book book = bookRepository.findById(bookId)
+                                  .orElseThrow(ResourceNotFoundException::new);
+        BookDTO bookDto = MergePatch.apply(objectMapper, bookMapper.bookToBookDTO(book), patch);
+        Versions.check(Book.class, bookId, book.getVersion(), version != null ? version : bookDto.getVersion());
+        bookMapper.updateBookFromBookDTO(bookDto, book);
+        Book entity = bookRepository.saveAndFlush(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.BOOK, entity.getBookId(), entity.getTitle()));
+        return bookMapper.bookToBookDTO(entity);
+    }
+
     @Override
+    @Transactional
     public void deleteBookById(Integer bookId) throws ResourceNotFoundException {
         bookRepository.deleteById(bookId);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.BOOK, bookId));
+    }
+
+    // -------- Batches
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<BookDTO> createBooks(List<BookDTO> bookDtos) {
+        return batchRunner.run(bookDtos, HttpStatus.CREATED, null, this::insertBook, bookMapper::bookToBookDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<BookDTO> updateBooks(List<BookDTO> bookDtos) {
+        return batchRunner.run(bookDtos, HttpStatus.OK,
+                               chunk -> bookRepository.findAllById(BatchRunner.ids(chunk, BookDTO::getBookId)),
+                               bookDto -> modifyBook(BatchRunner.requireId(bookDto.getBookId()), bookDto),
+                               bookMapper::bookToBookDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<Integer> deleteBooks(List<Integer> bookIds) {
+        return batchRunner.run(bookIds, HttpStatus.OK,
+                               chunk -> bookRepository.findAllById(BatchRunner.ids(chunk, id -> id)),
+                               this::removeBook, Book::getBookId);
+    }
+
+    private Book insertBook(BookDTO bookDto) {
+        Book book = bookMapper.bookDTOToBook(bookDto);
+        // POST always creates; a stray id would turn persist into a detached entity error
+        book.setBookId(null);
+        Book entity = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.created(Type.BOOK, entity.getBookId(), entity.getTitle()));
+        return entity;
+    }
+
+    /**
+     * Applies an update to the loaded book, leaving the flush to the caller.
+     */
+    private Book modifyBook(Integer bookId, BookDTO bookDto) {
+        Book book = bookRepository.findById(bookId)
+                                  .orElseThrow(ResourceNotFoundException::new);
+        Versions.check(Book.class, bookId, book.getVersion(), bookDto.getVersion());
+        bookMapper.updateBookFromBookDTO(bookDto, book);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.BOOK, book.getBookId(), book.getTitle()));
+        return book;
+    }
+
+    private Book removeBook(Integer bookId) {
+        Book book = bookRepository.findById(BatchRunner.requireId(bookId))
+                                  .orElseThrow(ResourceNotFoundException::new);
+        bookRepository.delete(book);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.BOOK, bookId));
+        return book;
+    }
+
+    // -------- Book's Cover
+
+    @Override
+    public String getBookCoverHash(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findCoverHashByBookId(bookId)
+                             .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
+    public BookDTO setBookCover(Integer bookId, String coverHash) throws ResourceNotFoundException {
+        if (bookRepository.updateCoverHash(bookId, coverHash) == 0) {
+            throw new ResourceNotFoundException();
+        }
+        return getBookById(bookId);
     }
 
     // -------- Book's Publisher
@@ -112,19 +421,18 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    public PublisherDTO setBookPublisher(Integer bookId, Integer publisherId) throws ResourceNotFoundException {
-        return bookRepository.findById(bookId)
-                             .map(book -> {
-                                 Publisher publisher = publisherRepository.findById(publisherId)
-                                                                          .orElseThrow(ResourceNotFoundException::new);
-                                 book.setPublisher(publisher);
-                                 Book book1 = bookRepository.saveAndFlush(book);
-                                 return book1.getPublisher();
-                             })
-                             .map(publisherMapper::publisherToPublisherDTO)
+    public String getBookPublisherVersion(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findPublisherVersionByBookId(bookId)
                              .orElseThrow(ResourceNotFoundException::new);
     }
 
+    @Override
+    @Transactional
+    public PublisherDTO setBookPublisher(Integer bookId, Integer publisherId) throws ResourceNotFoundException {
+        bookLinkRepository.setPublisher(publisherId, Collections.singleton(bookId));
+        return getBookPublisher(bookId);
+    }
+
     // -------- Book's Genres
 
     @Override
@@ -139,33 +447,42 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    public String getBookGenresVersion(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findGenresVersionByBookId(bookId)
+                             .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public Slice<GenreDTO> setBookGenre(Integer bookId, Integer genreId) throws ResourceNotFoundException {
-        return new SliceImpl<>(bookRepository.findById(bookId)
-                                             .map(book -> {
-                                                 Genre genre = genreRepository.findById(genreId)
-                                                                              .orElseThrow(ResourceNotFoundException::new);
-                                                 book.getGenres().add(genre);
-                                                 Book book1 = bookRepository.saveAndFlush(book);
-                                                 return book1.getGenres().stream()
-                                                             .map(genreMapper::genreToGenreDTO)
-                                                             .collect(Collectors.toList());
-                                             })
-                                             .orElseThrow(ResourceNotFoundException::new));
+        return addBookGenres(bookId, Collections.singletonList(genreId));
     }
 
     @Override
+    @Transactional
     public Slice<GenreDTO> deleteBookGenre(Integer bookId, Integer genreId) throws ResourceNotFoundException {
-        return new SliceImpl<>(bookRepository.findById(bookId)
-                                             .map(book -> {
-                                                 Genre genre = genreRepository.findById(genreId)
-                                                                              .orElseThrow(ResourceNotFoundException::new);
-                                                 book.getGenres().remove(genre);
-                                                 Book book1 = bookRepository.saveAndFlush(book);
-                                                 return book1.getGenres().stream()
-                                                             .map(genreMapper::genreToGenreDTO)
-                                                             .collect(Collectors.toList());
-                                             })
-                                             .orElseThrow(ResourceNotFoundException::new));
+        return deleteBookGenres(bookId, Collections.singletonList(genreId));
+    }
+
+    @Override
+    @Transactional
+    public Slice<GenreDTO> addBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException {
+        bookLinkRepository.link(Link.GENRES, Collections.singleton(bookId), genreIds);
+        return getBookGenres(bookId);
+    }
+
+    @Override
+    @Transactional
+    public Slice<GenreDTO> setBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException {
+        bookLinkRepository.replaceTargets(Link.GENRES, bookId, genreIds);
+        return getBookGenres(bookId);
+    }
+
+    @Override
+    @Transactional
+    public Slice<GenreDTO> deleteBookGenres(Integer bookId, List<Integer> genreIds) throws ResourceNotFoundException {
+        bookLinkRepository.unlink(Link.GENRES, Collections.singleton(bookId), genreIds);
+        return getBookGenres(bookId);
     }
 
     // -------- Book's Authors
@@ -175,38 +492,49 @@ public class BookServiceImpl implements BookService {
     public Slice<AuthorDTO> getBookAuthors(Integer bookId) throws ResourceNotFoundException {
         return new SliceImpl<>(bookRepository.findById(bookId)
                                              .map(book -> book.getAuthors().stream()
+                                                              .sorted(Comparator.comparing(Author::getAuthorId))
                                                               .map(authorMapper::authorToAuthorDTO)
                                                               .collect(Collectors.toList()))
                                              .orElseThrow(ResourceNotFoundException::new));
     }
 
     @Override
+    public String getBookAuthorsVersion(Integer bookId) throws ResourceNotFoundException {
+        return bookRepository.findAuthorsVersionByBookId(bookId)
+                             .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public Slice<AuthorDTO> setBookAuthor(Integer bookId, Integer authorId) throws ResourceNotFoundException {
-        return new SliceImpl<>(bookRepository.findById(bookId)
-                                             .map(book -> {
-                                                 Author author = authorRepository.findById(authorId)
-                                                                                 .orElseThrow(ResourceNotFoundException::new);
-                                                 book.getAuthors().add(author);
-                                                 Book book1 = bookRepository.saveAndFlush(book);
-                                                 return book1.getAuthors().stream()
-                                                             .map(authorMapper::authorToAuthorDTO)
-                                                             .collect(Collectors.toList());
-                                             })
-                                             .orElseThrow(ResourceNotFoundException::new));
+        return addBookAuthors(bookId, Collections.singletonList(authorId));
     }
 
     @Override
+    @Transactional
     public Slice<AuthorDTO> deleteBookAuthor(Integer bookId, Integer authorId) throws ResourceNotFoundException {
-        return new SliceImpl<>(bookRepository.findById(bookId)
-                                             .map(book -> {
-                                                 Author author = authorRepository.findById(authorId)
-                                                                                 .orElseThrow(ResourceNotFoundException::new);
-                                                 book.getAuthors().remove(author);
-                                                 Book book1 = bookRepository.saveAndFlush(book);
-                                                 return book1.getAuthors().stream()
-                                                             .map(authorMapper::authorToAuthorDTO)
-                                                             .collect(Collectors.toList());
-                                             })
-                                             .orElseThrow(ResourceNotFoundException::new));
+        return deleteBookAuthors(bookId, Collections.singletonList(authorId));
+    }
+
+    @Override
+    @Transactional
+    public Slice<AuthorDTO> addBookAuthors(Integer bookId, List<Integer> authorIds) throws ResourceNotFoundException {
+        bookLinkRepository.link(Link.AUTHORS, Collections.singleton(bookId), authorIds);
+        return getBookAuthors(bookId);
+    }
+
+    @Override
+    @Transactional
+    public Slice<AuthorDTO> setBookAuthors(Integer bookId, List<Integer> authorIds) throws ResourceNotFoundException {
+        bookLinkRepository.replaceTargets(Link.AUTHORS, bookId, authorIds);
+        return getBookAuthors(bookId);
+    }
+
+    @Override
+    @Transactional
+    public Slice<AuthorDTO> deleteBookAuthors(Integer bookId, List<Integer> authorIds)
+        throws ResourceNotFoundException {
+        bookLinkRepository.unlink(Link.AUTHORS, Collections.singleton(bookId), authorIds);
+        return getBookAuthors(bookId);
     }
 }
@@ -1,25 +1,67 @@
 package com.campusdual.lituraliaopen.services;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CountedPage;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import com.campusdual.lituraliaopen.api.MergePatch;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.service.GenreService;
-import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Genre;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository.Link;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.campusdual.lituraliaopen.repositories.BookSpecifications;
 import com.campusdual.lituraliaopen.repositories.GenreRepository;
-import java.util.stream.Collectors;
-import org.springframework.data.domain.Page;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
-import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class GenreServiceImpl implements GenreService {
 
+    /**
+     * Properties, besides the id, that cursor paginated listings can be sorted by.
+     */
+    static final List<String> KEYSET_SORTABLE = Arrays.asList("genreName");
+
+    /**
+     * What link and unlink calls answer with: the first page of books, as {@code GET /{id}/books} returns by default.
+     */
+    static final Pageable FIRST_BOOKS = PageRequest.of(0, 10, Sort.by("bookId"));
+
+    /**
+     * Entity attributes behind the {@link GenreDTO} fields that are not attributes themselves.
+     */
+    static final Map<String, String> DERIVED_FIELDS = Collections.emptyMap();
+
 
     GenreRepository genreRepository;
     GenreMapper genreMapper;
@@ -27,24 +69,76 @@ public class GenreServiceImpl implements GenreService {
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
 
+    private final BookLinkRepository bookLinkRepository;
+
+    private final CatalogCache catalogCache;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BatchRunner batchRunner;
+
     public GenreServiceImpl(GenreRepository genreRepository, GenreMapper genreMapper,
-                            BookRepository bookRepository, BookMapper bookMapper) {
-        this.genreMapper     = genreMapper;
-        this.genreRepository = genreRepository;
-        this.bookRepository  = bookRepository;
-        this.bookMapper      = bookMapper;
+                            BookRepository bookRepository, BookMapper bookMapper,
+                            CatalogCache catalogCache, BookLinkRepository bookLinkRepository,
+                            CatalogCounts catalogCounts, ApplicationEventPublisher eventPublisher,
+                            ObjectMapper objectMapper, BatchRunner batchRunner) {
+        this.genreMapper        = genreMapper;
+        this.genreRepository    = genreRepository;
+        this.bookRepository     = bookRepository;
+        this.bookMapper         = bookMapper;
+        this.catalogCache       = catalogCache;
+        this.bookLinkRepository = bookLinkRepository;
+        this.catalogCounts      = catalogCounts;
+        this.eventPublisher     = eventPublisher;
+        this.objectMapper       = objectMapper;
+        this.batchRunner        = batchRunner;
     }
 
 
     @Override
-    public Page<GenreDTO> getAllGenres(Pageable pageable) {
-        return genreRepository.findAll(pageable)
+    public Slice<GenreDTO> getAllGenres(Pageable pageable, CountMode countMode, FieldSet fields) {
+        Slice<GenreDTO> genres = findGenres(null, pageable, fields).map(genreMapper::genreToGenreDTO);
+        return CountedPage.of(genres, countMode,
+                              () -> catalogCounts.exact(Type.GENRE),
+                              () -> catalogCounts.estimate(Type.GENRE));
+    }
+
+    @Override
+    public Slice<GenreDTO> searchGenres(String searchTerm, Pageable pageable, CountMode countMode,
+                                        FieldSet fields) {
+        Slice<GenreDTO> genres = findGenres(searchTerm, pageable, fields).map(genreMapper::genreToGenreDTO);
+        LongSupplier count = () -> genreRepository.countByGenreNameContainingIgnoreCase(searchTerm);
+        return CountedPage.of(genres, countMode,
+                              () -> catalogCounts.exactSearch(Type.GENRE, searchTerm, count),
+                              () -> catalogCounts.estimateSearch(Type.GENRE, "genre_name", searchTerm));
+    }
+
+    /**
+     * A slice of genres, those whose name contains {@code searchTerm} unless it is null, reading only the columns
+     * {@code fields} need.
+     */
+    private Slice<Genre> findGenres(String searchTerm, Pageable pageable, FieldSet fields) {
+        if (fields.isAll()) {
+            return searchTerm == null ?
+                   genreRepository.findAllBy(pageable) :
+                   genreRepository.findByGenreNameContainingIgnoreCase(searchTerm, pageable);
+        }
+        Specification<Genre> spec = searchTerm == null ?
+                                    null :
+                                    SearchSpecifications.containsIgnoreCase("genreName", searchTerm);
+        return genreRepository.findAllProjected(spec, pageable, fields.attributes("genreId", DERIVED_FIELDS));
+    }
+
+    @Override
+    public CursorSlice<GenreDTO> getAllGenres(String after, Pageable pageable) {
+        return genreRepository.findAllAfter(null, KeysetRequest.of(pageable, after, "genreId", KEYSET_SORTABLE))
                               .map(genreMapper::genreToGenreDTO);
     }
 
     @Override
-    public Page<GenreDTO> searchGenres(String searchTerm, Pageable pageable) throws ResourceNotFoundException {
-        return genreRepository.findByGenreNameContainingIgnoreCase(searchTerm, pageable)
+    public CursorSlice<GenreDTO> searchGenres(String searchTerm, String after, Pageable pageable) {
+        return genreRepository.findAllAfter(SearchSpecifications.containsIgnoreCase("genreName", searchTerm),
+                                            KeysetRequest.of(pageable, after, "genreId", KEYSET_SORTABLE))
                               .map(genreMapper::genreToGenreDTO);
     }
 
@@ -56,69 +150,184 @@ public class GenreServiceImpl implements GenreService {
     }
 
     @Override
+    public Long getGenreVersion(Integer genre_id) throws ResourceNotFoundException {
+        return genreRepository.findVersionByGenreId(genre_id)
+                              .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public GenreDTO createGenre(GenreDTO genreDto) {
-        Genre entity = genreRepository.save(genreMapper.genreDTOToGenre(genreDto));
-        return genreMapper.genreToGenreDTO(entity);
+        return genreMapper.genreToGenreDTO(insertGenre(genreDto));
     }
 
     @Override
+    @Transactional
     public GenreDTO updateGenre(Integer genre_id, GenreDTO genreDto) {
-        Genre genre = genreMapper.genreDTOToGenre(genreDto);
-        genre.setGenreId(genre_id);
-        Genre entity = genreRepository.save(genre);
+        Genre entity = genreRepository.saveAndFlush(modifyGenre(genre_id, genreDto));
         return genreMapper.genreToGenreDTO(entity);
     }
 
     @Override
+    @Transactional
     public GenreDTO updateGenre(GenreDTO genreDto) {
         return updateGenre(genreDto.getGenreId(), genreDto);
     }
 
+    /**
+     * Applies a merge patch to the loaded genre. Only the columns it changes are updated, the associations are left
+     * alone, and {@code version}, or else a version in the patch, must be the current one.
+     */
     @Override
+    @Transactional
+    public GenreDTO patchGenre(Integer genreId, JsonNode patch, Long version) throws ResourceNotFoundException {
+        Genre genre = genreRepository.findById(genreId)
+                                     .orElseThrow(ResourceNotFoundException::new);
+        GenreDTO genreDto = MergePatch.apply(objectMapper, genreMapper.genreToGenreDTO(genre), patch);
+        Versions.check(Genre.class, genreId, genre.getVersion(), version != null ? version : genreDto.getVersion());
+        genreMapper.updateGenreFromGenreDTO(genreDto, genre);
+        Genre entity = genreRepository.saveAndFlush(genre);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.GENRE, entity.getGenreId(),
+                                                                entity.getGenreName()));
+        return genreMapper.genreToGenreDTO(entity);
+    }
+
+    @Override
+    @Transactional
     public void deleteGenreById(Integer genre_id) throws ResourceNotFoundException {
         genreRepository.deleteById(genre_id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.GENRE, genre_id));
+        // cached Book.genres collections may still list the deleted genre
+        catalogCache.evictNowAndAfterCommit(catalogCache::evictBookGenres);
+    }
+
+    // -------- Batches
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<GenreDTO> createGenres(List<GenreDTO> genreDtos) {
+        return batchRunner.run(genreDtos, HttpStatus.CREATED, null, this::insertGenre, genreMapper::genreToGenreDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<GenreDTO> updateGenres(List<GenreDTO> genreDtos) {
+        return batchRunner.run(genreDtos, HttpStatus.OK,
+                               chunk -> genreRepository.findAllById(BatchRunner.ids(chunk, GenreDTO::getGenreId)),
+                               genreDto -> modifyGenre(BatchRunner.requireId(genreDto.getGenreId()), genreDto),
+                               genreMapper::genreToGenreDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<Integer> deleteGenres(List<Integer> genreIds) {
+        BatchResult<Integer> result =
+            batchRunner.run(genreIds, HttpStatus.OK,
+                            chunk -> genreRepository.findAllById(BatchRunner.ids(chunk, id -> id)),
+                            this::removeGenre, Genre::getGenreId);
+        if (result.getSucceeded() > 0) {
+            catalogCache.evictBookGenres();
+        }
+        return result;
+    }
+
+    private Genre insertGenre(GenreDTO genreDto) {
+        Genre genre = genreMapper.genreDTOToGenre(genreDto);
+        // POST always creates; a stray id would turn persist into a detached entity error
+        genre.setGenreId(null);
+        Genre entity = genreRepository.save(genre);
+        eventPublisher.publishEvent(CatalogChangedEvent.created(Type.GENRE, entity.getGenreId(),
+                                                                entity.getGenreName()));
+        return entity;
+    }
+
+    /**
+     * Applies an update to the loaded genre, leaving the flush to the caller.
+     */
+    private Genre modifyGenre(Integer genre_id, GenreDTO genreDto) {
+        Genre genre = genreRepository.findById(genre_id)
+                                     .orElseThrow(ResourceNotFoundException::new);
+        Versions.check(Genre.class, genre_id, genre.getVersion(), genreDto.getVersion());
+        genreMapper.updateGenreFromGenreDTO(genreDto, genre);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.GENRE, genre.getGenreId(),
+                                                                genre.getGenreName()));
+        return genre;
+    }
+
+    private Genre removeGenre(Integer genreId) {
+        Genre genre = genreRepository.findById(BatchRunner.requireId(genreId))
+                                     .orElseThrow(ResourceNotFoundException::new);
+        genreRepository.delete(genre);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.GENRE, genreId));
+        return genre;
     }
 
     // -------- Genre's Books
 
     @Override
-    public Slice<BookDTO> getGenreBooks(Integer genreId) throws ResourceNotFoundException {
-        return new SliceImpl<>(genreRepository.findById(genreId)
-                                              .map(genre -> {
-                                                  return genre.getBooks().stream()
-                                                              .map(bookMapper::bookToBookDTO)
-                                                              .collect(Collectors.toList());
-                                              })
-                                              .orElseThrow(ResourceNotFoundException::new));
+    public Slice<BookDTO> getGenreBooks(Integer genreId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException {
+        requireGenre(genreId);
+        Slice<BookDTO> books = bookRepository.findByGenreId(genreId, pageable)
+                                             .map(bookMapper::bookToBookDTO);
+        if (countMode == CountMode.NONE) {
+            return books;
+        }
+        long total = catalogCache.countBooks("genre", genreId, () -> bookRepository.countByGenreId(genreId));
+        return new PageImpl<>(books.getContent(), pageable, total);
+    }
+
+    @Override
+    public CursorSlice<BookDTO> getGenreBooks(Integer genreId, String after, Pageable pageable)
+        throws ResourceNotFoundException {
+        requireGenre(genreId);
+        return bookRepository.findAllAfter(BookSpecifications.inGenre(genreId),
+                                           KeysetRequest.of(pageable, after, "bookId", BookServiceImpl.KEYSET_SORTABLE))
+                             .map(bookMapper::bookToBookDTO);
+    }
+
+    private void requireGenre(Integer genreId) throws ResourceNotFoundException {
+        if (!genreRepository.existsById(genreId)) {
+            throw new ResourceNotFoundException();
+        }
+    }
+
+    @Override
+    public String getGenreBooksVersion(Integer genreId) throws ResourceNotFoundException {
+        return genreRepository.findBooksVersionByGenreId(genreId)
+                              .orElseThrow(ResourceNotFoundException::new);
     }
 
     @Override
+    @Transactional
     public Slice<BookDTO> setGenreBook(Integer genreId, Integer bookId) throws ResourceNotFoundException {
-        return new SliceImpl<>(genreRepository.findById(genreId)
-                                              .map(genre -> {
-                                                  Book book = bookRepository.findById(bookId)
-                                                                            .orElseThrow(ResourceNotFoundException::new);
-                                                  book.getGenres().add(genre);
-                                                  bookRepository.saveAndFlush(book);//TODO: check if added book ins in returned slice
-                                                  return genre.getBooks().stream()
-                                                              .map(bookMapper::bookToBookDTO)
-                                                              .collect(Collectors.toList());
-                                              })
-                                              .orElseThrow(ResourceNotFoundException::new));
+        return addGenreBooks(genreId, Collections.singletonList(bookId));
     }
 
     @Override
+    @Transactional
     public Slice<BookDTO> deleteGenreBook(Integer genreId, Integer bookId) throws ResourceNotFoundException {
-        return new SliceImpl<>(genreRepository.findById(genreId)
-                                              .map(genre -> {
-                                                  Book book = bookRepository.findById(bookId)
-                                                                            .orElseThrow(ResourceNotFoundException::new);
-                                                  book.getGenres().remove(genre);
-                                                  bookRepository.saveAndFlush(book);
-                                                  return genre.getBooks().stream()
-                                                              .map(bookMapper::bookToBookDTO)
-                                                              .collect(Collectors.toList());
-                                              })
-                                              .orElseThrow(ResourceNotFoundException::new));
+        return deleteGenreBooks(genreId, Collections.singletonList(bookId));
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> addGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.link(Link.GENRES, bookIds, Collections.singleton(genreId));
+        return getGenreBooks(genreId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> setGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.replaceBooks(Link.GENRES, genreId, bookIds);
+        return getGenreBooks(genreId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> deleteGenreBooks(Integer genreId, List<Integer> bookIds) throws ResourceNotFoundException {
+        bookLinkRepository.unlink(Link.GENRES, bookIds, Collections.singleton(genreId));
+        return getGenreBooks(genreId, FIRST_BOOKS, CountMode.NONE);
     }
 }
@@ -0,0 +1,89 @@
+package com.campusdual.lituraliaopen.services;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.service.ImageService;
+import com.campusdual.lituraliaopen.domain.Image;
+import com.campusdual.lituraliaopen.repositories.ImageRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ImageServiceImpl implements ImageService {
+
+    private static final String INSERT_IMAGE =
+        "INSERT INTO lituralia.images (image_hash, content_type, image_size, content) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (image_hash) DO NOTHING";
+
+    private final ImageRepository imageRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ImageServiceImpl(ImageRepository imageRepository, JdbcTemplate jdbcTemplate) {
+        this.imageRepository = imageRepository;
+        this.jdbcTemplate    = jdbcTemplate;
+    }
+
+    @Override
+    public String storeImage(InputStream content, String contentType) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new BadRequestException("Unsupported image type: " + contentType);
+        }
+        Path spool = null;
+        try {
+            // the hash is the primary key, so the upload is spooled to disk while digesting and only then inserted
+            spool = Files.createTempFile("lituralia-image", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                size = Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (size == 0) {
+                throw new BadRequestException("Empty image");
+            }
+            String imageHash = toHex(digest.digest());
+            if (!imageRepository.existsById(imageHash)) {
+                try (InputStream in = Files.newInputStream(spool)) {
+                    jdbcTemplate.update(INSERT_IMAGE, ps -> {
+                        ps.setString(1, imageHash);
+                        ps.setString(2, contentType);
+                        ps.setLong(3, size);
+                        ps.setBinaryStream(4, in, size);
+                    });
+                }
+            }
+            return imageHash;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (spool != null) {
+                spool.toFile().delete();
+            }
+        }
+    }
+
+    @Override
+    public Image getImage(String imageHash) throws ResourceNotFoundException {
+        return imageRepository.findById(imageHash)
+                              .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+               .append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -1,49 +1,144 @@
 package com.campusdual.lituraliaopen.services;
 
+import com.campusdual.lituraliaopen.api.BatchResult;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CountedPage;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.KeysetRequest;
+import com.campusdual.lituraliaopen.api.MergePatch;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
 import com.campusdual.lituraliaopen.api.service.PublisherService;
-import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Publisher;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.campusdual.lituraliaopen.repositories.BookSpecifications;
 import com.campusdual.lituraliaopen.repositories.PublisherRepository;
-import java.util.stream.Collectors;
-import org.springframework.data.domain.Page;
+import com.campusdual.lituraliaopen.repositories.SearchSpecifications;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
-import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class PublisherServiceImpl implements PublisherService {
 
+    /**
+     * Properties, besides the id, that cursor paginated listings can be sorted by.
+     */
+    static final List<String> KEYSET_SORTABLE = Arrays.asList("publisherName");
+
+    /**
+     * What link and unlink calls answer with: the first page of books, as {@code GET /{id}/books} returns by default.
+     */
+    static final Pageable FIRST_BOOKS = PageRequest.of(0, 10, Sort.by("bookId"));
+
+    /**
+     * Entity attributes behind the {@link PublisherDTO} fields that are not attributes themselves.
+     */
+    static final Map<String, String> DERIVED_FIELDS = Collections.singletonMap("publisherLogoUrl", "publisherLogoHash");
+
     private final PublisherRepository publisherRepository;
     private final PublisherMapper publisherMapper;
 
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
 
+    private final BookLinkRepository bookLinkRepository;
+
+    private final CatalogCache catalogCache;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final BatchRunner batchRunner;
+
     public PublisherServiceImpl(PublisherMapper publisherMapper, PublisherRepository publisherRepository,
-                                BookRepository bookRepository, BookMapper bookMapper) {
+                                BookRepository bookRepository, BookMapper bookMapper,
+                                CatalogCache catalogCache, BookLinkRepository bookLinkRepository,
+                                CatalogCounts catalogCounts, ApplicationEventPublisher eventPublisher,
+                                ObjectMapper objectMapper, BatchRunner batchRunner) {
         this.publisherMapper     = publisherMapper;
         this.publisherRepository = publisherRepository;
         this.bookRepository      = bookRepository;
         this.bookMapper          = bookMapper;
+        this.catalogCache        = catalogCache;
+        this.bookLinkRepository  = bookLinkRepository;
+        this.catalogCounts       = catalogCounts;
+        this.eventPublisher      = eventPublisher;
+        this.objectMapper        = objectMapper;
+        this.batchRunner         = batchRunner;
     }
 
 
     @Override
-    public Page<PublisherDTO> getAllPublishers(Pageable pageable) {
-        return publisherRepository.findAll(pageable)
+    public Slice<PublisherDTO> getAllPublishers(Pageable pageable, CountMode countMode, FieldSet fields) {
+        Slice<PublisherDTO> publishers = findPublishers(null, pageable, fields)
+                                             .map(publisherMapper::publisherToPublisherDTO);
+        return CountedPage.of(publishers, countMode,
+                              () -> catalogCounts.exact(Type.PUBLISHER),
+                              () -> catalogCounts.estimate(Type.PUBLISHER));
+    }
+
+    @Override
+    public Slice<PublisherDTO> searchPublishers(String searchTerm, Pageable pageable, CountMode countMode,
+                                                FieldSet fields) {
+        Slice<PublisherDTO> publishers = findPublishers(searchTerm, pageable, fields)
+                                             .map(publisherMapper::publisherToPublisherDTO);
+        LongSupplier count = () -> publisherRepository.countByPublisherNameContainingIgnoreCase(searchTerm);
+        return CountedPage.of(publishers, countMode,
+                              () -> catalogCounts.exactSearch(Type.PUBLISHER, searchTerm, count),
+                              () -> catalogCounts.estimateSearch(Type.PUBLISHER, "publisher_name", searchTerm));
+    }
+
+    /**
+     * A slice of publishers, those whose name contains {@code searchTerm} unless it is null, reading only the columns
+     * {@code fields} need.
+     */
+    private Slice<Publisher> findPublishers(String searchTerm, Pageable pageable, FieldSet fields) {
+        if (fields.isAll()) {
+            return searchTerm == null ?
+                   publisherRepository.findAllBy(pageable) :
+                   publisherRepository.findByPublisherNameContainingIgnoreCase(searchTerm, pageable);
+        }
+        Specification<Publisher> spec = searchTerm == null ?
+                                        null :
+                                        SearchSpecifications.containsIgnoreCase("publisherName", searchTerm);
+        return publisherRepository.findAllProjected(spec, pageable, fields.attributes("publisherId", DERIVED_FIELDS));
+    }
+
+    @Override
+    public CursorSlice<PublisherDTO> getAllPublishers(String after, Pageable pageable) {
+        return publisherRepository.findAllAfter(null, KeysetRequest.of(pageable, after, "publisherId", KEYSET_SORTABLE))
                                   .map(publisherMapper::publisherToPublisherDTO);
     }
 
     @Override
-    public Page<PublisherDTO> searchPublishers(String searchTerm, Pageable pageable) throws ResourceNotFoundException {
-        return publisherRepository.findByPublisherNameContainingIgnoreCase(searchTerm, pageable)
+    public CursorSlice<PublisherDTO> searchPublishers(String searchTerm, String after, Pageable pageable) {
+        return publisherRepository.findAllAfter(SearchSpecifications.containsIgnoreCase("publisherName", searchTerm),
+                                                KeysetRequest.of(pageable, after, "publisherId", KEYSET_SORTABLE))
                                   .map(publisherMapper::publisherToPublisherDTO);
     }
 
@@ -55,54 +150,205 @@ public class PublisherServiceImpl implements PublisherService {
     }
 
     @Override
+    public Long getPublisherVersion(Integer publisher_id) throws ResourceNotFoundException {
+        return publisherRepository.findVersionByPublisherId(publisher_id)
+                                  .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public PublisherDTO createPublisher(PublisherDTO publisherDto) {
-        Publisher entity = publisherRepository.save(publisherMapper.publisherDTOToPublisher(publisherDto));
-        return publisherMapper.publisherToPublisherDTO(entity);
+        return publisherMapper.publisherToPublisherDTO(insertPublisher(publisherDto));
     }
 
     @Override
+    @Transactional
     public PublisherDTO updatePublisher(Integer publisher_id, PublisherDTO publisherDto) {
-        Publisher publisher = publisherMapper.publisherDTOToPublisher(publisherDto);
-        publisher.setPublisherId(publisher_id);
-        Publisher entity = publisherRepository.save(publisher);
+        Publisher entity = publisherRepository.saveAndFlush(modifyPublisher(publisher_id, publisherDto));
         return publisherMapper.publisherToPublisherDTO(entity);
     }
 
     @Override
+    @Transactional
     public PublisherDTO updatePublisher(PublisherDTO publisherDto) {
         return updatePublisher(publisherDto.getPublisherId(), publisherDto);
     }
 
+    /**
+     * Applies a merge patch to the loaded publisher. Only the columns it changes are updated, the associations are left
+     * alone, and {@code version}, or else a version in the patch, must be the current one.
+     */
     @Override
+    @Transactional
+    public PublisherDTO patchPublisher(Integer publisherId, JsonNode patch, Long version)
+        throws ResourceNotFoundException {
+        Publisher publisher = publisherRepository.findById(publisherId)
+                                                 .orElseThrow(ResourceNotFoundException::new);
+        PublisherDTO publisherDto = MergePatch.apply(objectMapper, publisherMapper.publisherToPublisherDTO(publisher),
+                                                     patch);
+        Versions.check(Publisher.class, publisherId, publisher.getVersion(),
+                       version != null ? version : publisherDto.getVersion());
+        publisherMapper.updatePublisherFromPublisherDTO(publisherDto, publisher);
+        Publisher entity = publisherRepository.saveAndFlush(publisher);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.PUBLISHER, entity.getPublisherId(),
+                                                                entity.getPublisherName()));
+        return publisherMapper.publisherToPublisherDTO(entity);
+    }
+
+    @Override
+    @Transactional
     public void deletePublisherById(Integer publisher_id) throws ResourceNotFoundException {
         publisherRepository.deleteById(publisher_id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.PUBLISHER, publisher_id));
+        // cached books may still point to the deleted publisher
+        catalogCache.evictNowAndAfterCommit(catalogCache::evictBooks);
+    }
+
+    // -------- Batches
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<PublisherDTO> createPublishers(List<PublisherDTO> publisherDtos) {
+        return batchRunner.run(publisherDtos, HttpStatus.CREATED, null, this::insertPublisher,
+                               publisherMapper::publisherToPublisherDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<PublisherDTO> updatePublishers(List<PublisherDTO> publisherDtos) {
+        return batchRunner.run(publisherDtos, HttpStatus.OK,
+                               chunk -> publisherRepository.findAllById(
+                                   BatchRunner.ids(chunk, PublisherDTO::getPublisherId)),
+                               publisherDto -> modifyPublisher(BatchRunner.requireId(publisherDto.getPublisherId()),
+                                                               publisherDto),
+                               publisherMapper::publisherToPublisherDTO);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchResult<Integer> deletePublishers(List<Integer> publisherIds) {
+        BatchResult<Integer> result =
+            batchRunner.run(publisherIds, HttpStatus.OK,
+                            chunk -> publisherRepository.findAllById(BatchRunner.ids(chunk, id -> id)),
+                            this::removePublisher, Publisher::getPublisherId);
+        if (result.getSucceeded() > 0) {
+            catalogCache.evictBooks();
+        }
+        return result;
+    }
+
+    private Publisher insertPublisher(PublisherDTO publisherDto) {
+        Publisher publisher = publisherMapper.publisherDTOToPublisher(publisherDto);
+        // POST always creates; a stray id would turn persist into a detached entity error
+        publisher.setPublisherId(null);
+        Publisher entity = publisherRepository.save(publisher);
+        eventPublisher.publishEvent(CatalogChangedEvent.created(Type.PUBLISHER, entity.getPublisherId(),
+                                                                entity.getPublisherName()));
+        return entity;
+    }
+
+    /**
+     * Applies an update to the loaded publisher, leaving the flush to the caller.
+     */
+    private Publisher modifyPublisher(Integer publisher_id, PublisherDTO publisherDto) {
+        Publisher publisher = publisherRepository.findById(publisher_id)
+                                                 .orElseThrow(ResourceNotFoundException::new);
+        Versions.check(Publisher.class, publisher_id, publisher.getVersion(), publisherDto.getVersion());
+        publisherMapper.updatePublisherFromPublisherDTO(publisherDto, publisher);
+        eventPublisher.publishEvent(CatalogChangedEvent.updated(Type.PUBLISHER, publisher.getPublisherId(),
+                                                                publisher.getPublisherName()));
+        return publisher;
+    }
+
+    private Publisher removePublisher(Integer publisherId) {
+        Publisher publisher = publisherRepository.findById(BatchRunner.requireId(publisherId))
+                                                 .orElseThrow(ResourceNotFoundException::new);
+        publisherRepository.delete(publisher);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(Type.PUBLISHER, publisherId));
+        return publisher;
+    }
+
+    // -------- Publisher's Logo
+
+    @Override
+    public String getPublisherLogoHash(Integer publisherId) throws ResourceNotFoundException {
+        return publisherRepository.findPublisherLogoHashByPublisherId(publisherId)
+                                  .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
+    public PublisherDTO setPublisherLogo(Integer publisherId, String logoHash) throws ResourceNotFoundException {
+        if (publisherRepository.updatePublisherLogoHash(publisherId, logoHash) == 0) {
+            throw new ResourceNotFoundException();
+        }
+        return getPublisherById(publisherId);
     }
 
     // -------- Publisher's Books
 
     @Override
-    public Slice<BookDTO> getPublisherBooks(Integer publisherId) throws ResourceNotFoundException {
-        return new SliceImpl<>(publisherRepository.findById(publisherId)
-                                                  .map(publisher -> {
-                                                      return publisher.getBooks().stream()
-                                                                      .map(bookMapper::bookToBookDTO)
-                                                                      .collect(Collectors.toList());
-                                                  })
-                                                  .orElseThrow(ResourceNotFoundException::new));
+    public Slice<BookDTO> getPublisherBooks(Integer publisherId, Pageable pageable, CountMode countMode)
+        throws ResourceNotFoundException {
+        requirePublisher(publisherId);
+        Slice<BookDTO> books = bookRepository.findByPublisherPublisherId(publisherId, pageable)
+                                             .map(bookMapper::bookToBookDTO);
+        if (countMode == CountMode.NONE) {
+            return books;
+        }
+        long total = catalogCache.countBooks("publisher", publisherId,
+                                             () -> bookRepository.countByPublisherPublisherId(publisherId));
+        return new PageImpl<>(books.getContent(), pageable, total);
+    }
+
+    @Override
+    public CursorSlice<BookDTO> getPublisherBooks(Integer publisherId, String after, Pageable pageable)
+        throws ResourceNotFoundException {
+        requirePublisher(publisherId);
+        return bookRepository.findAllAfter(BookSpecifications.byPublisher(publisherId),
+                                           KeysetRequest.of(pageable, after, "bookId", BookServiceImpl.KEYSET_SORTABLE))
+                             .map(bookMapper::bookToBookDTO);
+    }
+
+    private void requirePublisher(Integer publisherId) throws ResourceNotFoundException {
+        if (!publisherRepository.existsById(publisherId)) {
+            throw new ResourceNotFoundException();
+        }
     }
 
     @Override
+    public String getPublisherBooksVersion(Integer publisherId) throws ResourceNotFoundException {
+        return publisherRepository.findBooksVersionByPublisherId(publisherId)
+                                  .orElseThrow(ResourceNotFoundException::new);
+    }
+
+    @Override
+    @Transactional
     public Slice<BookDTO> setPublisherBook(Integer publisherId, Integer bookId) throws ResourceNotFoundException {
-        return new SliceImpl<>(publisherRepository.findById(publisherId)
-                                                  .map(publisher -> {
-                                                      Book book = bookRepository.findById(bookId)
-                                                                                .orElseThrow(ResourceNotFoundException::new);
-                                                      book.setPublisher(publisher);
-                                                      bookRepository.saveAndFlush(book);//TODO: check if added book ins in returned slice
-                                                      return publisher.getBooks().stream()
-                                                                      .map(bookMapper::bookToBookDTO)
-                                                                      .collect(Collectors.toList());
-                                                  })
-                                                  .orElseThrow(ResourceNotFoundException::new));
+        return addPublisherBooks(publisherId, Collections.singletonList(bookId));
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> addPublisherBooks(Integer publisherId, List<Integer> bookIds)
+        throws ResourceNotFoundException {
+        bookLinkRepository.setPublisher(publisherId, bookIds);
+        return getPublisherBooks(publisherId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> setPublisherBooks(Integer publisherId, List<Integer> bookIds)
+        throws ResourceNotFoundException {
+        bookLinkRepository.replacePublisherBooks(publisherId, bookIds);
+        return getPublisherBooks(publisherId, FIRST_BOOKS, CountMode.NONE);
+    }
+
+    @Override
+    @Transactional
+    public Slice<BookDTO> deletePublisherBooks(Integer publisherId, List<Integer> bookIds)
+        throws ResourceNotFoundException {
+        bookLinkRepository.clearPublisher(publisherId, bookIds);
+        return getPublisherBooks(publisherId, FIRST_BOOKS, CountMode.NONE);
     }
 }
@@ -0,0 +1,83 @@
+package com.campusdual.lituraliaopen.services;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.api.mapper.dtos.SuggestionDTO;
+import com.campusdual.lituraliaopen.api.service.SuggestService;
+import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.campusdual.lituraliaopen.repositories.GenreRepository;
+import com.campusdual.lituraliaopen.repositories.PublisherRepository;
+import com.campusdual.lituraliaopen.search.CatalogSuggestions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SuggestServiceImpl implements SuggestService {
+
+    private final CatalogSuggestions catalogSuggestions;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final GenreRepository genreRepository;
+    private final PublisherRepository publisherRepository;
+
+    public SuggestServiceImpl(CatalogSuggestions catalogSuggestions,
+                              BookRepository bookRepository, AuthorRepository authorRepository,
+                              GenreRepository genreRepository, PublisherRepository publisherRepository) {
+        this.catalogSuggestions  = catalogSuggestions;
+        this.bookRepository      = bookRepository;
+        this.authorRepository    = authorRepository;
+        this.genreRepository     = genreRepository;
+        this.publisherRepository = publisherRepository;
+    }
+
+    @Override
+    public List<SuggestionDTO> suggest(String query, Set<Type> types, int limit) {
+        if (catalogSuggestions.isReady()) {
+            return catalogSuggestions.suggest(query, types, limit)
+                                     .stream()
+                                     .map(suggestion -> new SuggestionDTO(suggestion.getType(), suggestion.getId(),
+                                                                          suggestion.getText()))
+                                     .collect(Collectors.toList());
+        }
+        return suggestFromDatabase(query.trim(), types, limit);
+    }
+
+    /**
+     * While the index is being built: the first names containing the query, type by type.
+     */
+    private List<SuggestionDTO> suggestFromDatabase(String query, Set<Type> types, int limit) {
+        List<SuggestionDTO> suggestions = new ArrayList<>(limit);
+        if (query.isEmpty()) {
+            return suggestions;
+        }
+        Pageable first = PageRequest.of(0, limit);
+        if (types.contains(Type.BOOK)) {
+            bookRepository.findByTitleContainingIgnoreCase(query, first)
+                          .forEach(book -> suggestions.add(new SuggestionDTO(Type.BOOK, book.getBookId(),
+                                                                             book.getTitle())));
+        }
+        if (types.contains(Type.AUTHOR)) {
+            authorRepository.findByAuthorNameContainingIgnoreCase(query, first)
+                            .forEach(author -> suggestions.add(new SuggestionDTO(Type.AUTHOR, author.getAuthorId(),
+                                                                                 author.getAuthorName())));
+        }
+        if (types.contains(Type.GENRE)) {
+            genreRepository.findByGenreNameContainingIgnoreCase(query, first)
+                           .forEach(genre -> suggestions.add(new SuggestionDTO(Type.GENRE, genre.getGenreId(),
+                                                                               genre.getGenreName())));
+        }
+        if (types.contains(Type.PUBLISHER)) {
+            publisherRepository.findByPublisherNameContainingIgnoreCase(query, first)
+                               .forEach(publisher -> suggestions.add(
+                                   new SuggestionDTO(Type.PUBLISHER, publisher.getPublisherId(),
+                                                     publisher.getPublisherName())));
+        }
+        return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+    }
+}
@@ -0,0 +1,21 @@
+package com.campusdual.lituraliaopen.services;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * Optimistic locking against the version a client last saw, taken from {@code If-Match} or from the request body.
+ */
+final class Versions {
+
+    private Versions() {
+    }
+
+    /**
+     * Fails when the client sent a version and it is not the current one. No version means no check.
+     */
+    static void check(Class<?> type, Object id, Long current, Long expected) {
+        if (expected != null && !expected.equals(current)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.campusdual.lituraliaopen.threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Opt-in execution mode, {@code lituralia.threads.virtual=true}, for Java 21 or later: Tomcat runs every request on
+ * its own virtual thread instead of its 200 thread pool, and so do async MVC responses (exports) and
+ * {@code @Async} methods, through the {@code applicationTaskExecutor} bean.
+ * <p>
+ * The blocking JPA stack stays as is; what bounds the work reaching the database is then the
+ * {@link BoundedDataSource} semaphore, sized to the Hikari pool unless {@code lituralia.threads.db-permits} says
+ * otherwise.
+ * <p>
+ * Tomcat 9 and the PostgreSQL driver 42.2 block inside monitors, which pin the carrier thread for every database round
+ * trip: measured in {@code src/test/load/README.md}, this mode is slower than the thread pool until both move to locks.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lituralia.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Serving requests on virtual threads");
+        return VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    /**
+     * Ordered, so that it sees the Hikari pool itself before other post-processors wrap it, like the profiling one.
+     */
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource)) {
+                    return bean;
+                }
+                HikariDataSource hikari = (HikariDataSource) bean;
+                int permits = environment.getProperty("lituralia.threads.db-permits", Integer.class, 0);
+                if (permits <= 0) {
+                    permits = hikari.getMaximumPoolSize();
+                }
+                log.info("Database access bounded to {} concurrent connections", permits);
+                return new BoundedDataSource(hikari, permits, hikari.getConnectionTimeout());
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder boundedDataSourceMetrics(DataSource dataSource) throws SQLException {
+        BoundedDataSource bounded = dataSource.isWrapperFor(BoundedDataSource.class) ?
+                                    dataSource.unwrap(BoundedDataSource.class) :
+                                    null;
+        return registry -> {
+            if (bounded != null) {
+                Gauge.builder("lituralia.db.permits.available", bounded, BoundedDataSource::getAvailablePermits)
+                     .register(registry);
+                Gauge.builder("lituralia.db.permits.waiting", bounded, BoundedDataSource::getQueueLength)
+                     .register(registry);
+            }
+        };
+    }
+
+    // -------- Internals
+
+    private abstract static class OrderedBeanPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.campusdual.lituraliaopen.warmup;
+
+import java.util.Map;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code warmup} health: out of service until {@link WarmupRunner} is done, so the readiness group only reports UP
+ * once the pool is filled and the hot queries have run.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private volatile Health health = Health.outOfService().withDetail("phase", "pending").build();
+
+    @Override
+    public Health health() {
+        return health;
+    }
+
+    void phase(String phase) {
+        health = Health.outOfService().withDetail("phase", phase).build();
+    }
+
+    void finished(Map<String, ?> details) {
+        health = Health.up().withDetails(details).build();
+    }
+}
@@ -0,0 +1,226 @@
+package com.campusdual.lituraliaopen.warmup;
+
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.service.AuthorService;
+import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.api.service.GenreService;
+import com.campusdual.lituraliaopen.api.service.PublisherService;
+import com.campusdual.lituraliaopen.replicas.ReadWriteRoutingDataSource;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startup warm-up, run before the application reports itself ready:
+ * <ol>
+ *     <li>{@code exists} probes and planner row estimates for the catalog tables, never a full read;</li>
+ *     <li>prefill of the Hikari pools, the replica ones included, by borrowing {@code minimumIdle} connections of each
+ *     at once;</li>
+ *     <li>a wait for the book title index, so the searches below go through it rather than the database;</li>
+ *     <li>a few rounds of the hot listing, search and detail queries, so Hibernate has its query plans compiled and
+ *     the JIT has seen the mapping code before the first real request.</li>
+ * </ol>
+ * Every step is best effort: failures are logged and reported by {@link WarmupHealthIndicator}, never fatal.
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+    static final List<String> TABLES = Arrays.asList("books", "authors", "genres", "publishers");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+    private final BookService bookService;
+    private final AuthorService authorService;
+    private final GenreService genreService;
+    private final PublisherService publisherService;
+    private final BookTitleIndex bookTitleIndex;
+    private final WarmupHealthIndicator warmupHealthIndicator;
+
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration budget;
+
+    public WarmupRunner(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                        ObjectProvider<ReadWriteRoutingDataSource> routingDataSource,
+                        BookService bookService, AuthorService authorService,
+                        GenreService genreService, PublisherService publisherService,
+                        BookTitleIndex bookTitleIndex, WarmupHealthIndicator warmupHealthIndicator,
+                        @Value("${lituralia.warmup.enabled:true}") boolean enabled,
+                        @Value("${lituralia.warmup.iterations:20}") int iterations,
+                        @Value("${lituralia.warmup.budget:30s}") Duration budget) {
+        this.jdbcTemplate          = jdbcTemplate;
+        this.dataSource            = dataSource;
+        this.routingDataSource     = routingDataSource;
+        this.bookService           = bookService;
+        this.authorService         = authorService;
+        this.genreService          = genreService;
+        this.publisherService      = publisherService;
+        this.bookTitleIndex        = bookTitleIndex;
+        this.warmupHealthIndicator = warmupHealthIndicator;
+        this.enabled               = enabled;
+        this.iterations            = iterations;
+        this.budget                = budget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            warmupHealthIndicator.finished(Collections.singletonMap("skipped", true));
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        Map<String, Object> details = new LinkedHashMap<>();
+
+        warmupHealthIndicator.phase("probes");
+        details.put("tables", probeTables());
+
+        warmupHealthIndicator.phase("pool");
+        try {
+            details.put("poolConnections", prefillPools());
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Warm-up: pool prefill failed", e);
+            details.put("poolConnections", "failed: " + e.getMessage());
+        }
+
+        warmupHealthIndicator.phase("indexes");
+        details.put("titleIndex", awaitTitleIndex(deadline));
+
+        warmupHealthIndicator.phase("queries");
+        try {
+            details.put("queryRounds", runHotQueries(deadline));
+        } catch (RuntimeException e) {
+            log.warn("Warm-up: hot queries failed", e);
+            details.put("queryRounds", "failed: " + e.getMessage());
+        }
+
+        details.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        warmupHealthIndicator.finished(details);
+        log.info("Warm-up finished: {}", details);
+    }
+
+    // -------- Steps
+
+    private Map<String, Object> probeTables() {
+        Map<String, Object> tables = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            try {
+                Boolean hasRows = jdbcTemplate.queryForObject(
+                    "SELECT exists(SELECT 1 FROM lituralia." + table + ")", Boolean.class);
+                Long estimatedRows = jdbcTemplate.queryForObject(
+                    "SELECT coalesce(max(reltuples), 0)::bigint FROM pg_class WHERE oid = to_regclass(?)",
+                    Long.class, "lituralia." + table);
+                tables.put(table, Boolean.TRUE.equals(hasRows) ? "~" + estimatedRows + " rows" : "empty");
+                if (!Boolean.TRUE.equals(hasRows)) {
+                    log.warn("DB: [WARN] lituralia.{} is empty", table);
+                }
+            } catch (DataAccessException e) {
+                log.warn("DB: [FAIL] lituralia.{}", table, e);
+                tables.put(table, "failed: " + e.getMessage());
+            }
+        }
+        log.info("DB: [OK] -> {}", tables);
+        return tables;
+    }
+
+    /**
+     * Borrows {@code minimumIdle} connections of every pool at the same time so they are all open before traffic
+     * arrives. With read replicas the pools are reached directly: the lazy proxy in front of them hands out handles
+     * that never open a connection.
+     */
+    private Map<String, Object> prefillPools() throws SQLException {
+        List<DataSource> pools = new ArrayList<>();
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing == null) {
+            pools.add(dataSource);
+        } else {
+            pools.add(routing.getPrimary());
+            routing.getReplicas().forEach(replica -> pools.add(replica.getDataSource()));
+        }
+        Map<String, Object> connections = new LinkedHashMap<>();
+        for (DataSource pool : pools) {
+            if (!pool.isWrapperFor(HikariDataSource.class)) {
+                continue;
+            }
+            HikariDataSource hikari = pool.unwrap(HikariDataSource.class);
+            try {
+                connections.put(hikari.getPoolName(), prefill(pool, hikari));
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Warm-up: prefill of pool {} failed", hikari.getPoolName(), e);
+                connections.put(hikari.getPoolName(), "failed: " + e.getMessage());
+            }
+        }
+        return connections;
+    }
+
+    private static int prefill(DataSource pool, HikariDataSource hikari) throws SQLException {
+        int target = Math.min(Math.max(1, hikari.getMinimumIdle()), hikari.getMaximumPoolSize());
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                borrowed.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+        return hikari.getHikariPoolMXBean() == null ? target : hikari.getHikariPoolMXBean().getTotalConnections();
+    }
+
+    private String awaitTitleIndex(long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return bookTitleIndex.awaitReady(remaining, TimeUnit.NANOSECONDS) ? "ready" : "not ready";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private int runHotQueries(long deadline) {
+        PageRequest books = PageRequest.of(0, 10, Sort.by("bookId"));
+        int round = 0;
+        while (round < iterations && System.nanoTime() < deadline) {
+            Slice<BookDTO> firstPage = bookService.getAllBooks(books, CountMode.EXACT, FieldSet.ALL);
+            bookService.getAllBooks("", books);
+            bookService.searchBooks("a", books, CountMode.EXACT, FieldSet.ALL);
+            authorService.getAllAuthors(PageRequest.of(0, 10, Sort.by("authorId")), CountMode.EXACT, FieldSet.ALL);
+            genreService.getAllGenres(PageRequest.of(0, 10, Sort.by("genreId")), CountMode.EXACT, FieldSet.ALL);
+            publisherService.getAllPublishers(PageRequest.of(0, 10, Sort.by("publisherId")), CountMode.EXACT,
+                                              FieldSet.ALL);
+            firstPage.getContent().stream()
+                     .findFirst()
+                     .ifPresent(book -> bookService.getBookDetailById(book.getBookId()));
+            round++;
+        }
+        return round;
+    }
+}
@@ -0,0 +1,82 @@
+-- Content addressed image store.
+-- Covers, portraits, logos and avatars used to live inline as base64 text in their owner rows.
+-- They are now stored once in images, keyed by the hex SHA-256 of their bytes (requires PostgreSQL 11+).
+
+create table images
+(
+    image_hash   varchar(64)  not null,
+    content_type varchar(100) not null,
+    image_size   bigint       not null,
+    content      bytea        not null,
+    constraint images_pkey
+        primary key (image_hash)
+);
+
+create function pg_temp.legacy_image(encoded text) returns bytea as
+$$
+select case
+           when encoded is null or encoded !~ '^[A-Za-z0-9+/=[:space:]]+$' then null
+           else decode(encoded, 'base64')
+           end
+$$ language sql immutable;
+
+insert into images (image_hash, content_type, image_size, content)
+select encode(sha256(img), 'hex'),
+       case
+           when substring(img from 1 for 4) = '\x89504e47'::bytea then 'image/png'
+           when substring(img from 1 for 3) = '\xffd8ff'::bytea then 'image/jpeg'
+           when substring(img from 1 for 3) = '\x474946'::bytea then 'image/gif'
+           else 'application/octet-stream'
+           end,
+       length(img),
+       img
+from (select pg_temp.legacy_image(cover) as img from books
+      union all
+      select pg_temp.legacy_image(author_portrait) from authors
+      union all
+      select pg_temp.legacy_image(publisher_logo) from publishers
+      union all
+      select pg_temp.legacy_image(avatar) from tuser) legacy
+where img is not null
+  and length(img) > 0
+on conflict (image_hash) do nothing;
+
+-- books.cover -> books.cover_hash
+alter table books
+    add column cover_hash varchar(64)
+        constraint books_cover_hash_fkey references images (image_hash);
+update books
+set cover_hash = encode(sha256(pg_temp.legacy_image(cover)), 'hex')
+where length(pg_temp.legacy_image(cover)) > 0;
+alter table books
+    drop column cover;
+
+-- authors.author_portrait -> authors.author_portrait_hash
+alter table authors
+    add column author_portrait_hash varchar(64)
+        constraint authors_author_portrait_hash_fkey references images (image_hash);
+update authors
+set author_portrait_hash = encode(sha256(pg_temp.legacy_image(author_portrait)), 'hex')
+where length(pg_temp.legacy_image(author_portrait)) > 0;
+alter table authors
+    drop column author_portrait;
+
+-- publishers.publisher_logo -> publishers.publisher_logo_hash
+alter table publishers
+    add column publisher_logo_hash varchar(64)
+        constraint publishers_publisher_logo_hash_fkey references images (image_hash);
+update publishers
+set publisher_logo_hash = encode(sha256(pg_temp.legacy_image(publisher_logo)), 'hex')
+where length(pg_temp.legacy_image(publisher_logo)) > 0;
+alter table publishers
+    drop column publisher_logo;
+
+-- tuser.avatar -> tuser.avatar_hash
+alter table tuser
+    add column avatar_hash varchar(64)
+        constraint tuser_avatar_hash_fkey references images (image_hash);
+update tuser
+set avatar_hash = encode(sha256(pg_temp.legacy_image(avatar)), 'hex')
+where length(pg_temp.legacy_image(avatar)) > 0;
+alter table tuser
+    drop column avatar;
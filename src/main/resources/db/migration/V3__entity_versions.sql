@@ -0,0 +1,14 @@
+-- Optimistic locking and ETags: catalog rows carry a version that Hibernate increments on every update.
+-- Changes to book_genres and book_authors made through Book also increment the book's version.
+
+alter table books
+    add column version bigint not null default 0;
+
+alter table authors
+    add column version bigint not null default 0;
+
+alter table genres
+    add column version bigint not null default 0;
+
+alter table publishers
+    add column version bigint not null default 0;
@@ -0,0 +1,23 @@
+-- Pooled id allocation: Hibernate and the bulk loader reserve ids 50 at a time from these sequences, so inserts can
+-- be batched (IDENTITY columns force one round trip per row). A nextval of n hands its caller the block n-49 .. n.
+-- Column defaults draw from the same sequences and only keep n, so plain SQL inserts never collide with a block.
+
+create sequence books_seq increment by 50;
+select setval('books_seq', coalesce(max(book_id), 0) + 50, false) from books;
+alter table books alter column book_id drop identity if exists;
+alter table books alter column book_id set default nextval('books_seq');
+
+create sequence authors_seq increment by 50;
+select setval('authors_seq', coalesce(max(author_id), 0) + 50, false) from authors;
+alter table authors alter column author_id drop identity if exists;
+alter table authors alter column author_id set default nextval('authors_seq');
+
+create sequence genres_seq increment by 50;
+select setval('genres_seq', coalesce(max(genre_id), 0) + 50, false) from genres;
+alter table genres alter column genre_id drop identity if exists;
+alter table genres alter column genre_id set default nextval('genres_seq');
+
+create sequence publishers_seq increment by 50;
+select setval('publishers_seq', coalesce(max(publisher_id), 0) + 50, false) from publishers;
+alter table publishers alter column publisher_id drop identity if exists;
+alter table publishers alter column publisher_id set default nextval('publishers_seq');
@@ -0,0 +1,22 @@
+-- Join-table writes go straight to SQL with ON CONFLICT DO NOTHING, which needs a unique key on each link.
+-- The inverse indexes serve the genre -> books and author -> books lookups.
+
+delete from book_genres a
+    using book_genres b
+where a.ctid < b.ctid
+  and a.book_id = b.book_id
+  and a.genre_id = b.genre_id;
+
+create unique index if not exists book_genres_book_genre_key on book_genres (book_id, genre_id);
+create index if not exists book_genres_genre_book_idx on book_genres (genre_id, book_id);
+
+delete from book_authors a
+    using book_authors b
+where a.ctid < b.ctid
+  and a.book_id = b.book_id
+  and a.author_id = b.author_id;
+
+create unique index if not exists book_authors_book_author_key on book_authors (book_id, author_id);
+create index if not exists book_authors_author_book_idx on book_authors (author_id, book_id);
+
+create index if not exists books_publisher_book_idx on books (publisher_id, book_id);
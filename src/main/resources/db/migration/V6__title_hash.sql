@@ -0,0 +1,12 @@
+-- Hash of one book title for the title index fingerprint; BookTitleIndex.titleHash computes the same in Java.
+-- The first four bytes of the MD5 of "book_id:title", as a signed integer (UTF8 databases). The title is hashed as
+-- stored: lower() would depend on the database locale.
+
+create or replace function title_hash(book_id integer, title varchar) returns integer
+    language sql
+    immutable
+    parallel safe
+as
+$$
+select ('x' || substr(md5(book_id || ':' || coalesce(title, '')), 1, 8))::bit(32)::integer
+$$;
@@ -0,0 +1,47 @@
+package com.campusdual.lituraliaopen.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class FieldSetTest {
+
+    @Test
+    void absentOrBlankIsAll() {
+        assertSame(FieldSet.ALL, FieldSet.parse(null));
+        assertSame(FieldSet.ALL, FieldSet.parse(" "));
+        assertSame(FieldSet.ALL, FieldSet.parse(" , "));
+        assertTrue(FieldSet.ALL.contains("synopsis"));
+    }
+
+    @Test
+    void parseTrimsNames() {
+        FieldSet fields = FieldSet.of("title, isbn,", BookDTO.class);
+
+        assertFalse(fields.isAll());
+        assertTrue(fields.contains("isbn"));
+        assertFalse(fields.contains("synopsis"));
+        assertEquals("title,isbn", fields.toString());
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        assertThrows(BadRequestException.class, () -> FieldSet.of("title,publisher", BookDTO.class));
+        assertThrows(BadRequestException.class, () -> FieldSet.of("class", BookDTO.class));
+    }
+
+    @Test
+    void attributesStartWithIdAndResolveDerivedFields() {
+        FieldSet fields = FieldSet.parse("coverUrl,title,bookId");
+
+        assertEquals(Arrays.asList("bookId", "coverHash", "title"),
+                     fields.attributes("bookId", Collections.singletonMap("coverUrl", "coverHash")));
+    }
+}
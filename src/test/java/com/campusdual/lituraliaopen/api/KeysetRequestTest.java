@@ -0,0 +1,56 @@
+package com.campusdual.lituraliaopen.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+
+class KeysetRequestTest {
+
+    static final List<String> SORTABLE = Arrays.asList("title", "publishDate");
+
+    @Test
+    void firstSliceDefaultsToId() {
+        KeysetRequest request = KeysetRequest.of(PageRequest.of(3, 20), "", "bookId", SORTABLE);
+
+        assertEquals(Sort.Order.asc("bookId"), request.getOrder());
+        assertNull(request.getAfter());
+        assertEquals(20, request.getSize());
+    }
+
+    @Test
+    void cursorRoundTrip() {
+        KeysetCursor cursor = new KeysetCursor("title", Direction.DESC, "Hamlet", "7");
+
+        KeysetRequest request = KeysetRequest.of(PageRequest.of(0, 10, Sort.by(Direction.DESC, "title")),
+                                                 cursor.encode(), "bookId", SORTABLE);
+
+        assertEquals(cursor, request.getAfter());
+    }
+
+    @Test
+    void rejectsSortOutsideWhitelist() {
+        assertThrows(BadRequestException.class,
+                     () -> KeysetRequest.of(PageRequest.of(0, 10, Sort.by("synopsis")), "", "bookId", SORTABLE));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String after = new KeysetCursor("title", Direction.ASC, "Hamlet", "7").encode();
+
+        assertThrows(BadRequestException.class,
+                     () -> KeysetRequest.of(PageRequest.of(0, 10, Sort.by("publishDate")), after, "bookId", SORTABLE));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(BadRequestException.class,
+                     () -> KeysetRequest.of(PageRequest.of(0, 10), "not-a-cursor", "bookId", SORTABLE));
+    }
+}
@@ -0,0 +1,60 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class CatalogExportIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportBooksAsCsv() throws Exception {
+        //given
+        long books = jdbcTemplate.queryForObject("SELECT count(*) FROM lituralia.books", Long.class);
+
+        //when
+        MvcResult started = mockMvc.perform(get("/api/export/books?format=csv"))
+                                   .andExpect(request().asyncStarted())
+                                   .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                                  .andExpect(status().isOk())
+                                  .andExpect(header().string("Content-Type", "text/csv"))
+                                  .andExpect(header().string("Content-Disposition",
+                                                             "attachment; filename=\"books.csv\""))
+                                  .andReturn();
+
+        //then
+        // the header row names the import columns, so the export reads back as an import
+        RecordReader records = ImportFormat.CSV.open(
+            new BufferedReader(new StringReader(result.getResponse().getContentAsString())), CatalogTable.BOOKS, null);
+        assertEquals(CatalogTable.BOOKS.getColumns(), records.columns());
+        long rows = 0;
+        while (records.next() != null) {
+            rows++;
+        }
+        assertEquals(books, rows);
+    }
+}
@@ -0,0 +1,109 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.campusdual.lituraliaopen.repositories.GenreRepository;
+import com.campusdual.lituraliaopen.repositories.PublisherRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class CatalogExporterTest {
+
+    @Mock
+    DataSource dataSource;
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    BookRepository bookRepository;
+    @Mock
+    BookMapper bookMapper;
+    @Mock
+    AuthorRepository authorRepository;
+    @Mock
+    AuthorMapper authorMapper;
+    @Mock
+    GenreRepository genreRepository;
+    @Mock
+    GenreMapper genreMapper;
+    @Mock
+    PublisherRepository publisherRepository;
+    @Mock
+    PublisherMapper publisherMapper;
+
+    CatalogExporter catalogExporter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(bookMapper.bookToBookDTO(any())).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            return BookDTO.builder().bookId(book.getBookId()).title(book.getTitle()).build();
+        });
+        catalogExporter = new CatalogExporter(dataSource, entityManager, transactionManager, new ObjectMapper(),
+                                              bookRepository, bookMapper, authorRepository, authorMapper,
+                                              genreRepository, genreMapper, publisherRepository, publisherMapper);
+    }
+
+    @Test
+    void exportJsonLinesWritesOneLinePerEntityAndDetachesIt() throws Exception {
+        //given
+        Book hamlet = Book.builder().bookId(1).title("Hamlet").build();
+        Book macbeth = Book.builder().bookId(2).title("Macbeth").build();
+        when(bookRepository.streamAll()).thenReturn(Stream.of(hamlet, macbeth));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        //when
+        catalogExporter.export(CatalogTable.BOOKS, ImportFormat.JSONL, out);
+
+        //then
+        List<String> lines = Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n", -1));
+        assertEquals(3, lines.size());
+        assertEquals("", lines.get(2));
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("Hamlet", objectMapper.readValue(lines.get(0), BookDTO.class).getTitle());
+        assertEquals("Macbeth", objectMapper.readValue(lines.get(1), BookDTO.class).getTitle());
+        // each entity leaves the persistence context before the next one is read
+        InOrder inOrder = inOrder(bookMapper, entityManager);
+        inOrder.verify(bookMapper).bookToBookDTO(hamlet);
+        inOrder.verify(entityManager).detach(hamlet);
+        inOrder.verify(bookMapper).bookToBookDTO(macbeth);
+        inOrder.verify(entityManager).detach(macbeth);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void exportJsonLinesOnlyForEntityTables() {
+        assertThrows(BadRequestException.class,
+                     () -> catalogExporter.check(CatalogTable.BOOK_GENRES, ImportFormat.JSONL));
+    }
+}
@@ -0,0 +1,78 @@
+package com.campusdual.lituraliaopen.bulk;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class RecordReaderTest {
+
+    @Test
+    void csv() throws Exception {
+        RecordReader records = ImportFormat.CSV.open(reader("Genre_Name,genre_desc\r\n"
+                                                            + "Drama,\"Plays, mostly\"\r\n"
+                                                            + "\n"
+                                                            + "Poetry,\"\"\n"
+                                                            + "\"Say \"\"hi\"\"\",\"two\nlines\"\n"
+                                                            + "Essay,"),
+                                                     CatalogTable.GENRES, null);
+
+        assertEquals(Arrays.asList("genre_name", "genre_desc"), records.columns());
+        assertArrayEquals(new String[]{"Drama", "Plays, mostly"}, records.next());
+        assertArrayEquals(new String[]{"Poetry", ""}, records.next());
+        assertArrayEquals(new String[]{"Say \"hi\"", "two\nlines"}, records.next());
+        assertArrayEquals(new String[]{"Essay", null}, records.next());
+        assertEquals(7, records.line());
+        assertNull(records.next());
+    }
+
+    @Test
+    void csvRejectsUnknownColumnsAndRaggedRows() throws Exception {
+        assertThrows(BadRequestException.class,
+                     () -> ImportFormat.CSV.open(reader("genre_name,color\n"), CatalogTable.GENRES, null));
+
+        RecordReader records = ImportFormat.CSV.open(reader("genre_name,genre_desc\nDrama\n"),
+                                                     CatalogTable.GENRES, null);
+        assertThrows(BadRequestException.class, records::next);
+    }
+
+    @Test
+    void jsonLines() throws Exception {
+        RecordReader records = ImportFormat.JSONL.open(reader("{\"book_id\":7,\"genre_id\":3}\n"
+                                                              + "\n"
+                                                              + "{\"genre_id\":4,\"book_id\":null}\n"),
+                                                       CatalogTable.BOOK_GENRES, new ObjectMapper());
+
+        assertArrayEquals(new String[]{"7", "3"}, records.next());
+        assertArrayEquals(new String[]{null, "4"}, records.next());
+        assertEquals(3, records.line());
+        assertNull(records.next());
+    }
+
+    @Test
+    void jsonLinesRejectsUnknownColumns() throws Exception {
+        RecordReader records = ImportFormat.JSONL.open(reader("{\"book_id\":7,\"shelf\":3}\n"),
+                                                       CatalogTable.BOOK_GENRES, new ObjectMapper());
+
+        assertThrows(BadRequestException.class, records::next);
+    }
+
+    @Test
+    void tableAndFormatNames() {
+        assertEquals(CatalogTable.BOOK_AUTHORS, CatalogTable.of("book-authors"));
+        assertEquals(ImportFormat.JSONL, ImportFormat.ofFileName("books.jsonl.gz"));
+        assertEquals(ImportFormat.CSV, ImportFormat.ofContentType("text/csv; charset=UTF-8"));
+        assertThrows(BadRequestException.class, () -> CatalogTable.of("users"));
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+}
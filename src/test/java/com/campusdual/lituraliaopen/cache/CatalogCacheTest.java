@@ -0,0 +1,73 @@
+package com.campusdual.lituraliaopen.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class CatalogCacheTest {
+
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+    @Mock
+    SessionFactory sessionFactory;
+    @Mock
+    Cache cache;
+    @Mock
+    CacheManager hibernateCacheManager;
+
+    CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        catalogCache = new CatalogCache(entityManagerFactory, hibernateCacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictNowAndAfterCommitInATransaction() {
+        //given
+        AtomicInteger evictions = new AtomicInteger();
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when
+        catalogCache.evictNowAndAfterCommit(evictions::incrementAndGet);
+
+        //then
+        assertEquals(1, evictions.get());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2, evictions.get());
+    }
+
+    @Test
+    void evictNowOutsideATransaction() {
+        //given
+        AtomicInteger evictions = new AtomicInteger();
+
+        //when
+        catalogCache.evictNowAndAfterCommit(evictions::incrementAndGet);
+
+        //then
+        assertEquals(1, evictions.get());
+    }
+}
@@ -4,17 +4,24 @@ import static com.campusdual.lituraliaopen.controllers.AbstractRestControllerTes
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.api.service.ImageService;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.domain.Image;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -22,6 +29,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
@@ -30,9 +38,13 @@ class BookControllerTest {
     public static final String REST_URL = "/api/books";
     public static final String HAMLET = "Hamlet";
     public static final String HAMLET_ISBN = "123456";
+    public static final String COVER_HASH = "5d41402abc4b2a76b9719d911017c592";
     @Mock
     BookService service;
 
+    @Mock
+    ImageService imageService;
+
     @InjectMocks
     BookController controller;
 
@@ -91,6 +103,37 @@ class BookControllerTest {
                .andExpect(jsonPath("$.isbn", equalTo(HAMLET_ISBN)));
     }
 
+    @Test
+    void getBookNotModified() throws Exception {
+        when(service.getBookVersion(anyInt())).thenReturn(3L);
+
+        mockMvc.perform(get(REST_URL + "/1").header("If-None-Match", "\"3\""))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string("ETag", "\"3\""));
+
+        verify(service, never()).getBookById(anyInt());
+    }
+
+    @Test
+    void updateBookPreconditionFailed() throws Exception {
+        BookDTO book1 = BookDTO.builder()
+                               .bookId(1)
+                               .isbn(HAMLET_ISBN)
+                               .title(HAMLET)
+                               .build();
+
+        when(service.updateBook(anyInt(), any(BookDTO.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 1));
+
+        mockMvc.perform(put(REST_URL + "/1")
+                            .header("If-Match", "\"2\"")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(asJsonString(book1)))
+               .andExpect(status().isPreconditionFailed());
+
+        verify(service).updateBook(anyInt(), argThat(dto -> Long.valueOf(2).equals(dto.getVersion())));
+    }
+
     @Test
     void createBook() throws Exception {
         //given
@@ -165,5 +208,32 @@ class BookControllerTest {
                .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getBookCover() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        when(service.getBookCoverHash(anyInt())).thenReturn(COVER_HASH);
+        when(imageService.getImage(COVER_HASH)).thenReturn(Image.builder()
+                                                                .imageHash(COVER_HASH)
+                                                                .contentType("image/png")
+                                                                .content(png)
+                                                                .build());
+
+        mockMvc.perform(get(REST_URL + "/1/cover").param("v", COVER_HASH))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", "max-age=31536000, public"))
+               .andExpect(header().string("ETag", "\"" + COVER_HASH + "\""))
+               .andExpect(content().contentType(MediaType.IMAGE_PNG))
+               .andExpect(content().bytes(png));
+    }
+
+    @Test
+    void getBookCoverNotModified() throws Exception {
+        when(service.getBookCoverHash(anyInt())).thenReturn(COVER_HASH);
+
+        mockMvc.perform(get(REST_URL + "/1/cover").header("If-None-Match", "\"" + COVER_HASH + "\""))
+               .andExpect(status().isNotModified());
+
+        verify(imageService, never()).getImage(any());
+    }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.campusdual.lituraliaopen.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimitTest {
+
+    @Test
+    void rejectsBeyondTheLimit() {
+        //given
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 1.5);
+
+        //when
+        boolean first = limit.tryAcquire();
+        boolean second = limit.tryAcquire();
+        boolean third = limit.tryAcquire();
+
+        //then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(1, limit.getRejected());
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        //given
+        AdaptiveLimit limit = new AdaptiveLimit(20, 1, 100, 1.5);
+
+        //when
+        windows(limit, 5, 10, 20);
+        int grown = limit.getLimit();
+        windows(limit, 5, 100, grown);
+        int shrunk = limit.getLimit();
+
+        //then
+        assertTrue(grown > 20);
+        assertTrue(shrunk < grown);
+        assertTrue(shrunk >= 1);
+    }
+
+    @Test
+    void keepsTheLimitWhenTrafficStaysFarBelowIt() {
+        //given
+        AdaptiveLimit limit = new AdaptiveLimit(20, 1, 100, 1.5);
+
+        //when
+        windows(limit, 5, 10, 2);
+
+        //then
+        assertEquals(20, limit.getLimit());
+    }
+
+    // -------- Internals
+
+    private static void windows(AdaptiveLimit limit, int windows, long latencyMillis, int inFlight) {
+        for (int i = 0; i < windows * AdaptiveLimit.WINDOW; i++) {
+            limit.sample(TimeUnit.MILLISECONDS.toNanos(latencyMillis), inFlight);
+        }
+    }
+}
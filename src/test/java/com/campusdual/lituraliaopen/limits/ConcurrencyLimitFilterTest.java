@@ -0,0 +1,80 @@
+package com.campusdual.lituraliaopen.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+    ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        LimitsProperties properties = new LimitsProperties();
+        properties.setWrite(new LimitsProperties.Limit(1, 1, 1));
+        filter = new ConcurrencyLimitFilter(properties);
+    }
+
+    @Test
+    void shedsWritesOverTheLimit() throws ServletException, IOException {
+        //given
+        filter.getLimits().get(Bulkhead.WRITE).tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/books"), response, chain);
+
+        //then
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertEquals(ConcurrencyLimitFilter.OVER_CAPACITY, response.getContentAsString());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void readsKeepTheirOwnBulkhead() throws ServletException, IOException {
+        //given
+        filter.getLimits().get(Bulkhead.WRITE).tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/books/search"), response, chain);
+
+        //then
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(0, filter.getLimits().get(Bulkhead.SEARCH).getInFlight());
+    }
+
+    @Test
+    void letsExcludedPathsThrough() throws ServletException, IOException {
+        //given
+        filter.getLimits().get(Bulkhead.WRITE).tryAcquire();
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/admin/reindex"), response, chain);
+
+        //then
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void classifiesRequests() {
+        assertEquals(Bulkhead.READ, Bulkhead.of(new MockHttpServletRequest("GET", "/api/books/1")));
+        assertEquals(Bulkhead.SEARCH, Bulkhead.of(new MockHttpServletRequest("HEAD", "/api/authors/search")));
+        assertEquals(Bulkhead.WRITE, Bulkhead.of(new MockHttpServletRequest("PATCH", "/api/books/1")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.campusdual.lituraliaopen.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.services.BookServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+
+class MetricsAspectTest {
+
+    @Mock
+    ProceedingJoinPoint joinPoint;
+
+    @Mock
+    Signature signature;
+
+    @Mock
+    BookServiceImpl bookService;
+
+    SimpleMeterRegistry meterRegistry;
+    MetricsAspect metricsAspect;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        metricsAspect = new MetricsAspect(meterRegistry);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(bookService);
+        when(signature.getName()).thenReturn("getBookById");
+    }
+
+    @Test
+    void timeService() throws Throwable {
+        when(joinPoint.proceed()).thenReturn("book");
+
+        assertEquals("book", metricsAspect.timeService(joinPoint));
+
+        Timer timer = meterRegistry.get(MetricsAspect.SERVICE_TIMER)
+                                   .tag("method", "getBookById")
+                                   .tag("exception", "none")
+                                   .timer();
+        assertEquals(1, timer.count());
+        assertNull(timer.getId().getTag("uri"));
+    }
+
+    @Test
+    void timeServiceFailure() throws Throwable {
+        when(joinPoint.proceed()).thenThrow(new ResourceNotFoundException());
+
+        assertThrows(ResourceNotFoundException.class, () -> metricsAspect.timeService(joinPoint));
+
+        Timer timer = meterRegistry.get(MetricsAspect.SERVICE_TIMER)
+                                   .tag("exception", "ResourceNotFoundException")
+                                   .timer();
+        assertEquals(1, timer.count());
+    }
+}
@@ -0,0 +1,118 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.opentest4j.AssertionFailedError;
+
+class ProfilingDataSourceTest {
+
+    static final String BOOK_BY_ID = "select b.title from books b where b.book_id=?";
+
+    @Mock
+    DataSource target;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    PreparedStatement preparedStatement;
+
+    @Mock
+    Statement statement;
+
+    QueryProfiler profiler = new QueryProfiler(100);
+
+    ProfilingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.initMocks(this);
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.createStatement()).thenReturn(statement);
+        dataSource = new ProfilingDataSource(target, profiler);
+    }
+
+    @Test
+    void recordsStatementsOfTheCurrentLog() throws SQLException {
+        QueryLog queries = profiler.start();
+        try (Connection profiled = dataSource.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                PreparedStatement bookById = profiled.prepareStatement(BOOK_BY_ID);
+                bookById.setInt(1, i);
+                bookById.executeQuery();
+            }
+            profiled.createStatement().execute("select count(*) from books where title = 'Hamlet'");
+        } finally {
+            profiler.stop(queries);
+        }
+
+        assertEquals(4, queries.getStatements());
+        assertEquals(Collections.singletonMap(BOOK_BY_ID, 3), queries.repeated(2));
+        assertEquals(2, profiler.top(10).size());
+        assertEquals(3, profiler.top(10).stream()
+                                .filter(fingerprint -> fingerprint.getQuery().equals(BOOK_BY_ID))
+                                .findFirst()
+                                .get()
+                                .getCount());
+    }
+
+    @Test
+    void nestedLogsAddUp() throws SQLException {
+        QueryLog outer = profiler.start();
+        QueryLog inner = profiler.start();
+        dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+        profiler.stop(inner);
+        dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+        profiler.stop(outer);
+        dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+
+        assertEquals(1, inner.getStatements());
+        assertEquals(2, outer.getStatements());
+        assertEquals(3, profiler.top(1).get(0).getCount());
+    }
+
+    @Test
+    void unwrapReachesTheDriver() throws SQLException {
+        when(connection.unwrap(Connection.class)).thenReturn(connection);
+
+        assertSame(connection, dataSource.getConnection().unwrap(Connection.class));
+    }
+
+    @Test
+    void fingerprintsTakeOutLiteralsAndInListLengths() {
+        assertEquals("select * from books b0_ where b0_.title = ? and b0_.year > ? limit ?",
+                     QueryProfiler.fingerprint("select * from books b0_\n where b0_.title = 'O''Brien' "
+                                               + "and b0_.year > 1999 limit 20"));
+        assertEquals("select * from authors where author_id in (?...)",
+                     QueryProfiler.fingerprint("select * from authors where author_id in (?, ?, ?)"));
+        assertEquals(QueryProfiler.fingerprint("select * from authors where author_id in (1,2)"),
+                     QueryProfiler.fingerprint("select * from authors where author_id in (?, ?, ?, ?)"));
+    }
+
+    @Test
+    void assertionsFailOverBudget() throws SQLException {
+        assertEquals(1, QueryAssertions.assertMaxStatements(profiler, 1, () -> {
+            dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+            return 1;
+        }));
+        assertThrows(AssertionFailedError.class, () -> QueryAssertions.assertNoRepeatedQueries(profiler, 2, () -> {
+            dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+            return dataSource.getConnection().prepareStatement(BOOK_BY_ID).executeQuery();
+        }));
+    }
+}
@@ -0,0 +1,54 @@
+package com.campusdual.lituraliaopen.profiling;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Map;
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+/**
+ * Statement budgets for tests running against the database: service ITs, or MockMvc tests over a real context, as
+ * MockMvc runs the request on the test thread.
+ */
+public final class QueryAssertions {
+
+    private QueryAssertions() {
+    }
+
+    /**
+     * Runs {@code work} and fails if it ran more than {@code maxStatements} statements; returns what it returned.
+     */
+    public static <T> T assertMaxStatements(QueryProfiler profiler, int maxStatements, ThrowingSupplier<T> work) {
+        QueryLog queries = profiler.start();
+        T result;
+        try {
+            result = work.get();
+        } catch (Throwable e) {
+            return fail(e);
+        } finally {
+            profiler.stop(queries);
+        }
+        assertTrue(queries.getStatements() <= maxStatements,
+                   () -> "Expected at most " + maxStatements + " statements, ran " + queries + ": "
+                         + queries.getFingerprints());
+        return result;
+    }
+
+    /**
+     * Runs {@code work} and fails if it ran any query {@code times} times or more, the N+1 shape.
+     */
+    public static <T> T assertNoRepeatedQueries(QueryProfiler profiler, int times, ThrowingSupplier<T> work) {
+        QueryLog queries = profiler.start();
+        T result;
+        try {
+            result = work.get();
+        } catch (Throwable e) {
+            return fail(e);
+        } finally {
+            profiler.stop(queries);
+        }
+        Map<String, Integer> repeated = queries.repeated(times);
+        assertTrue(repeated.isEmpty(), () -> "Queries run " + times + " times or more: " + repeated);
+        return result;
+    }
+}
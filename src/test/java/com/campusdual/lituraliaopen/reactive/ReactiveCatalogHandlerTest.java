@@ -0,0 +1,104 @@
+package com.campusdual.lituraliaopen.reactive;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
+import com.campusdual.lituraliaopen.api.mapper.BookMapper;
+import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
+import com.campusdual.lituraliaopen.api.mapper.PublisherMapper;
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.domain.Genre;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveCatalogHandlerTest {
+
+    @Mock
+    ReactiveCatalogRepository repository;
+
+    @Mock
+    BookTitleIndex bookTitleIndex;
+
+    WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReactiveCatalogHandler handler = new ReactiveCatalogHandler(repository, bookTitleIndex, BookMapper.INSTANCE,
+                                                                    AuthorMapper.INSTANCE, GenreMapper.INSTANCE,
+                                                                    PublisherMapper.INSTANCE);
+        client = WebTestClient.bindToRouterFunction(ReactiveCatalogConfig.routes(handler)).build();
+    }
+
+    @Test
+    void getAllBooksFetchesOneRowMoreToTellTheNextPage() {
+        when(repository.findBooks(any(Pageable.class))).thenReturn(Flux.just(book(1), book(2), book(3)));
+
+        client.get().uri("/api/books?page=0&size=2").exchange()
+              .expectStatus().isOk()
+              .expectBody()
+              .jsonPath("$.content.length()").isEqualTo(2)
+              .jsonPath("$.content[0].bookId").isEqualTo(1)
+              .jsonPath("$.last").isEqualTo(false);
+    }
+
+    @Test
+    void searchBooksUsesTheTitleIndexWhenReady() {
+        when(bookTitleIndex.isReady()).thenReturn(true);
+        when(bookTitleIndex.search("sea")).thenReturn(new int[]{4, 9});
+        when(repository.findBooksByIds(new Integer[]{4, 9})).thenReturn(Flux.just(book(4), book(9)));
+
+        client.get().uri("/api/books/search?searchTerm=sea").exchange()
+              .expectStatus().isOk()
+              .expectBody()
+              .jsonPath("$.content[1].bookId").isEqualTo(9)
+              .jsonPath("$.last").isEqualTo(true);
+    }
+
+    @Test
+    void getBookByIdNotFound() {
+        when(repository.findBook(7)).thenReturn(Mono.empty());
+
+        client.get().uri("/api/books/7").exchange()
+              .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getBookGenres() {
+        when(repository.exists("books", "book_id", 1)).thenReturn(Mono.just(true));
+        when(repository.findBookGenres(1)).thenReturn(Flux.just(Genre.builder().genreId(3).genreName("Poetry").build()));
+
+        client.get().uri("/api/books/1/genres").exchange()
+              .expectStatus().isOk()
+              .expectBody()
+              .jsonPath("$.content[0].genreName").isEqualTo("Poetry");
+    }
+
+    @Test
+    void getAuthorBooksOfMissingAuthor() {
+        when(repository.exists("authors", "author_id", 5)).thenReturn(Mono.just(false));
+        when(repository.findAuthorBooks(eq(5), any(Pageable.class))).thenReturn(Flux.empty());
+
+        client.get().uri("/api/authors/5/books").exchange()
+              .expectStatus().isNotFound();
+    }
+
+    @Test
+    void invalidPageSizeIsBadRequest() {
+        client.get().uri("/api/books?size=-1").exchange()
+              .expectStatus().isBadRequest();
+    }
+
+    private static Book book(int bookId) {
+        return Book.builder().bookId(bookId).version(0L).title("Book " + bookId).build();
+    }
+}
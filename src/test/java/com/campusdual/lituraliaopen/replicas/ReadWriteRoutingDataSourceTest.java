@@ -0,0 +1,160 @@
+package com.campusdual.lituraliaopen.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.replicas.ReadWriteRoutingDataSource.Replica;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class ReadWriteRoutingDataSourceTest {
+
+    ReadWriteRoutingDataSource routingDataSource;
+
+    HikariDataSource replica1 = mock(HikariDataSource.class);
+    HikariDataSource replica2 = mock(HikariDataSource.class);
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource = new ReadWriteRoutingDataSource(mock(DataSource.class),
+                                                           Arrays.asList(new Replica("replica-1", replica1),
+                                                                         new Replica("replica-2", replica2)),
+                                                           new ReadYourWrites(Duration.ofSeconds(5)),
+                                                           Duration.ofSeconds(5), Duration.ofSeconds(1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsGoRoundRobinToHealthyReplicas() throws SQLException {
+        //given
+        lag(replica1, 0.0);
+        lag(replica2, 1.5);
+        routingDataSource.checkLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //then
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-2", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void laggingOrUnreachableReplicasFallBackToThePrimary() throws SQLException {
+        //given
+        lag(replica1, 30.0);
+        lag(replica2, 0.0);
+        routingDataSource.checkLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //then
+        assertEquals("replica-2", routingDataSource.determineCurrentLookupKey());
+        assertEquals("replica-2", routingDataSource.determineCurrentLookupKey());
+
+        //when
+        when(replica2.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource.checkLag();
+
+        //then
+        assertFalse(routingDataSource.getReplicas().get(1).isHealthy());
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        assertEquals(1, routingDataSource.getFallbackReads());
+    }
+
+    @Test
+    void writesStickTheClientsReadsToThePrimary() throws SQLException {
+        //given
+        lag(replica1, 0.0);
+        lag(replica2, 0.0);
+        routingDataSource.checkLag();
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        //when
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(0));
+
+        //then
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertNotNull(cookie);
+        assertEquals(cookie.getValue(), response.getHeader(ReadYourWrites.HEADER));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        //when the next request carries the cookie
+        request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+
+        //then
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        assertEquals(2, routingDataSource.getStickyReads());
+    }
+
+    @Test
+    void crossOriginClientsStickByEchoingTheHeader() throws SQLException {
+        //given
+        lag(replica1, 0.0);
+        lag(replica2, 0.0);
+        routingDataSource.checkLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        long now = System.currentTimeMillis();
+
+        //when the header carries a deadline this instance could have issued
+        request.addHeader(ReadYourWrites.HEADER, String.valueOf(now + 3000));
+
+        //then
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        //when it lies beyond sticky-for
+        request = new MockHttpServletRequest();
+        request.addHeader(ReadYourWrites.HEADER, String.valueOf(now + 3_600_000));
+        request.setCookies(new Cookie(ReadYourWrites.COOKIE, String.valueOf(Long.MAX_VALUE)));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+
+        //then
+        assertEquals("replica-1", routingDataSource.determineCurrentLookupKey());
+    }
+
+    // -------- Internals
+
+    private static void lag(HikariDataSource replica, double seconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(seconds);
+    }
+}
@@ -0,0 +1,115 @@
+package com.campusdual.lituraliaopen.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
+import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.api.service.GenreService;
+import com.campusdual.lituraliaopen.replicas.ReadWriteRoutingDataSource.Replica;
+import com.campusdual.lituraliaopen.repositories.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Runs against a primary and one streaming replica of it: see {@code application-replicas.properties}.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("replicas")
+class ReplicaRoutingIT {
+
+    @Autowired
+    ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    GenreService genreService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    Replica replica;
+
+    @BeforeEach
+    void setUp() {
+        routingDataSource.checkLag();
+        replica = routingDataSource.getReplicas().get(0);
+        assertTrue(replica.isHealthy(), "replica is unreachable or lagging: " + replica.getLagSeconds() + " s");
+        request(new MockHttpServletRequest());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyServiceCallsGoToTheReplica() {
+        //given
+        Integer bookId = bookRepository.findAllBy(PageRequest.of(0, 1)).getContent().get(0).getBookId();
+        long replicaReads = replica.getReads();
+        long stickyReads = routingDataSource.getStickyReads();
+
+        //when
+        bookService.getBookById(bookId);
+
+        //then
+        assertTrue(replica.getReads() > replicaReads);
+        assertEquals(stickyReads, routingDataSource.getStickyReads());
+    }
+
+    @Test
+    void readsRightAfterAWriteStayOnThePrimary() {
+        //given
+        GenreDTO genre = genreService.createGenre(GenreDTO.builder().genreName("Replica routing IT").build());
+        try {
+            long stickyReads = routingDataSource.getStickyReads();
+            String primaryUntil = response.getHeader(ReadYourWrites.HEADER);
+            assertNotNull(primaryUntil);
+
+            //when read in the request that wrote
+            GenreDTO read = genreService.getGenreById(genre.getGenreId());
+
+            //then
+            assertEquals(genre.getGenreName(), read.getGenreName());
+            assertEquals(stickyReads + 1, routingDataSource.getStickyReads());
+
+            //when read in a later request echoing the deadline
+            MockHttpServletRequest next = new MockHttpServletRequest();
+            next.addHeader(ReadYourWrites.HEADER, primaryUntil);
+            request(next);
+            read = genreService.getGenreById(genre.getGenreId());
+
+            //then
+            assertEquals(genre.getGenreName(), read.getGenreName());
+            assertEquals(stickyReads + 2, routingDataSource.getStickyReads());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+            genreService.deleteGenreById(genre.getGenreId());
+        }
+    }
+
+    // -------- Internals
+
+    private void request(MockHttpServletRequest request) {
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+}
@@ -0,0 +1,108 @@
+package com.campusdual.lituraliaopen.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.search.BookTitleIndex.Fingerprint;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+class BookTitleIndexTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+    @Mock
+    ResultSet resultSet;
+
+    // the books table behind the mocked queries
+    Map<Integer, String> books = new LinkedHashMap<>();
+    Map.Entry<Integer, String> row;
+
+    BookTitleIndex bookTitleIndex;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(jdbcTemplate.queryForObject(eq(BookTitleIndex.FINGERPRINT_QUERY), any(RowMapper.class)))
+            .thenAnswer(invocation -> databaseFingerprint());
+        when(resultSet.getInt(1)).thenAnswer(invocation -> row.getKey());
+        when(resultSet.getString(2)).thenAnswer(invocation -> row.getValue());
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Integer, String> book : books.entrySet()) {
+                row = book;
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(eq(BookTitleIndex.TITLES_QUERY), any(RowCallbackHandler.class));
+
+        books.put(1, "Hamlet");
+        books.put(2, "Macbeth");
+        bookTitleIndex = new BookTitleIndex(jdbcTemplate, true, dir.resolve("titles.idx").toString());
+        bookTitleIndex.load();
+    }
+
+    @Test
+    void titleHashMatchesTheDatabaseFunction() {
+        // left(md5('1:Hamlet'), 8) = 'cd5ce8b9'
+        assertEquals(0xcd5ce8b9, BookTitleIndex.titleHash(1, "Hamlet"));
+        assertEquals(BookTitleIndex.titleHash(1, ""), BookTitleIndex.titleHash(1, null));
+    }
+
+    @Test
+    void localChangesDoNotTriggerARebuild() {
+        //given
+        books.put(3, "Othello");
+        bookTitleIndex.onCatalogChanged(CatalogChangedEvent.created(Type.BOOK, 3, "Othello"));
+        books.put(1, "Hamlet, Prince of Denmark");
+        bookTitleIndex.onCatalogChanged(CatalogChangedEvent.updated(Type.BOOK, 1, "Hamlet, Prince of Denmark"));
+        books.remove(2);
+        bookTitleIndex.onCatalogChanged(CatalogChangedEvent.deleted(Type.BOOK, 2));
+
+        //when
+        bookTitleIndex.refreshIfChanged();
+
+        //then
+        verify(jdbcTemplate, times(1)).query(eq(BookTitleIndex.TITLES_QUERY), any(RowCallbackHandler.class));
+        assertArrayEquals(new int[]{1, 3}, bookTitleIndex.search(""));
+    }
+
+    @Test
+    void unexplainedChangesTriggerARebuild() {
+        //given
+        books.put(1, "The Tragedy of Hamlet");
+
+        //when
+        bookTitleIndex.refreshIfChanged();
+
+        //then
+        verify(jdbcTemplate, times(2)).query(eq(BookTitleIndex.TITLES_QUERY), any(RowCallbackHandler.class));
+        assertArrayEquals(new int[]{1}, bookTitleIndex.search("tragedy"));
+    }
+
+    private Fingerprint databaseFingerprint() {
+        long hashSum = 0;
+        for (Map.Entry<Integer, String> book : books.entrySet()) {
+            hashSum += BookTitleIndex.titleHash(book.getKey(), book.getValue());
+        }
+        return new Fingerprint(books.size(), hashSum);
+    }
+}
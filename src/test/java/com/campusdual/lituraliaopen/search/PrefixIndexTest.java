@@ -0,0 +1,127 @@
+package com.campusdual.lituraliaopen.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
+import com.campusdual.lituraliaopen.search.PrefixIndex.Suggestion;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+
+    static final Set<Type> ALL = EnumSet.allOf(Type.class);
+
+    PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PrefixIndex();
+        index.put(Type.BOOK, 1, "Hamlet");
+        index.put(Type.BOOK, 2, "The Tragedy of Hamlet, Prince of Denmark");
+        index.put(Type.BOOK, 3, "Cien años de soledad");
+        index.put(Type.AUTHOR, 1, "Gabriel García Márquez");
+        index.put(Type.GENRE, 1, "Drama");
+        index.put(Type.PUBLISHER, 1, "Editorial Sudamericana");
+    }
+
+    @Test
+    void suggestByWordPrefix() {
+        assertEquals(texts("Hamlet", "The Tragedy of Hamlet, Prince of Denmark"), texts(index.suggest("ham", ALL, 10)));
+        assertEquals(texts("The Tragedy of Hamlet, Prince of Denmark"), texts(index.suggest("PRINCE", ALL, 10)));
+        assertTrue(index.suggest("amlet", ALL, 10).isEmpty());
+    }
+
+    @Test
+    void suggestFoldsCaseAndAccents() {
+        assertEquals(texts("Gabriel García Márquez"), texts(index.suggest("garcia marq", ALL, 10)));
+        assertEquals(texts("Gabriel García Márquez"), texts(index.suggest("MÁR GAB", ALL, 10)));
+        assertEquals(texts("Cien años de soledad"), texts(index.suggest("anos", ALL, 10)));
+    }
+
+    @Test
+    void suggestNeedsEveryWord() {
+        assertEquals(texts("The Tragedy of Hamlet, Prince of Denmark"), texts(index.suggest("ham den", ALL, 10)));
+        assertTrue(index.suggest("hamlet drama", ALL, 10).isEmpty());
+    }
+
+    @Test
+    void suggestFiltersTypesAndLimits() {
+        List<Suggestion> suggestions = index.suggest("d", EnumSet.of(Type.GENRE, Type.PUBLISHER), 10);
+
+        assertEquals(texts("Drama"), texts(suggestions));
+        assertEquals(Type.GENRE, suggestions.get(0).getType());
+        assertEquals(1, index.suggest("h", ALL, 1).size());
+    }
+
+    @Test
+    void suggestRanksLeadingWordsAndShortNamesFirst() {
+        index.put(Type.BOOK, 4, "Hamlet and Macbeth");
+
+        assertEquals(texts("Hamlet", "Hamlet and Macbeth", "The Tragedy of Hamlet, Prince of Denmark"),
+                     texts(index.suggest("hamlet", ALL, 10)));
+    }
+
+    @Test
+    void suggestBeyondTheCachedBest() {
+        for (int i = 10; i < 10 + PrefixIndex.TOP * 2; i++) {
+            index.put(Type.BOOK, i, "Sonnet " + i);
+        }
+        index.put(Type.AUTHOR, 2, "Sonnet Writer Zed");
+
+        assertEquals(texts("Sonnet Writer Zed"), texts(index.suggest("son zed", ALL, 10)));
+        // the books under "son" live in the book trie: the author trie answers from its own best names
+        assertEquals(texts("Sonnet Writer Zed"), texts(index.suggest("son", EnumSet.of(Type.AUTHOR), 10)));
+    }
+
+    @Test
+    void suggestRanksAcrossTypes() {
+        index.put(Type.AUTHOR, 2, "Dante Alighieri");
+        index.put(Type.BOOK, 4, "Don Quijote");
+
+        assertEquals(texts("Drama", "Don Quijote", "Dante Alighieri"), texts(index.suggest("d", ALL, 3)));
+    }
+
+    @Test
+    void suggestFollowsChangesBelowALookedUpPrefix() {
+        for (int i = 10; i < 10 + PrefixIndex.KEPT * 2; i++) {
+            index.put(Type.BOOK, i, "Sonnet number " + i);
+        }
+        assertEquals(texts("Sonnet number 10"), texts(index.suggest("s", ALL, 1)));
+
+        index.put(Type.BOOK, 1000, "Son");
+        assertEquals(texts("Son", "Sonnet number 10"), texts(index.suggest("s", ALL, 2)));
+
+        index.remove(Type.BOOK, 1000);
+        for (int i = 10; i < 10 + PrefixIndex.KEPT; i++) {
+            index.remove(Type.BOOK, i);
+        }
+        assertEquals(texts("Sonnet number 138", "Sonnet number 139"), texts(index.suggest("s", ALL, 2)));
+    }
+
+    @Test
+    void putAndRemove() {
+        index.put(Type.BOOK, 1, "Othello");
+        index.remove(Type.BOOK, 2);
+        index.put(Type.BOOK, 5, "Echo echo");
+        index.remove(Type.BOOK, 5);
+
+        assertTrue(index.suggest("ham", ALL, 10).isEmpty());
+        assertEquals(texts("Othello"), texts(index.suggest("oth", ALL, 10)));
+        assertTrue(index.suggest("echo", ALL, 10).isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    private static List<String> texts(String... texts) {
+        return Arrays.asList(texts);
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getText).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,65 @@
+package com.campusdual.lituraliaopen.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrigramIndexTest {
+
+    TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = TrigramIndex.build(new int[]{3, 1, 2, 4},
+                                   new String[]{"Hamlet", "Macbeth", "The Tragedy of Hamlet", "El Quijote"},
+                                   2);
+    }
+
+    @Test
+    void search() {
+        assertArrayEquals(new int[]{2, 3}, index.search("HAMLET"));
+        assertArrayEquals(new int[]{2}, index.search("tragedy of"));
+        assertArrayEquals(new int[0], index.search("Othello"));
+    }
+
+    @Test
+    void searchVerifiesCandidates() {
+        // every trigram of "hamlet ham" appears in "the tragedy of hamlet", but not contiguously
+        assertArrayEquals(new int[0], index.search("hamlet ham"));
+    }
+
+    @Test
+    void searchShortTerms() {
+        assertArrayEquals(new int[]{1, 2, 3}, index.search("h"));
+        assertArrayEquals(new int[]{1, 2, 3, 4}, index.search(""));
+    }
+
+    @Test
+    void putAndRemove() {
+        index.put(5, "Hamlet, Prince of Denmark");
+        index.put(3, "Othello");
+        index.remove(2);
+
+        assertArrayEquals(new int[]{5}, index.search("hamlet"));
+        assertArrayEquals(new int[]{3}, index.search("othello"));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void writeAndRead(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("titles.idx");
+        index.writeTo(file, 42L);
+
+        TrigramIndex read = TrigramIndex.readFrom(file, 42L);
+
+        assertEquals(4, read.size());
+        assertArrayEquals(new int[]{2, 3}, read.search("hamlet"));
+        assertNull(TrigramIndex.readFrom(file, 43L));
+        assertNull(TrigramIndex.readFrom(dir.resolve("missing.idx"), 42L));
+    }
+}
@@ -3,32 +3,42 @@ package com.campusdual.lituraliaopen.services;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.AuthorDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.service.AuthorService;
+import com.campusdual.lituraliaopen.cache.CatalogCache;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Author;
 import com.campusdual.lituraliaopen.domain.Book;
 import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository.Link;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 
 class AuthorServiceImplTest {
@@ -40,6 +50,16 @@ class AuthorServiceImplTest {
 
     @Mock
     BookRepository bookRepository;
+    @Mock
+    CatalogCache catalogCache;
+    @Mock
+    BookLinkRepository bookLinkRepository;
+    @Mock
+    CatalogCounts catalogCounts;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    BatchRunner batchRunner;
 
     BookMapper bookMapper = BookMapper.INSTANCE;
     AuthorMapper authorMapper = AuthorMapper.INSTANCE;
@@ -48,7 +68,9 @@ class AuthorServiceImplTest {
     void setUp() {
         MockitoAnnotations.initMocks(this);
         authorService = new AuthorServiceImpl(authorRepository, authorMapper,
-                                              bookRepository, bookMapper);
+                                              bookRepository, bookMapper,
+                                              catalogCache, bookLinkRepository,
+                                              catalogCounts, eventPublisher, new ObjectMapper(), batchRunner);
     }
 
     @Test
@@ -57,12 +79,12 @@ class AuthorServiceImplTest {
         Author author1 = Author.builder().authorId(1).authorName("Shakespeare").build();
         Author author2 = Author.builder().authorId(1).authorName("Cervantes").build();
 
-        Page<Author> page = new PageImpl<Author>(Arrays.asList(author1, author2));
+        Slice<Author> slice = new SliceImpl<Author>(Arrays.asList(author1, author2));
 
-        when(authorRepository.findAll(any(Pageable.class))).thenReturn(page);
+        when(authorRepository.findAllBy(any(Pageable.class))).thenReturn(slice);
 
         //when
-        Page<AuthorDTO> authorDTOS = authorService.getAllAuthors(PageRequest.of(0, 10));
+        Slice<AuthorDTO> authorDTOS = authorService.getAllAuthors(PageRequest.of(0, 10), CountMode.EXACT, FieldSet.ALL);
 
         //then
         assertEquals(2, authorDTOS.getSize());
@@ -75,12 +97,14 @@ class AuthorServiceImplTest {
         Author author1 = Author.builder().authorId(1).authorName("Shakespeare").build();
         Author author2 = Author.builder().authorId(1).authorName("Cervantes").build();
 
-        Page<Author> page = new PageImpl<Author>(Arrays.asList(author1, author2));
+        Slice<Author> slice = new SliceImpl<Author>(Arrays.asList(author1, author2));
 
-        when(authorRepository.findByAuthorNameContainingIgnoreCase(any(String.class), any(Pageable.class))).thenReturn(page);
+        when(authorRepository.findByAuthorNameContainingIgnoreCase(any(String.class), any(Pageable.class)))
+            .thenReturn(slice);
 
         //when
-        Page<AuthorDTO> authorDTOS = authorService.searchAuthors("", PageRequest.of(0, 10));
+        Slice<AuthorDTO> authorDTOS = authorService.searchAuthors("", PageRequest.of(0, 10), CountMode.EXACT,
+                                                                  FieldSet.ALL);
 
         //then
         assertEquals(2, authorDTOS.getSize());
@@ -135,7 +159,8 @@ class AuthorServiceImplTest {
 
         Author savedAuthor = Author.builder().authorId(1).authorName(authorDTO.getAuthorName()).build();
 
-        when(authorRepository.save(any(Author.class))).thenReturn(savedAuthor);
+        when(authorRepository.findById(any())).thenReturn(Optional.of(Author.builder().authorId(1).version(0L).build()));
+        when(authorRepository.saveAndFlush(any(Author.class))).thenReturn(savedAuthor);
 
         //when
         AuthorDTO savedDto = authorService.updateAuthor(1, authorDTO);
@@ -158,48 +183,77 @@ class AuthorServiceImplTest {
         //given
         Book book1 = Book.builder().bookId(1).title("Harry Potter 1").build();
         Book book2 = Book.builder().bookId(2).title("Harry Potter 2").build();
-        Author author = Author.builder().authorId(1).authorName("Rowling")
-                              .books(new HashSet<>(Arrays.asList(book1, book2))).build();
 
-        when(authorRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(author));
+        when(authorRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.findByAuthorId(eq(1), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(book1, book2)));
 
         //when
-        Slice<BookDTO> authorBooks = authorService.getAuthorBooks(1);
+        Slice<BookDTO> authorBooks = authorService.getAuthorBooks(1, PageRequest.of(0, 10), CountMode.NONE);
 
         //then
         assertEquals(2, authorBooks.getSize());
-        assertEquals(book2.getTitle(), authorBooks.iterator().next().getTitle());
+        assertEquals(book1.getTitle(), authorBooks.iterator().next().getTitle());
+        verify(authorRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    void getAuthorBooksCounted() {
+        Book book1 = Book.builder().bookId(1).title("Harry Potter 1").build();
+
+        when(authorRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.findByAuthorId(eq(1), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(book1), PageRequest.of(0, 1), true));
+        when(catalogCache.countBooks(eq("author"), eq(1), any())).thenReturn(7L);
+
+        //when
+        Slice<BookDTO> authorBooks = authorService.getAuthorBooks(1, PageRequest.of(0, 1), CountMode.EXACT);
+
+        //then
+        assertEquals(7, ((Page<BookDTO>) authorBooks).getTotalElements());
+        verify(bookRepository, never()).countByAuthorId(anyInt());
+    }
+
+    @Test
+    void getAuthorBooksNotFound() {
+        when(authorRepository.existsById(1)).thenReturn(false);
+
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                                () -> authorService.getAuthorBooks(1, PageRequest.of(0, 10), CountMode.NONE));
     }
 
     @Test
     void setAuthorBook() {
+        Book book1 = Book.builder().bookId(1).title("Harry Potter 1").build();
+        Book book2 = Book.builder().bookId(2).title("Harry Potter 2").build();
+
+        when(authorRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.findByAuthorId(eq(1), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(book1, book2)));
+
+        //when
+        Slice<BookDTO> authorBooks = this.authorService.setAuthorBook(1, 2);
 
-        //TODO
-//        Book book1 = Book.builder().bookId(1).title("Harry Potter 1").authors(new HashSet<>()).build();
-//        Book book2 = Book.builder().bookId(2).title("Harry Potter 2").authors(new HashSet<>()).build();
-//        Author author = Author.builder().authorId(1)
-//                        .authorName("Rowling")
-//                        .books(new HashSet<>()).build();
-//        author.getBooks().add(book1);
-//        book1.getAuthors().add(author);
-//
-//
-//        when(authorRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(author));
-//        when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(book2));
-//        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book2);
-//
-//        //when
-//        Slice<BookDTO> authorBooks = this.authorService.setAuthorBook(1, 2);
-//
-//        //then
-//        assertEquals(2, authorBooks.getSize());
-//        Iterator<BookDTO> iterator = authorBooks.iterator();
-//        iterator.next();
-//
-//        assertEquals(book2.getTitle(), iterator.next().getTitle());
+        //then
+        verify(bookLinkRepository).link(Link.AUTHORS, Collections.singletonList(2), Collections.singleton(1));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+        assertEquals(2, authorBooks.getSize());
+        assertEquals(book2.getTitle(), authorBooks.getContent().get(1).getTitle());
     }
 
     @Test
     void deleteAuthorBook() {
+        Book book1 = Book.builder().bookId(1).title("Harry Potter 1").build();
+
+        when(authorRepository.existsById(1)).thenReturn(true);
+        when(bookRepository.findByAuthorId(eq(1), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(book1)));
+
+        //when
+        Slice<BookDTO> authorBooks = this.authorService.deleteAuthorBook(1, 2);
+
+        //then
+        verify(bookLinkRepository).unlink(Link.AUTHORS, Collections.singletonList(2), Collections.singleton(1));
+        assertEquals(1, authorBooks.getSize());
     }
 }
\ No newline at end of file
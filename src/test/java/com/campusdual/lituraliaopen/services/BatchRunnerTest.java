@@ -0,0 +1,97 @@
+package com.campusdual.lituraliaopen.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.BatchResult;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+class BatchRunnerTest {
+
+    BatchRunner batchRunner;
+
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    @Mock
+    TransactionStatus transactionStatus;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        batchRunner = new BatchRunner(entityManager, transactionManager, 2, 3);
+    }
+
+    @Test
+    void runsChunksAndReportsItemFailures() {
+        //when
+        BatchResult<Integer> result = batchRunner.run(Arrays.asList(1, 2, 3), HttpStatus.OK, null, id -> {
+            if (id == 2) {
+                throw new ResourceNotFoundException();
+            }
+            return id;
+        }, id -> id * 10);
+
+        //then
+        assertEquals(2, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(HttpStatus.NOT_FOUND.value(), result.getItems().get(1).getStatus());
+        assertEquals(30, result.getItems().get(2).getBody());
+        verify(entityManager, times(2)).flush();
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void retriesAFailedChunkOneItemAtATime() {
+        //given
+        AtomicBoolean conflicting = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (conflicting.get()) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return null;
+        }).when(entityManager).flush();
+
+        //when
+        BatchResult<Integer> result = batchRunner.run(Arrays.asList(1, 2), HttpStatus.CREATED,
+                                                      chunk -> conflicting.set(false),
+                                                      id -> {
+                                                          conflicting.compareAndSet(false, id == 2);
+                                                          return id;
+                                                      }, id -> id);
+
+        //then
+        assertEquals(HttpStatus.CREATED.value(), result.getItems().get(0).getStatus());
+        assertEquals(HttpStatus.CONFLICT.value(), result.getItems().get(1).getStatus());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatches() {
+        assertThrows(BadRequestException.class,
+                     () -> batchRunner.run(Collections.emptyList(), HttpStatus.OK, null, id -> id, id -> id));
+        assertThrows(BadRequestException.class,
+                     () -> batchRunner.run(Arrays.asList(1, 2, 3, 4), HttpStatus.OK, null, id -> id, id -> id));
+    }
+}
@@ -3,20 +3,30 @@ package com.campusdual.lituraliaopen.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.FieldSet;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
+import com.campusdual.lituraliaopen.api.mapper.dtos.BookDetailDTO;
 import com.campusdual.lituraliaopen.api.service.BookService;
 import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.profiling.QueryAssertions;
+import com.campusdual.lituraliaopen.profiling.QueryProfiler;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookServiceIT {
 
     public static final String TITLE = "HAMLET";
@@ -29,6 +39,12 @@ class BookServiceIT {
     @Autowired
     BookMapper bookMapper;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    QueryProfiler queryProfiler;
+
     @Transactional
     @Test
     void updateBook() {
@@ -45,4 +61,29 @@ class BookServiceIT {
         assertEquals(TITLE, bookGuardado.getTitle());
         assertEquals(book.getIsbn(), bookGuardado.getIsbn());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookDetailByIdInOneStatement() {
+        //given
+        Integer bookId = repository.findAll().iterator().next().getBookId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        BookDetailDTO bookDetail = service.getBookDetailById(bookId);
+
+        //then
+        assertEquals(bookId, bookDetail.getBookId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllBooksWithinStatementBudget() {
+        //when
+        Slice<BookDTO> books = QueryAssertions.assertMaxStatements(queryProfiler, 2, () -> service.getAllBooks(
+            PageRequest.of(0, 20), CountMode.EXACT, FieldSet.ALL));
+
+        //then
+        assertEquals(20, books.getSize());
+    }
+}
@@ -1,12 +1,22 @@
 package com.campusdual.lituraliaopen.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.campusdual.lituraliaopen.api.BadRequestException;
+import com.campusdual.lituraliaopen.api.CountMode;
+import com.campusdual.lituraliaopen.api.CountedPage;
+import com.campusdual.lituraliaopen.api.CursorSlice;
+import com.campusdual.lituraliaopen.api.FieldSet;
+import com.campusdual.lituraliaopen.api.KeysetCursor;
+import com.campusdual.lituraliaopen.api.event.CatalogChangedEvent.Type;
 import com.campusdual.lituraliaopen.api.mapper.AuthorMapper;
 import com.campusdual.lituraliaopen.api.mapper.BookMapper;
 import com.campusdual.lituraliaopen.api.mapper.GenreMapper;
@@ -16,29 +26,38 @@ import com.campusdual.lituraliaopen.api.mapper.dtos.BookDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.GenreDTO;
 import com.campusdual.lituraliaopen.api.mapper.dtos.PublisherDTO;
 import com.campusdual.lituraliaopen.api.service.BookService;
+import com.campusdual.lituraliaopen.cache.CatalogCounts;
 import com.campusdual.lituraliaopen.domain.Author;
 import com.campusdual.lituraliaopen.domain.Book;
 import com.campusdual.lituraliaopen.domain.Genre;
 import com.campusdual.lituraliaopen.domain.Publisher;
 import com.campusdual.lituraliaopen.repositories.AuthorRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository;
+import com.campusdual.lituraliaopen.repositories.BookLinkRepository.Link;
 import com.campusdual.lituraliaopen.repositories.BookRepository;
 import com.campusdual.lituraliaopen.repositories.GenreRepository;
 import com.campusdual.lituraliaopen.repositories.PublisherRepository;
+import com.campusdual.lituraliaopen.search.BookTitleIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 class BookServiceImplTest {
 
@@ -50,11 +69,22 @@ class BookServiceImplTest {
     GenreRepository genreRepository;
     @Mock
     AuthorRepository authorRepository;
+    @Mock
+    BookLinkRepository bookLinkRepository;
+    @Mock
+    BookTitleIndex bookTitleIndex;
+    @Mock
+    CatalogCounts catalogCounts;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    BatchRunner batchRunner;
 
     BookMapper bookMapper = BookMapper.INSTANCE;
     PublisherMapper publisherMapper = PublisherMapper.INSTANCE;
     GenreMapper genreMapper = GenreMapper.INSTANCE;
     AuthorMapper authorMapper = AuthorMapper.INSTANCE;
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     BookService bookService;
 
@@ -64,7 +94,9 @@ class BookServiceImplTest {
         bookService = new BookServiceImpl(bookRepository, bookMapper,
                                           publisherRepository, publisherMapper,
                                           genreRepository, genreMapper,
-                                          authorRepository, authorMapper);
+                                          authorRepository, authorMapper,
+                                          bookLinkRepository,
+                                          bookTitleIndex, catalogCounts, eventPublisher, objectMapper, batchRunner);
     }
 
     @Test
@@ -81,16 +113,63 @@ class BookServiceImplTest {
                          .title("MacBeth")
                          .build();
 
-        Page<Book> page = new PageImpl<Book>(Arrays.asList(book1, book2));
+        Slice<Book> slice = new SliceImpl<Book>(Arrays.asList(book1, book2));
 
-        when(bookRepository.findAll(any(Pageable.class))).thenReturn(page);
+        when(bookRepository.findAllBy(any(Pageable.class))).thenReturn(slice);
 
         //when
-        Page<BookDTO> bookDTOS = bookService.getAllBooks(PageRequest.of(0, 10));
+        Page<BookDTO> bookDTOS = (Page<BookDTO>) bookService.getAllBooks(PageRequest.of(0, 10), CountMode.EXACT,
+                                                                          FieldSet.ALL);
 
         //then
         assertEquals(2, bookDTOS.getContent().size());
+        assertEquals(2, bookDTOS.getTotalElements());
         assertEquals("Hamlet", bookDTOS.getContent().get(0).getTitle());
+        // the last page counts itself
+        verify(catalogCounts, never()).exact(any());
+    }
+
+    @Test
+    void getAllBooksEstimated() {
+        //given
+        Book book1 = Book.builder()
+                         .bookId(1)
+                         .title("Hamlet")
+                         .build();
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(bookRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(book1), pageable, true));
+        when(catalogCounts.estimate(Type.BOOK)).thenReturn(1200L);
+
+        //when
+        CountedPage<BookDTO> bookDTOS = (CountedPage<BookDTO>) bookService.getAllBooks(pageable, CountMode.ESTIMATE,
+                                                                                        FieldSet.ALL);
+
+        //then
+        assertEquals(1200, bookDTOS.getTotalElements());
+        Assertions.assertFalse(bookDTOS.isTotalExact());
+        verify(catalogCounts, never()).exact(any());
+    }
+
+    @Test
+    void getAllBooksUncounted() {
+        //given
+        Book book1 = Book.builder()
+                         .bookId(1)
+                         .title("Hamlet")
+                         .build();
+        Pageable pageable = PageRequest.of(0, 1);
+
+        when(bookRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(Arrays.asList(book1), pageable, true));
+
+        //when
+        Slice<BookDTO> bookDTOS = bookService.getAllBooks(pageable, CountMode.NONE, FieldSet.ALL);
+
+        //then
+        Assertions.assertFalse(bookDTOS instanceof Page);
+        Assertions.assertTrue(bookDTOS.hasNext());
+        verify(catalogCounts, never()).exact(any());
+        verify(catalogCounts, never()).estimate(any());
     }
 
 
@@ -108,12 +187,12 @@ class BookServiceImplTest {
                          .title("MacBeth")
                          .build();
 
-        Page<Book> page = new PageImpl<Book>(Arrays.asList(book1, book2));
+        Slice<Book> slice = new SliceImpl<Book>(Arrays.asList(book1, book2));
 
-        when(bookRepository.findByTitleContainingIgnoreCase(any(String.class), any(Pageable.class))).thenReturn(page);
+        when(bookRepository.findByTitleContainingIgnoreCase(any(String.class), any(Pageable.class))).thenReturn(slice);
 
         //when
-        Page<BookDTO> bookDTOS = bookService.searchBooks("", PageRequest.of(0, 10));
+        Slice<BookDTO> bookDTOS = bookService.searchBooks("", PageRequest.of(0, 10), CountMode.EXACT, FieldSet.ALL);
 
         //then
         assertEquals(2, bookDTOS.getContent().size());
@@ -121,6 +200,60 @@ class BookServiceImplTest {
     }
 
 
+    @Test
+    void searchBooksFromIndex() {
+        //given
+        Book book1 = Book.builder()
+                         .bookId(1)
+                         .isbn("123456")
+                         .title("Hamlet")
+                         .build();
+        Book book3 = Book.builder()
+                         .bookId(3)
+                         .isbn("123458")
+                         .title("Hamlet II")
+                         .build();
+
+        when(bookTitleIndex.isReady()).thenReturn(true);
+        when(bookTitleIndex.search("hamlet")).thenReturn(new int[]{1, 3});
+        when(bookRepository.findAllById(any())).thenReturn(Arrays.asList(book3, book1));
+
+        //when
+        Page<BookDTO> bookDTOS = (Page<BookDTO>) bookService.searchBooks("hamlet", PageRequest.of(0, 10),
+                                                                          CountMode.EXACT, FieldSet.ALL);
+
+        //then
+        assertEquals(2, bookDTOS.getTotalElements());
+        assertEquals("Hamlet", bookDTOS.getContent().get(0).getTitle());
+        assertEquals("Hamlet II", bookDTOS.getContent().get(1).getTitle());
+        verify(bookRepository, times(0)).findByTitleContainingIgnoreCase(any(String.class), any(Pageable.class));
+    }
+
+
+    @Test
+    void searchBooksAfterFromIndex() {
+        //given
+        Book book3 = Book.builder()
+                         .bookId(3)
+                         .isbn("123458")
+                         .title("Hamlet II")
+                         .build();
+
+        when(bookTitleIndex.isReady()).thenReturn(true);
+        when(bookTitleIndex.search("hamlet")).thenReturn(new int[]{1, 3, 5});
+        when(bookRepository.findAllById(Collections.singletonList(3))).thenReturn(Collections.singletonList(book3));
+        String after = new KeysetCursor("bookId", Direction.ASC, null, "1").encode();
+
+        //when
+        CursorSlice<BookDTO> bookDTOS = bookService.searchBooks("hamlet", after, PageRequest.of(0, 1));
+
+        //then
+        assertEquals(1, bookDTOS.getContent().size());
+        assertEquals("Hamlet II", bookDTOS.getContent().get(0).getTitle());
+        assertEquals("3", KeysetCursor.decode(bookDTOS.getNextCursor()).getId());
+    }
+
+
     @Test
     void getBookById() {
         //given
@@ -169,6 +302,25 @@ class BookServiceImplTest {
         assertEquals(bookDTO.getTitle(), savedDto.getTitle());
     }
 
+    @Test
+    void createBookIgnoresCoverHash() {
+        //given
+        BookDTO bookDTO = new BookDTO();
+        bookDTO.setTitle("Hamlet");
+        bookDTO.setCoverHash("0123456789abcdef");
+
+        when(bookRepository.save(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        BookDTO savedDto = bookService.createBook(bookDTO);
+
+        //then
+        ArgumentCaptor<Book> saved = ArgumentCaptor.forClass(Book.class);
+        verify(bookRepository).save(saved.capture());
+        assertNull(saved.getValue().getCoverHash());
+        assertNull(savedDto.getCoverHash());
+    }
+
     @Test
     void updateBook() {
         //given
@@ -179,7 +331,8 @@ class BookServiceImplTest {
         savedBook.setTitle(bookDTO.getTitle());
         savedBook.setBookId(1);
 
-        when(bookRepository.save(any(Book.class))).thenReturn(savedBook);
+        when(bookRepository.findById(any())).thenReturn(Optional.of(Book.builder().bookId(1).version(0L).build()));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(savedBook);
 
         //when
         BookDTO savedDto = bookService.updateBook(1, bookDTO);
@@ -190,6 +343,52 @@ class BookServiceImplTest {
         assertEquals(bookDTO.getTitle(), savedDto1.getTitle());
     }
 
+    @Test
+    void updateBookWithStaleVersion() {
+        //given
+        BookDTO bookDTO = BookDTO.builder().bookId(1).version(2L).title("Hamlet").build();
+
+        when(bookRepository.findById(1)).thenReturn(Optional.of(Book.builder().bookId(1).version(3L).build()));
+
+        //when/then
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookService.updateBook(1, bookDTO));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    void patchBook() throws Exception {
+        //given
+        Book book = Book.builder().bookId(1).version(0L).isbn("978-84").title("Hamlet").synopsis("Denmark").build();
+
+        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //when
+        JsonNode patch = objectMapper.readTree("{\"title\":\"Macbeth\",\"synopsis\":null}");
+        BookDTO patched = bookService.patchBook(1, patch, 0L);
+
+        //then
+        assertEquals("Macbeth", patched.getTitle());
+        assertNull(patched.getSynopsis());
+        assertEquals("978-84", patched.getIsbn());
+        assertEquals(1, patched.getBookId());
+    }
+
+    @Test
+    void patchBookWithStaleVersion() throws Exception {
+        //given
+        when(bookRepository.findById(1)).thenReturn(Optional.of(Book.builder().bookId(1).version(3L).build()));
+
+        //when/then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                     () -> bookService.patchBook(1, objectMapper.readTree("{\"title\":\"Macbeth\"}"), 2L));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                     () -> bookService.patchBook(1, objectMapper.readTree("{\"version\":2}"), null));
+        assertThrows(BadRequestException.class,
+                     () -> bookService.patchBook(1, objectMapper.readTree("{\"publisher\":1}"), null));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
     @Test
     void deleteBookById() {
         Integer id = 1;
@@ -213,19 +412,17 @@ class BookServiceImplTest {
 
     @Test
     void setBookPublisher() {
-        Publisher publisher = Publisher.builder().publisherId(1).publisherName("Salamandra").build();
         Publisher publisher2 = Publisher.builder().publisherId(2).publisherName("Mundo").build();
-        Book book = Book.builder().bookId(1).title("Harry Potter").publisher(publisher).build();
+        Book book = Book.builder().bookId(1).title("Harry Potter").publisher(publisher2).build();
 
-        when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.of(book));
-        when(publisherRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(publisher2));
-        when(publisherRepository.saveAndFlush(any(Publisher.class))).thenReturn(publisher2);
-        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
+        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
 
         //when
         PublisherDTO publisherDTO = this.bookService.setBookPublisher(1, 2);
 
         //then
+        verify(bookLinkRepository).setPublisher(2, Collections.singleton(1));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
         assertEquals(publisher2.getPublisherName(), publisherDTO.getPublisherName());
     }
 
@@ -254,43 +451,75 @@ class BookServiceImplTest {
         Genre genre2 = Genre.builder().genreId(2).genreName("Comedy").build();
         Book book = Book.builder().bookId(1)
                         .title("Harry Potter")
-                        .genres(new HashSet<>(Collections.singletonList(genre1))).build();
+                        .genres(new HashSet<>(Arrays.asList(genre1, genre2))).build();
 
         when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(book));
-        when(genreRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(genre2));
-        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
 
         //when
         Slice<GenreDTO> bookGenres = this.bookService.setBookGenre(1, 2);
 
         //then
+        verify(bookLinkRepository).link(Link.GENRES, Collections.singleton(1), Collections.singletonList(2));
+        verify(genreRepository, never()).findById(anyInt());
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
         assertEquals(2, bookGenres.getSize());
-        Iterator<GenreDTO> iterator = bookGenres.iterator();
-        iterator.next();
-
-        assertEquals(genre2.getGenreName(), iterator.next().getGenreName());
     }
 
     @Test
     void deleteBookGenre() {
-        Genre genre1 = Genre.builder().genreId(1).genreName("Terror").build();
         Genre genre2 = Genre.builder().genreId(2).genreName("Comedy").build();
         Book book = Book.builder().bookId(1)
                         .title("Harry Potter")
-                        .genres(new HashSet<>(Arrays.asList(genre1, genre2))).build();
+                        .genres(new HashSet<>(Collections.singletonList(genre2))).build();
 
         when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(book));
-        when(genreRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(genre1));
-        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
 
         //when
         Slice<GenreDTO> bookGenres = this.bookService.deleteBookGenre(1, 1);
 
         //then
+        verify(bookLinkRepository).unlink(Link.GENRES, Collections.singleton(1), Collections.singletonList(1));
         assertEquals(1, bookGenres.getSize());
         assertEquals(genre2.getGenreName(), bookGenres.iterator().next().getGenreName());
     }
 
+    @Test
+    void addBookGenres() {
+        Genre genre1 = Genre.builder().genreId(1).genreName("Terror").build();
+        Genre genre2 = Genre.builder().genreId(2).genreName("Comedy").build();
+        Book book = Book.builder().bookId(1)
+                        .title("Harry Potter")
+                        .genres(new HashSet<>(Arrays.asList(genre1, genre2))).build();
+
+        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+
+        //when
+        Slice<GenreDTO> bookGenres = this.bookService.addBookGenres(1, Arrays.asList(1, 2));
+
+        //then
+        verify(bookLinkRepository).link(Link.GENRES, Collections.singleton(1), Arrays.asList(1, 2));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+        assertEquals(2, bookGenres.getSize());
+    }
+
+    @Test
+    void setBookAuthors() {
+        Author author = Author.builder().authorId(3).authorName("J.K. Rowling").build();
+        Book book = Book.builder().bookId(1)
+                        .title("Harry Potter")
+                        .authors(new HashSet<>(Collections.singletonList(author))).build();
+
+        when(bookRepository.findById(1)).thenReturn(Optional.of(book));
+
+        //when
+        Slice<AuthorDTO> bookAuthors = this.bookService.setBookAuthors(1, Collections.singletonList(3));
+
+        //then
+        verify(bookLinkRepository).replaceTargets(Link.AUTHORS, 1, Collections.singletonList(3));
+        assertEquals(1, bookAuthors.getSize());
+        assertEquals("J.K. Rowling", bookAuthors.iterator().next().getAuthorName());
+    }
+
 
     @Test
     void getBookAuthor() {
@@ -313,40 +542,37 @@ class BookServiceImplTest {
 
     @Test
     void setBookAuthor() {
-        Author author1 = Author.builder().authorId(1).authorName("Shakespeare").build();
         Author author2 = Author.builder().authorId(2).authorName("Cervantes").build();
         Book book = Book.builder().bookId(1)
                         .title("Harry Potter")
-                        .authors(new HashSet<>(Collections.singletonList(author1))).build();
+                        .authors(new HashSet<>(Collections.singletonList(author2))).build();
 
         when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(book));
-        when(authorRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(author2));
-        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
 
         //when
         Slice<AuthorDTO> bookAuthors = this.bookService.setBookAuthor(1, 2);
 
         //then
-        assertEquals(2, bookAuthors.getSize());
-        assertEquals(author2.getAuthorName(), bookAuthors.getContent().get(1).getAuthorName());
+        verify(bookLinkRepository).link(Link.AUTHORS, Collections.singleton(1), Collections.singletonList(2));
+        verify(authorRepository, never()).findById(anyInt());
+        assertEquals(1, bookAuthors.getSize());
+        assertEquals(author2.getAuthorName(), bookAuthors.getContent().get(0).getAuthorName());
     }
 
     @Test
     void deleteBookAuthor() {
-        Author author1 = Author.builder().authorId(1).authorName("Shakespeare").build();
         Author author2 = Author.builder().authorId(2).authorName("Cervantes").build();
         Book book = Book.builder().bookId(1)
                         .title("Harry Potter")
-                        .authors(new HashSet<>(Arrays.asList(author1, author2))).build();
+                        .authors(new HashSet<>(Collections.singletonList(author2))).build();
 
         when(bookRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(book));
-        when(authorRepository.findById(any(Integer.class))).thenReturn(Optional.ofNullable(author1));
-        when(bookRepository.saveAndFlush(any(Book.class))).thenReturn(book);
 
         //when
         Slice<AuthorDTO> bookAuthors = this.bookService.deleteBookAuthor(1, 1);
 
         //then
+        verify(bookLinkRepository).unlink(Link.AUTHORS, Collections.singleton(1), Collections.singletonList(1));
         assertEquals(1, bookAuthors.getSize());
         assertEquals(author2.getAuthorName(), bookAuthors.iterator().next().getAuthorName());
     }
@@ -0,0 +1,115 @@
+package com.campusdual.lituraliaopen.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.campusdual.lituraliaopen.domain.Book;
+import com.campusdual.lituraliaopen.profiling.QueryAssertions;
+import com.campusdual.lituraliaopen.profiling.QueryProfiler;
+import com.campusdual.lituraliaopen.repositories.BookRepository;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Open-session-in-view is off, so entities are detached once a service returns: touching a lazy association after
+ * that must fail, and every read endpoint must map its DTOs inside its own read-only transaction. A read that relies
+ * on a lazy load past its service answers 500 here instead of 200.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReadBoundariesIT {
+
+    // a book with a publisher, genres and authors, so every association endpoint has something to map
+    static final String LINKED_BOOK_QUERY =
+        "SELECT b.book_id FROM lituralia.books b WHERE b.publisher_id IS NOT NULL"
+        + " AND EXISTS (SELECT 1 FROM lituralia.book_genres g WHERE g.book_id = b.book_id)"
+        + " AND EXISTS (SELECT 1 FROM lituralia.book_authors a WHERE a.book_id = b.book_id)"
+        + " ORDER BY b.book_id LIMIT 1";
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    QueryProfiler queryProfiler;
+
+    Integer bookId;
+
+    @BeforeEach
+    void setUp() {
+        bookId = jdbcTemplate.queryForObject(LINKED_BOOK_QUERY, Integer.class);
+    }
+
+    @Test
+    void openInViewIsOff() {
+        assertFalse(context.containsBean("openEntityManagerInViewInterceptor"));
+    }
+
+    @Test
+    void lazyLoadingOutsideATransactionFails() {
+        Book book = bookRepository.findAllBy(PageRequest.of(0, 1)).getContent().get(0);
+
+        assertThrows(LazyInitializationException.class, () -> book.getGenres().size());
+        assertThrows(LazyInitializationException.class, () -> book.getAuthors().size());
+    }
+
+    @Test
+    void bookReads() {
+        assertOk(2, "/api/books?page=0&size=20");
+        assertOk(2, "/api/books/search?searchTerm=a&page=0&size=20");
+        assertOk(2, "/api/books/" + bookId);
+        // the ETag of the detail is the version of the book, its publisher, genres and authors: three queries
+        assertOk(4, "/api/books/" + bookId + "/full");
+    }
+
+    @Test
+    void bookAssociationReads() {
+        assertOk(2, "/api/books/" + bookId + "/publisher");
+        assertOk(2, "/api/books/" + bookId + "/genres");
+        assertOk(2, "/api/books/" + bookId + "/authors");
+    }
+
+    @Test
+    void inverseAssociationReads() {
+        Integer genreId = jdbcTemplate.queryForObject(
+            "SELECT genre_id FROM lituralia.book_genres WHERE book_id = ? ORDER BY genre_id LIMIT 1", Integer.class,
+            bookId);
+        Integer authorId = jdbcTemplate.queryForObject(
+            "SELECT author_id FROM lituralia.book_authors WHERE book_id = ? ORDER BY author_id LIMIT 1", Integer.class,
+            bookId);
+        Integer publisherId = jdbcTemplate.queryForObject(
+            "SELECT publisher_id FROM lituralia.books WHERE book_id = ?", Integer.class, bookId);
+
+        assertOk(3, "/api/genres/" + genreId + "/books");
+        assertOk(3, "/api/authors/" + authorId + "/books");
+        assertOk(3, "/api/publishers/" + publisherId + "/books");
+    }
+
+    // -------- Internals
+
+    private void assertOk(int maxStatements, String uri) {
+        QueryAssertions.assertMaxStatements(queryProfiler, maxStatements,
+                                            () -> mockMvc.perform(get(uri)).andExpect(status().isOk()));
+    }
+}
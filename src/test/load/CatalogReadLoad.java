@@ -0,0 +1,122 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The scenario of {@code catalog-read.js} for machines without k6: {@code VUS} virtual users each send the same four
+ * requests in parallel, wait for all of them and start over, for {@code DURATION} seconds. Same environment variables
+ * as the k6 script; needs Java 21 or later:
+ * <pre>
+ * VUS=400 DURATION=120 java src/test/load/CatalogReadLoad.java
+ * </pre>
+ */
+public class CatalogReadLoad {
+
+    private static final String BASE_URL = env("BASE_URL", "http://localhost:8080");
+    private static final int MAX_BOOK_ID = Integer.parseInt(env("MAX_BOOK_ID", "1000"));
+    private static final int MAX_AUTHOR_ID = Integer.parseInt(env("MAX_AUTHOR_ID", "200"));
+    private static final String[] TERMS = {"the", "love", "war", "night", "sea", "king"};
+    private static final String[] NAMES = {"books", "search", "book", "author-books"};
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+                                                       .version(HttpClient.Version.HTTP_1_1)
+                                                       .connectTimeout(Duration.ofSeconds(10))
+                                                       .build();
+
+    public static void main(String[] args) throws InterruptedException {
+        int vus = Integer.parseInt(env("VUS", "400"));
+        long deadline = System.nanoTime() + Duration.ofSeconds(Long.parseLong(env("DURATION", "120"))).toNanos();
+        List<List<long[]>> samples = new ArrayList<>();
+        LongAdder failed = new LongAdder();
+        List<Thread> users = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < vus; i++) {
+            List<long[]> own = new ArrayList<>();
+            samples.add(own);
+            users.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < deadline) {
+                    iteration(own, failed);
+                }
+            }));
+        }
+        for (Thread user : users) {
+            user.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Map<String, List<Long>> byName = new TreeMap<>();
+        List<Long> all = new ArrayList<>();
+        for (List<long[]> own : samples) {
+            for (long[] sample : own) {
+                byName.computeIfAbsent(NAMES[(int) sample[0]], name -> new ArrayList<>()).add(sample[1]);
+                all.add(sample[1]);
+            }
+        }
+        System.out.printf(Locale.ROOT, "http_reqs..........: %d  %.1f/s%n", all.size(), all.size() / seconds);
+        System.out.printf(Locale.ROOT, "http_req_failed....: %d (5xx or no response)%n", failed.sum());
+        System.out.println("http_req_duration..: " + trend(all));
+        byName.forEach((name, durations) -> System.out.printf(Locale.ROOT, "  {name:%s}%s %s%n", name,
+                                                               " ".repeat(14 - name.length()), trend(durations)));
+    }
+
+    private static void iteration(List<long[]> samples, LongAdder failed) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] paths = {
+            "/api/books?page=" + random.nextInt(20) + "&size=20",
+            "/api/books/search?searchTerm=" + TERMS[random.nextInt(TERMS.length)],
+            "/api/books/" + (1 + random.nextInt(MAX_BOOK_ID)) + "/full",
+            "/api/authors/" + (1 + random.nextInt(MAX_AUTHOR_ID)) + "/books"
+        };
+        List<CompletableFuture<Void>> batch = new ArrayList<>();
+        for (int i = 0; i < paths.length; i++) {
+            int name = i;
+            long start = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + paths[i]))
+                                             .timeout(Duration.ofSeconds(60))
+                                             .build();
+            batch.add(CLIENT.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                            .handle((response, error) -> {
+                                long micros = (System.nanoTime() - start) / 1000;
+                                if (error != null || response.statusCode() >= 500) {
+                                    failed.increment();
+                                }
+                                synchronized (samples) {
+                                    samples.add(new long[]{name, micros});
+                                }
+                                return null;
+                            }));
+        }
+        CompletableFuture.allOf(batch.toArray(new CompletableFuture[0])).join();
+    }
+
+    private static String trend(List<Long> micros) {
+        long[] sorted = micros.stream().mapToLong(Long::longValue).sorted().toArray();
+        double avg = Arrays.stream(sorted).average().orElse(0);
+        return String.format(Locale.ROOT, "avg=%.1fms p(50)=%.1fms p(95)=%.1fms p(99)=%.1fms max=%.1fms",
+                             avg / 1000, percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                             sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percent / 100.0) - 1)] / 1000.0;
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+}
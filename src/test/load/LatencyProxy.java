@@ -0,0 +1,97 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP proxy adding a fixed delay to every chunk in both directions, for machines where {@code tc qdisc ... netem} is
+ * not available. Point the application at it instead of the database; needs Java 21 or later:
+ * <pre>
+ * LISTEN=15432 TARGET=localhost:5432 DELAY_MS=25 java src/test/load/LatencyProxy.java
+ * PG_URL=jdbc:postgresql://localhost:15432/&lt;database&gt; java -jar target/lituralia-open-*.jar ...
+ * </pre>
+ * Chunks keep their order and are delayed, not throttled: a round trip takes {@code 2 * DELAY_MS} more, whatever is
+ * in flight.
+ */
+public class LatencyProxy {
+
+    private static final byte[] END = new byte[0];
+
+    public static void main(String[] args) throws IOException {
+        int listen = Integer.parseInt(env("LISTEN", "15432"));
+        String[] target = env("TARGET", "localhost:5432").split(":");
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(env("DELAY_MS", "25")));
+        try (ServerSocket server = new ServerSocket(listen)) {
+            System.out.printf("Forwarding :%d to %s:%s, %d ms each way%n", listen, target[0], target[1],
+                              TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            while (true) {
+                Socket client = server.accept();
+                Socket upstream = new Socket();
+                upstream.connect(new InetSocketAddress(target[0], Integer.parseInt(target[1])));
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                pump(client, upstream, delayNanos);
+                pump(upstream, client, delayNanos);
+            }
+        }
+    }
+
+    /**
+     * Reads {@code from} as fast as it comes and writes each chunk to {@code to} once its delay is over.
+     */
+    private static void pump(Socket from, Socket to, long delayNanos) {
+        BlockingQueue<Object[]> chunks = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = from.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    chunks.add(new Object[]{System.nanoTime() + delayNanos, Arrays.copyOf(buffer, read)});
+                }
+            } catch (IOException e) {
+                // the other side closed: fall through and pass the end on
+            }
+            chunks.add(new Object[]{System.nanoTime() + delayNanos, END});
+        });
+        Thread.ofVirtual().start(() -> {
+            try {
+                OutputStream out = to.getOutputStream();
+                while (true) {
+                    Object[] chunk = chunks.take();
+                    long wait = (long) chunk[0] - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    if (chunk[1] == END) {
+                        to.shutdownOutput();
+                        return;
+                    }
+                    out.write((byte[]) chunk[1]);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                close(from);
+                close(to);
+            }
+        });
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+}
@@ -0,0 +1,35 @@
+// k6 load test of the catalog read paths: book listing, search, detail and an author's books.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=400 -e DURATION=2m src/test/load/catalog-read.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const MAX_BOOK_ID = parseInt(__ENV.MAX_BOOK_ID || '1000');
+const MAX_AUTHOR_ID = parseInt(__ENV.MAX_AUTHOR_ID || '200');
+const TERMS = ['the', 'love', 'war', 'night', 'sea', 'king'];
+
+export const options = {
+  scenarios: {
+    catalog: {
+      executor: 'constant-vus',
+      vus: parseInt(__ENV.VUS || '400'),
+      duration: __ENV.DURATION || '2m',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function random(max) {
+  return 1 + Math.floor(Math.random() * max);
+}
+
+export default function () {
+  const responses = http.batch([
+    ['GET', `${BASE_URL}/api/books?page=${random(20) - 1}&size=20`, null, { tags: { name: 'books' } }],
+    ['GET', `${BASE_URL}/api/books/search?searchTerm=${TERMS[random(TERMS.length) - 1]}`, null,
+      { tags: { name: 'search' } }],
+    ['GET', `${BASE_URL}/api/books/${random(MAX_BOOK_ID)}/full`, null, { tags: { name: 'book' } }],
+    ['GET', `${BASE_URL}/api/authors/${random(MAX_AUTHOR_ID)}/books`, null, { tags: { name: 'author-books' } }],
+  ]);
+  responses.forEach(response => check(response, { 'not 5xx': r => r.status < 500 }));
+}